@@ -36,7 +36,7 @@ import java.util.regex.Pattern;
  * If any properties are added at runtime you need to call resolveProperties() if the properties contain placeholders.
  *
  * There are three public accessors.
- *     - getProperty()
+ *     - getProperty() (optionally with a default value)
  *     - setProperty()
  *     - resolveProperties()
  *
@@ -59,7 +59,9 @@ public class PropertyManager {
         props = new Properties();
         InputStream inputStream = this.getClass().getClassLoader().getResourceAsStream("qcclient.properties");
         try {
-            props.load(inputStream);
+            if(inputStream != null) {
+                props.load(inputStream);
+            }
         } catch(IOException e) {
             e.printStackTrace();
         }
@@ -119,6 +121,18 @@ public class PropertyManager {
         return getProperties().get(name);
     }
 
+    /**
+     * Gets a property from the hashmap stored in the PropertyManager singleton.
+     * Returns the default value when the property is not defined.
+     * @param name
+     * @param defaultValue
+     * @return
+     */
+    public static String getProperty(String name, String defaultValue) {
+        String value = getProperty(name);
+        return value == null ? defaultValue : value;
+    }
+
     /**
      * Set property  in the hasmap stroed in the PropertyManager singleton.
      * Setting a value with setProperty does NOT store this property in the .properties file.
@@ -0,0 +1,217 @@
+/*
+ * QC REST API client
+ *
+ * Copyright (C) 2019  matthias.dirickx@outlook.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package be.mdi.testing.qc.client;
+
+import be.mdi.testing.qc.model.Domains;
+import be.mdi.testing.qc.model.Projects;
+import be.mdi.testing.qc.model.composits.QcCommitable;
+import be.mdi.testing.qc.model.entities.*;
+import be.mdi.testing.qc.model.fields.QcDefectField;
+import be.mdi.testing.qc.model.fields.QcRunField;
+import be.mdi.testing.qc.model.fields.QcRunStepField;
+
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Consumer;
+
+/**
+ * Asynchronous counterpart of the {@link QCRestClient}.
+ * Every operation returns a CompletableFuture and runs on the executor of this client.
+ * The calls themselves are done by the wrapped QCRestClient, so the session and the connection pool are shared.
+ *
+ * Example:
+ *     AsyncQCRestClient async = new AsyncQCRestClient(qcc);
+ *     async.getDefect("domain", "project", 1).thenAccept(d -> ...);
+ */
+public class AsyncQCRestClient implements AutoCloseable {
+
+    private final QCRestClient client;
+    private final Executor executor;
+    private final Executor attachmentExecutor;
+    private final boolean ownsExecutor;
+
+    /**
+     * Async client running on its own executors.
+     * That is a virtual thread per call when qcclient.threads.virtual is on,
+     * else a fixed thread pool (size: qcclient.async.threads).
+     * Attachment uploads run on a pool of their own (size: qcclient.bulkhead.attachments.calls),
+     * so they do not hold the threads of the other calls.
+     * The executors are shut down on close().
+     * @param client QCRestClient
+     */
+    public AsyncQCRestClient(QCRestClient client) {
+        this(
+                client,
+                QcThreads.newExecutor(client.getConfig(), "qcclient-async"),
+                client.getConfig().isVirtualThreads()
+                        ? QcThreads.newVirtualThreadExecutor()
+                        : QcThreads.newPlatformThreadPool("qcclient-attachments", client.getConfig().getAttachmentCalls()),
+                true
+        );
+    }
+
+    /**
+     * Async client running all calls, uploads included, on the given executor.
+     * The executor is not shut down on close(); it is owned by the caller.
+     * @param client QCRestClient
+     * @param executor Executor
+     */
+    public AsyncQCRestClient(QCRestClient client, Executor executor) {
+        this(client, executor, executor, false);
+    }
+
+    private AsyncQCRestClient(QCRestClient client, Executor executor, Executor attachmentExecutor, boolean ownsExecutor) {
+        this.client = client;
+        this.executor = executor;
+        this.attachmentExecutor = attachmentExecutor;
+        this.ownsExecutor = ownsExecutor;
+    }
+
+    /**
+     * The blocking client doing the actual calls.
+     * @return QCRestClient
+     */
+    public QCRestClient getClient() { return client; }
+
+    public CompletableFuture<Domains> getDomains() {
+        return CompletableFuture.supplyAsync(client::getDomains, executor);
+    }
+
+    public CompletableFuture<Domains> getDomainsWithProjects() {
+        return CompletableFuture.supplyAsync(client::getDomainsWithProjects, executor);
+    }
+
+    public CompletableFuture<Projects> getProjects(String domain) {
+        return CompletableFuture.supplyAsync(() -> client.getProjects(domain), executor);
+    }
+
+    public CompletableFuture<Integer> postEntity(QcEntity entity) {
+        return CompletableFuture.supplyAsync(() -> client.postEntity(entity), executor);
+    }
+
+    public <T> CompletableFuture<T> postEntity(Class<T> retType, QcEntity entity) {
+        return CompletableFuture.supplyAsync(() -> client.postEntity(retType, entity), executor);
+    }
+
+    public CompletableFuture<Integer> postEntities(QcEntities entities) {
+        return CompletableFuture.supplyAsync(() -> client.postEntities(entities), executor);
+    }
+
+    public <T> CompletableFuture<T> postEntities(Class<T> retType, QcEntities entities) {
+        return CompletableFuture.supplyAsync(() -> client.postEntities(retType, entities), executor);
+    }
+
+    public CompletableFuture<Integer> putEntity(QcEntity entity) {
+        return CompletableFuture.supplyAsync(() -> client.putEntity(entity), executor);
+    }
+
+    public CompletableFuture<QcDefect> getDefect(String domain, String project, Integer defectId) {
+        return CompletableFuture.supplyAsync(() -> client.getDefect(domain, project, defectId), executor);
+    }
+
+    public CompletableFuture<QcDefects> getDefects(String domain, String project) {
+        return CompletableFuture.supplyAsync(() -> client.getDefects(domain, project), executor);
+    }
+
+    public CompletableFuture<QcDefects> getDefects(String domain, String project, Set<QcDefectField> fields) {
+        return CompletableFuture.supplyAsync(() -> client.getDefects(domain, project, fields), executor);
+    }
+
+    public CompletableFuture<QcRun> getRun(String domain, String project, int runId) {
+        return CompletableFuture.supplyAsync(() -> client.getRun(domain, project, runId), executor);
+    }
+
+    public CompletableFuture<QcRuns> getRuns(String domain, String project) {
+        return CompletableFuture.supplyAsync(() -> client.getRuns(domain, project), executor);
+    }
+
+    public CompletableFuture<QcRuns> getRuns(String domain, String project, Set<QcRunField> fields) {
+        return CompletableFuture.supplyAsync(() -> client.getRuns(domain, project, fields), executor);
+    }
+
+    public CompletableFuture<QcRunStep> getRunStep(String domain, String project, int runId, int runStepId) {
+        return CompletableFuture.supplyAsync(() -> client.getRunStep(domain, project, runId, runStepId), executor);
+    }
+
+    public CompletableFuture<QcRunSteps> getRunSteps(String domain, String project) {
+        return CompletableFuture.supplyAsync(() -> client.getRunSteps(domain, project), executor);
+    }
+
+    public CompletableFuture<QcRunSteps> getRunSteps(String domain, String project, Set<QcRunStepField> fields) {
+        return CompletableFuture.supplyAsync(() -> client.getRunSteps(domain, project, fields), executor);
+    }
+
+    /**
+     * Read the defects one at a time on the executor of this client. The action runs on that executor.
+     * @param domain String
+     * @param project String
+     * @param action Consumer
+     * @return CompletableFuture (number of defects read)
+     */
+    public CompletableFuture<Integer> forEachDefect(String domain, String project, Consumer<? super QcDefect> action) {
+        return CompletableFuture.supplyAsync(() -> client.forEachDefect(domain, project, action), executor);
+    }
+
+    public CompletableFuture<Integer> forEachDefect(String domain, String project, Set<QcDefectField> fields, Consumer<? super QcDefect> action) {
+        return CompletableFuture.supplyAsync(() -> client.forEachDefect(domain, project, fields, action), executor);
+    }
+
+    public CompletableFuture<Integer> forEachRun(String domain, String project, Consumer<? super QcRun> action) {
+        return CompletableFuture.supplyAsync(() -> client.forEachRun(domain, project, action), executor);
+    }
+
+    public CompletableFuture<Integer> forEachRun(String domain, String project, Set<QcRunField> fields, Consumer<? super QcRun> action) {
+        return CompletableFuture.supplyAsync(() -> client.forEachRun(domain, project, fields, action), executor);
+    }
+
+    public CompletableFuture<Integer> forEachRunStep(String domain, String project, Consumer<? super QcRunStep> action) {
+        return CompletableFuture.supplyAsync(() -> client.forEachRunStep(domain, project, action), executor);
+    }
+
+    public CompletableFuture<Integer> forEachRunStep(String domain, String project, Set<QcRunStepField> fields, Consumer<? super QcRunStep> action) {
+        return CompletableFuture.supplyAsync(() -> client.forEachRunStep(domain, project, fields, action), executor);
+    }
+
+    public CompletableFuture<Void> postAttachment(QcAttachment qcAttachment) {
+        return CompletableFuture.runAsync(() -> client.postAttachment(qcAttachment), attachmentExecutor);
+    }
+
+    /**
+     * Commit a composit (for example a QcRunAndRunSteps) with the wrapped client, on the executor of this client.
+     * @param commitable QcCommitable
+     * @return CompletableFuture (completes when the commit is done)
+     */
+    public CompletableFuture<Void> commit(QcCommitable commitable) {
+        return CompletableFuture.runAsync(() -> commitable.commit(client), executor);
+    }
+
+    /**
+     * Shut down the executors when they were created by this client.
+     * The wrapped QCRestClient is not closed.
+     */
+    @Override
+    public void close() {
+        if(ownsExecutor) {
+            ((ExecutorService) executor).shutdown();
+            ((ExecutorService) attachmentExecutor).shutdown();
+        }
+    }
+}
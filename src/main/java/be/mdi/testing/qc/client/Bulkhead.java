@@ -0,0 +1,80 @@
+/*
+ * QC REST API client
+ *
+ * Copyright (C) 2019  matthias.dirickx@outlook.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package be.mdi.testing.qc.client;
+
+import be.mdi.testing.qc.exception.QcClientException;
+import be.mdi.testing.qc.exception.QcDeadlineExceededException;
+
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Fixed limit on the attachment uploads a client has in flight.
+ *
+ * Uploads have a connection pool of their own and do not go through the adaptive ConcurrencyLimiter,
+ * so a few large uploads cannot take the connections or the slots the entity calls need.
+ * Their long round trips are also kept out of the latency baseline of the limiter.
+ *
+ * A ReentrantLock is used rather than a monitor so waiting virtual threads do not pin their carrier.
+ */
+class Bulkhead {
+
+    private final QcClientMetrics metrics;
+    private final int maxCalls;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition permitReleased = lock.newCondition();
+    private int inFlight;
+
+    Bulkhead(int maxCalls, QcClientMetrics metrics) {
+        this.metrics = metrics;
+        this.maxCalls = Math.max(1, maxCalls);
+    }
+
+    void acquire() {
+        lock.lock();
+        try {
+            long remaining = QcDeadline.remainingForCurrentThread();
+            while(inFlight >= maxCalls) {
+                metrics.addAttachmentWait();
+                if(remaining == Long.MAX_VALUE) {
+                    permitReleased.await();
+                } else if((remaining = permitReleased.awaitNanos(remaining)) <= 0) {
+                    throw new QcDeadlineExceededException("Deadline exceeded while waiting for a free slot to upload an attachment.");
+                }
+            }
+            inFlight++;
+        } catch(InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new QcClientException("Interrupted while waiting for a free slot to upload an attachment.", e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void release() {
+        lock.lock();
+        try {
+            inFlight--;
+            permitReleased.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+}
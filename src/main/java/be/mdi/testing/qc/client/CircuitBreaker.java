@@ -0,0 +1,132 @@
+/*
+ * QC REST API client
+ *
+ * Copyright (C) 2019  matthias.dirickx@outlook.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package be.mdi.testing.qc.client;
+
+import be.mdi.testing.qc.exception.QcCircuitOpenException;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Circuit breaker of one endpoint family (QcType.getRestUrlType(), for example "run-steps").
+ *
+ * The circuit opens after a number of consecutive failures.
+ * A failure is a connection failure or timeout, or a 502, 503 or 504.
+ * Other statuses count as success: the endpoint answered (QC answers 500 to invalid data, for example).
+ * See CircuitState for the states. Every state change is recorded in the QcClientMetrics.
+ */
+class CircuitBreaker {
+
+    private final String restUrlType;
+    private final QcClientMetrics metrics;
+    private final int failureThreshold;
+    private final long openNanos;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private CircuitState state = CircuitState.CLOSED;
+    private int failures;
+    private long openedAt;
+    private boolean trialInFlight;
+
+    CircuitBreaker(String restUrlType, QcClientConfig config, QcClientMetrics metrics) {
+        this.restUrlType = restUrlType;
+        this.metrics = metrics;
+        this.failureThreshold = Math.max(1, config.getBreakerFailures());
+        this.openNanos = TimeUnit.SECONDS.toNanos(config.getBreakerOpenTime());
+        metrics.setCircuitState(restUrlType, state);
+    }
+
+    /**
+     * Check that a call may be sent.
+     * @throws QcCircuitOpenException when the circuit is open, or half open with the trial call in flight
+     */
+    void acquire() {
+        lock.lock();
+        try {
+            if(state == CircuitState.OPEN) {
+                if(System.nanoTime() - openedAt < openNanos) {
+                    throw reject();
+                }
+                transition(CircuitState.HALF_OPEN);
+            }
+            if(state == CircuitState.HALF_OPEN) {
+                if(trialInFlight) {
+                    throw reject();
+                }
+                trialInFlight = true;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void onSuccess() {
+        lock.lock();
+        try {
+            failures = 0;
+            trialInFlight = false;
+            if(state != CircuitState.CLOSED) {
+                transition(CircuitState.CLOSED);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void onFailure() {
+        lock.lock();
+        try {
+            trialInFlight = false;
+            failures++;
+            if(state == CircuitState.HALF_OPEN || (state == CircuitState.CLOSED && failures >= failureThreshold)) {
+                openedAt = System.nanoTime();
+                transition(CircuitState.OPEN);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * The call ended without saying anything about the endpoint (for example a failed authentication).
+     */
+    void onIgnored() {
+        lock.lock();
+        try {
+            trialInFlight = false;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    static boolean isFailure(int status) {
+        return status == 502 || status == 503 || status == 504;
+    }
+
+    private QcCircuitOpenException reject() {
+        metrics.addCircuitRejection();
+        return new QcCircuitOpenException(restUrlType,
+                "The circuit breaker for " + restUrlType + " is " + state + " after repeated failures.");
+    }
+
+    private void transition(CircuitState newState) {
+        state = newState;
+        metrics.onCircuitStateChange(restUrlType, newState);
+    }
+}
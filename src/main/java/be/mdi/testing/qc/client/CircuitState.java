@@ -0,0 +1,33 @@
+/*
+ * QC REST API client
+ *
+ * Copyright (C) 2019  matthias.dirickx@outlook.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package be.mdi.testing.qc.client;
+
+/**
+ * States of the circuit breaker of an endpoint.
+ *
+ *     - CLOSED: calls are sent.
+ *     - OPEN: the endpoint failed repeatedly; calls fail right away with a QcCircuitOpenException.
+ *     - HALF_OPEN: the open time has passed; one trial call is sent.
+ *       When it succeeds the circuit closes, when it fails the circuit opens again.
+ */
+public enum CircuitState {
+    CLOSED,
+    OPEN,
+    HALF_OPEN
+}
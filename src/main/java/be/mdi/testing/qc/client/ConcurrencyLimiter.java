@@ -0,0 +1,130 @@
+/*
+ * QC REST API client
+ *
+ * Copyright (C) 2019  matthias.dirickx@outlook.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package be.mdi.testing.qc.client;
+
+import be.mdi.testing.qc.exception.QcClientException;
+import be.mdi.testing.qc.exception.QcDeadlineExceededException;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Adaptive limit on the number of calls a client has in flight (AIMD).
+ *
+ * Every call waits for a permit before it is sent and reports its round-trip time and outcome when done.
+ *     - Additive increase: a call that was fast enough raises the limit by 1/limit,
+ *       so about one per full window of calls, as long as the limit is actually used.
+ *     - Multiplicative decrease: an overload signal multiplies the limit by the backoff ratio.
+ *       Overload is a connection failure or timeout, a 429, 503 or 504,
+ *       or a round trip slower than the latency tolerance times the lowest recent round trip.
+ *       The limit is decreased at most once per round trip, so a burst of failures counts once.
+ *
+ * A ReentrantLock is used rather than a monitor so waiting virtual threads do not pin their carrier.
+ */
+class ConcurrencyLimiter {
+
+    private static final int RTT_WINDOW = 500;
+    //Round trips within this much of the baseline are never taken for overload (local jitter, GC pauses).
+    private static final long RTT_SLACK = TimeUnit.MILLISECONDS.toNanos(20);
+
+    private final QcClientMetrics metrics;
+    private final int maxLimit;
+    private final double backoffRatio;
+    private final double latencyTolerance;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition permitReleased = lock.newCondition();
+    private double limit;
+    private int inFlight;
+    private long minRtt = Long.MAX_VALUE;
+    private int rttSamples;
+    private long lastDecrease;
+
+    ConcurrencyLimiter(QcClientConfig config, QcClientMetrics metrics) {
+        this.metrics = metrics;
+        this.maxLimit = Math.max(1, config.getLimiterMax());
+        this.backoffRatio = config.getLimiterBackoffRatio();
+        this.latencyTolerance = config.getLimiterLatencyTolerance();
+        this.limit = Math.min(maxLimit, Math.max(1, config.getLimiterInitial()));
+        metrics.setConcurrencyLimit((int) limit);
+    }
+
+    void acquire() {
+        lock.lock();
+        try {
+            long remaining = QcDeadline.remainingForCurrentThread();
+            while(inFlight >= (int) limit) {
+                metrics.addLimiterWait();
+                if(remaining == Long.MAX_VALUE) {
+                    permitReleased.await();
+                } else if((remaining = permitReleased.awaitNanos(remaining)) <= 0) {
+                    throw new QcDeadlineExceededException("Deadline exceeded while waiting for a free slot to call the server.");
+                }
+            }
+            inFlight++;
+        } catch(InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new QcClientException("Interrupted while waiting for a free slot to call the server.", e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Give back the permit and adapt the limit.
+     * @param rttNanos long (round-trip time of the call)
+     * @param overloaded boolean (the server or the connection signalled overload)
+     */
+    void release(long rttNanos, boolean overloaded) {
+        lock.lock();
+        try {
+            boolean windowUsed = inFlight >= limit / 2;
+            inFlight--;
+            if(!overloaded) {
+                //The baseline is reset now and then, so it follows a server that got slower for good.
+                if(++rttSamples >= RTT_WINDOW) {
+                    minRtt = rttNanos;
+                    rttSamples = 0;
+                } else {
+                    minRtt = Math.min(minRtt, rttNanos);
+                }
+                overloaded = rttNanos > minRtt * latencyTolerance && rttNanos - minRtt > RTT_SLACK;
+            }
+
+            long now = System.nanoTime();
+            if(overloaded) {
+                if(now - lastDecrease > Math.min(minRtt, rttNanos)) {
+                    limit = Math.max(1, limit * backoffRatio);
+                    lastDecrease = now;
+                }
+            } else if(windowUsed) {
+                limit = Math.min(maxLimit, limit + 1 / limit);
+            }
+            metrics.setConcurrencyLimit((int) limit);
+            permitReleased.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    static boolean isOverload(int status) {
+        return status == 429 || status == 503 || status == 504;
+    }
+}
@@ -0,0 +1,144 @@
+/*
+ * QC REST API client
+ *
+ * Copyright (C) 2019  matthias.dirickx@outlook.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package be.mdi.testing.qc.client;
+
+import be.mdi.testing.qc.exception.QcClientException;
+import be.mdi.testing.qc.model.entities.QcEntities;
+import be.mdi.testing.qc.model.entities.QcEntity;
+
+import javax.xml.stream.XMLStreamException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.function.Consumer;
+
+/**
+ * The wire format of the entity calls (qcclient.format).
+ *
+ * Requests are written in the configured format and ask for it in the Accept header.
+ * A response is read in the format of its Content-Type, so a server that answers XML anyway is still understood.
+ */
+enum EntityFormat {
+
+    XML("application/xml") {
+        @Override
+        <T> T read(Class<T> type, InputStream in) throws XMLStreamException {
+            return EntityXmlReader.read(type, in);
+        }
+
+        @Override
+        <T> int readEach(Class<T> type, InputStream in, Consumer<? super T> action) throws XMLStreamException {
+            return EntityXmlReader.readEach(type, in, action);
+        }
+
+        @Override
+        void write(QcEntity entity, OutputStream out) throws IOException {
+            EntityXmlWriter.write(entity, out);
+        }
+
+        @Override
+        void write(QcEntities entities, OutputStream out) throws IOException {
+            EntityXmlWriter.write(entities, out);
+        }
+    },
+
+    JSON("application/json") {
+        @Override
+        <T> T read(Class<T> type, InputStream in) throws IOException {
+            return EntityJsonReader.read(type, in);
+        }
+
+        @Override
+        <T> int readEach(Class<T> type, InputStream in, Consumer<? super T> action) throws IOException {
+            return EntityJsonReader.readEach(type, in, action);
+        }
+
+        @Override
+        void write(QcEntity entity, OutputStream out) throws IOException {
+            EntityJsonWriter.write(entity, out);
+        }
+
+        @Override
+        void write(QcEntities entities, OutputStream out) throws IOException {
+            EntityJsonWriter.write(entities, out);
+        }
+    };
+
+    private final String mediaType;
+
+    EntityFormat(String mediaType) {
+        this.mediaType = mediaType;
+    }
+
+    String getMediaType() { return mediaType; }
+
+    /**
+     * @param type Class (an entity or collection class, see EntityTypes)
+     * @param in InputStream
+     * @return T
+     * @throws IOException when reading fails, or (JSON) the document is not valid
+     * @throws XMLStreamException (XML) when the document is not well formed
+     */
+    abstract <T> T read(Class<T> type, InputStream in) throws IOException, XMLStreamException;
+
+    /**
+     * Read the entities of a collection one at a time and hand each to the action.
+     * @param type Class (of one entity, see EntityTypes)
+     * @param in InputStream
+     * @param action Consumer
+     * @return int (number of entities read)
+     * @throws IOException when reading fails, or (JSON) the document is not valid
+     * @throws XMLStreamException (XML) when the document is not well formed
+     */
+    abstract <T> int readEach(Class<T> type, InputStream in, Consumer<? super T> action) throws IOException, XMLStreamException;
+
+    abstract void write(QcEntity entity, OutputStream out) throws IOException;
+
+    abstract void write(QcEntities entities, OutputStream out) throws IOException;
+
+    /**
+     * @param name String (xml or json)
+     * @return EntityFormat
+     */
+    static EntityFormat of(String name) {
+        switch(name) {
+            case "xml": return XML;
+            case "json": return JSON;
+            default: throw new QcClientException("Unknown format '" + name + "' (xml or json).");
+        }
+    }
+
+    /**
+     * @param contentType String (of a response, may be null)
+     * @param configured EntityFormat (when the content type does not tell)
+     * @return EntityFormat
+     */
+    static EntityFormat ofContentType(String contentType, EntityFormat configured) {
+        if(contentType == null) {
+            return configured;
+        }
+        if(contentType.contains("json")) {
+            return JSON;
+        }
+        if(contentType.contains("xml")) {
+            return XML;
+        }
+        return configured;
+    }
+}
@@ -0,0 +1,177 @@
+/*
+ * QC REST API client
+ *
+ * Copyright (C) 2019  matthias.dirickx@outlook.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package be.mdi.testing.qc.client;
+
+import be.mdi.testing.qc.model.entities.QcEntities;
+import be.mdi.testing.qc.model.entities.QcEntity;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Reads entities and collections of entities from the JSON format of the ALM REST API, with the streaming parser of Jackson.
+ *
+ *     entity     : {"Fields":[{"Name":"id","values":[{"value":"1"}]}, ...],"Type":"defect"}
+ *     collection : {"entities":[entity, ...],"TotalResults":2}
+ *
+ * As for XML, the fields go straight into the field map of the entity, with the names of FieldNames,
+ * and unknown members are skipped.
+ * A value object without value is an empty string (as an empty Value element), a field without values is null.
+ */
+final class EntityJsonReader {
+
+    static final JsonFactory JSON = new JsonFactory()
+            .disable(JsonParser.Feature.AUTO_CLOSE_SOURCE);
+
+    private final JsonParser parser;
+    private final FieldNames names = new FieldNames();
+
+    private EntityJsonReader(JsonParser parser) {
+        this.parser = parser;
+    }
+
+    /**
+     * @param type Class (an entity or collection class, see EntityTypes)
+     * @param in InputStream
+     * @return T
+     * @throws IOException when reading fails; a JsonProcessingException when the document is not valid
+     */
+    static <T> T read(Class<T> type, InputStream in) throws IOException {
+        try(JsonParser parser = JSON.createParser(in)) {
+            EntityJsonReader entityReader = new EntityJsonReader(parser);
+            entityReader.startObject();
+            if(EntityTypes.isEntity(type)) {
+                return type.cast(entityReader.entity(EntityTypes.entity(type).get()));
+            }
+            QcEntities entities = EntityTypes.newCollection(type);
+            Supplier<? extends QcEntity> entity = EntityTypes.entityOf(type);
+            entityReader.entities(entities, e -> EntityTypes.add(entities, e), entity);
+            return type.cast(entities);
+        }
+    }
+
+    /**
+     * Read the entities of a collection one at a time and hand each to the action.
+     * @param type Class (of one entity, see EntityTypes)
+     * @param in InputStream (a collection)
+     * @param action Consumer
+     * @return int (number of entities read)
+     * @throws IOException when reading fails; a JsonProcessingException when the document is not valid
+     */
+    static <T> int readEach(Class<T> type, InputStream in, Consumer<? super T> action) throws IOException {
+        try(JsonParser parser = JSON.createParser(in)) {
+            EntityJsonReader entityReader = new EntityJsonReader(parser);
+            entityReader.startObject();
+            int[] count = new int[1];
+            entityReader.entities(null, e -> {
+                action.accept(type.cast(e));
+                count[0]++;
+            }, EntityTypes.entity(type));
+            return count[0];
+        }
+    }
+
+    /**
+     * Reads the members of the collection object the parser is in, up to and including its end.
+     * @param entities QcEntities (for the total; null when only the entities are wanted)
+     */
+    private void entities(QcEntities entities, Consumer<QcEntity> action, Supplier<? extends QcEntity> entity) throws IOException {
+        while(parser.nextToken() == JsonToken.FIELD_NAME) {
+            String name = parser.getCurrentName();
+            JsonToken value = parser.nextToken();
+            if("entities".equals(name) && value == JsonToken.START_ARRAY) {
+                while(parser.nextToken() == JsonToken.START_OBJECT) {
+                    action.accept(entity(entity.get()));
+                }
+            } else if("TotalResults".equals(name) && entities != null && value.isNumeric()) {
+                entities.setTotalresults(parser.getIntValue());
+            } else {
+                parser.skipChildren();
+            }
+        }
+    }
+
+    /**
+     * Reads the members of the entity object the parser is in, up to and including its end.
+     */
+    private QcEntity entity(QcEntity entity) throws IOException {
+        while(parser.nextToken() == JsonToken.FIELD_NAME) {
+            String name = parser.getCurrentName();
+            JsonToken value = parser.nextToken();
+            if("Fields".equals(name) && value == JsonToken.START_ARRAY) {
+                Map<String, String> fields = entity.getFields();
+                fields.clear();
+                while(parser.nextToken() == JsonToken.START_OBJECT) {
+                    field(fields);
+                }
+            } else if("Type".equals(name) && value == JsonToken.VALUE_STRING) {
+                entity.setType(names.canonical(parser.getText()));
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return entity;
+    }
+
+    private void field(Map<String, String> fields) throws IOException {
+        String fieldName = null;
+        String fieldValue = null;
+        while(parser.nextToken() == JsonToken.FIELD_NAME) {
+            String name = parser.getCurrentName();
+            JsonToken value = parser.nextToken();
+            if("Name".equals(name) && value == JsonToken.VALUE_STRING) {
+                fieldName = names.canonical(parser.getText());
+            } else if("values".equals(name) && value == JsonToken.START_ARRAY) {
+                while(parser.nextToken() == JsonToken.START_OBJECT) {
+                    fieldValue = value();
+                }
+            } else {
+                parser.skipChildren();
+            }
+        }
+        fields.put(fieldName, fieldValue);
+    }
+
+    private String value() throws IOException {
+        String text = "";
+        while(parser.nextToken() == JsonToken.FIELD_NAME) {
+            String name = parser.getCurrentName();
+            JsonToken value = parser.nextToken();
+            if("value".equals(name) && value.isScalarValue()) {
+                text = value == JsonToken.VALUE_NULL ? null : parser.getText();
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return text;
+    }
+
+    private void startObject() throws IOException {
+        if(parser.nextToken() != JsonToken.START_OBJECT) {
+            throw new JsonParseException("Expected an object", parser.getCurrentLocation());
+        }
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * QC REST API client
+ *
+ * Copyright (C) 2019  matthias.dirickx@outlook.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package be.mdi.testing.qc.client;
+
+import be.mdi.testing.qc.model.entities.QcEntities;
+import be.mdi.testing.qc.model.entities.QcEntity;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Map;
+
+/**
+ * Writes entities in the JSON format of the ALM REST API, the counterpart of the EntityJsonReader.
+ * A collection is written one entity after the other, straight to the OutputStream of a request.
+ */
+final class EntityJsonWriter {
+
+    private final JsonGenerator generator;
+
+    private EntityJsonWriter(JsonGenerator generator) {
+        this.generator = generator;
+    }
+
+    /**
+     * @param entity QcEntity
+     * @param out OutputStream (flushed, not closed)
+     * @throws IOException when writing fails
+     */
+    static void write(QcEntity entity, OutputStream out) throws IOException {
+        try(JsonGenerator generator = createGenerator(out)) {
+            new EntityJsonWriter(generator).entity(entity);
+        }
+    }
+
+    /**
+     * @param entities QcEntities
+     * @param out OutputStream (flushed, not closed)
+     * @throws IOException when writing fails
+     */
+    static void write(QcEntities entities, OutputStream out) throws IOException {
+        try(JsonGenerator generator = createGenerator(out)) {
+            EntityJsonWriter writer = new EntityJsonWriter(generator);
+            generator.writeStartObject();
+            generator.writeArrayFieldStart("entities");
+            for(QcEntity entity : entities.getEntityList()) {
+                writer.entity(entity);
+            }
+            generator.writeEndArray();
+            generator.writeNumberField("TotalResults", entities.getTotalresults());
+            generator.writeEndObject();
+        }
+    }
+
+    private static JsonGenerator createGenerator(OutputStream out) throws IOException {
+        JsonGenerator generator = EntityJsonReader.JSON.createGenerator(out, JsonEncoding.UTF8);
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        return generator;
+    }
+
+    private void entity(QcEntity entity) throws IOException {
+        generator.writeStartObject();
+        Map<String, String> fields = entity.getFields();
+        if(fields != null) {
+            generator.writeArrayFieldStart("Fields");
+            //By name, as the EntityXmlWriter.
+            for(String name : fields.keySet()) {
+                String value = fields.get(name);
+                generator.writeStartObject();
+                generator.writeStringField("Name", name);
+                generator.writeArrayFieldStart("values");
+                if(value != null) {
+                    generator.writeStartObject();
+                    generator.writeStringField("value", value);
+                    generator.writeEndObject();
+                }
+                generator.writeEndArray();
+                generator.writeEndObject();
+            }
+            generator.writeEndArray();
+        }
+        if(entity.getType() != null) {
+            generator.writeStringField("Type", entity.getType());
+        }
+        generator.writeEndObject();
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * QC REST API client
+ *
+ * Copyright (C) 2019  matthias.dirickx@outlook.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package be.mdi.testing.qc.client;
+
+import be.mdi.testing.qc.model.entities.QcAttachment;
+import be.mdi.testing.qc.model.entities.QcAttachments;
+import be.mdi.testing.qc.model.entities.QcDefect;
+import be.mdi.testing.qc.model.entities.QcDefects;
+import be.mdi.testing.qc.model.entities.QcEntities;
+import be.mdi.testing.qc.model.entities.QcEntitiesInterface;
+import be.mdi.testing.qc.model.entities.QcEntity;
+import be.mdi.testing.qc.model.entities.QcRun;
+import be.mdi.testing.qc.model.entities.QcRunStep;
+import be.mdi.testing.qc.model.entities.QcRunSteps;
+import be.mdi.testing.qc.model.entities.QcRuns;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * The entity and collection classes the entity readers create, without reflection.
+ */
+final class EntityTypes {
+
+    private static final Map<Class<?>, Supplier<? extends QcEntity>> ENTITIES = new HashMap<>();
+    private static final Map<Class<?>, Collection> COLLECTIONS = new HashMap<>();
+
+    static {
+        ENTITIES.put(QcAttachment.class, QcAttachment::new);
+        ENTITIES.put(QcDefect.class, QcDefect::new);
+        ENTITIES.put(QcRun.class, QcRun::new);
+        ENTITIES.put(QcRunStep.class, QcRunStep::new);
+        COLLECTIONS.put(QcAttachments.class, new Collection(QcAttachments::new, QcAttachment::new));
+        COLLECTIONS.put(QcDefects.class, new Collection(QcDefects::new, QcDefect::new));
+        COLLECTIONS.put(QcRuns.class, new Collection(QcRuns::new, QcRun::new));
+        COLLECTIONS.put(QcRunSteps.class, new Collection(QcRunSteps::new, QcRunStep::new));
+    }
+
+    private EntityTypes() {}
+
+    /**
+     * @param type Class
+     * @return boolean (true for the entities and collections of the model)
+     */
+    static boolean isKnown(Class<?> type) {
+        return isEntity(type) || COLLECTIONS.containsKey(type);
+    }
+
+    static boolean isEntity(Class<?> type) {
+        return ENTITIES.containsKey(type);
+    }
+
+    /**
+     * @param type Class (an entity class, see isEntity)
+     * @return Supplier (of new, empty entities)
+     */
+    static Supplier<? extends QcEntity> entity(Class<?> type) {
+        return ENTITIES.get(type);
+    }
+
+    /**
+     * @param type Class (a collection class)
+     * @return QcEntities (new and empty)
+     */
+    static QcEntities newCollection(Class<?> type) {
+        return COLLECTIONS.get(type).collection.get();
+    }
+
+    /**
+     * @param type Class (a collection class)
+     * @return Supplier (of new, empty entities of the collection)
+     */
+    static Supplier<? extends QcEntity> entityOf(Class<?> type) {
+        return COLLECTIONS.get(type).entity;
+    }
+
+    /**
+     * @param entities QcEntities
+     * @param entity QcEntity (of the type of the collection)
+     */
+    @SuppressWarnings("unchecked")
+    static void add(QcEntities entities, QcEntity entity) {
+        ((QcEntitiesInterface<QcEntity, ?>) entities).add(entity);
+    }
+
+    private static final class Collection {
+        private final Supplier<? extends QcEntities> collection;
+        private final Supplier<? extends QcEntity> entity;
+
+        Collection(Supplier<? extends QcEntities> collection, Supplier<? extends QcEntity> entity) {
+            this.collection = collection;
+            this.entity = entity;
+        }
+    }
+}
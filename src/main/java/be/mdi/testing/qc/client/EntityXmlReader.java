@@ -0,0 +1,236 @@
+/*
+ * QC REST API client
+ *
+ * Copyright (C) 2019  matthias.dirickx@outlook.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package be.mdi.testing.qc.client;
+
+import be.mdi.testing.qc.model.entities.QcEntities;
+import be.mdi.testing.qc.model.entities.QcEntity;
+
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.InputStream;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Reads entities and collections of entities from XML, the counterpart of the EntityXmlWriter.
+ *
+ * The Field elements go straight into the field map of the entity:
+ * the only objects created are the entities, their field maps and the values themselves.
+ * The field names are the canonical ones of FieldNames, shared by all entities.
+ * JAXB with the MapFieldsAdapter first builds a ValueList, a ValuePair per field and a map of its own.
+ *
+ * The result is the same as what JAXB reads:
+ *     - an empty Value element is an empty string, a Field without Value is a null value,
+ *     - elements other than Fields and Field are skipped.
+ */
+final class EntityXmlReader {
+
+    private final XMLStreamReader reader;
+    private final StringBuilder text = new StringBuilder();
+    private final FieldNames names = new FieldNames();
+
+    private EntityXmlReader(XMLStreamReader reader) {
+        this.reader = reader;
+    }
+
+    /**
+     * @param type Class (an entity or collection class, see EntityTypes)
+     * @param in InputStream
+     * @return T
+     * @throws XMLStreamException when the document is not well formed
+     */
+    static <T> T read(Class<T> type, InputStream in) throws XMLStreamException {
+        XMLStreamReader reader = JaxbContexts.createXmlStreamReader(in);
+        try {
+            EntityXmlReader entityReader = new EntityXmlReader(reader);
+            entityReader.toRootElement();
+            if(EntityTypes.isEntity(type)) {
+                return type.cast(entityReader.entity(EntityTypes.entity(type).get()));
+            }
+            QcEntities entities = EntityTypes.newCollection(type);
+            entityReader.entities(entities, EntityTypes.entityOf(type));
+            return type.cast(entities);
+        } finally {
+            reader.close();
+        }
+    }
+
+    /**
+     * Read the Entity elements of an Entities document one at a time and hand each to the action.
+     * Only the entity being read is held in memory, whatever the size of the document.
+     * @param type Class (of one entity, see EntityTypes)
+     * @param in InputStream (an Entities document)
+     * @param action Consumer
+     * @return int (number of entities read)
+     * @throws XMLStreamException when the document is not well formed
+     */
+    static <T> int readEach(Class<T> type, InputStream in, Consumer<? super T> action) throws XMLStreamException {
+        Supplier<? extends QcEntity> entity = EntityTypes.entity(type);
+        XMLStreamReader reader = JaxbContexts.createXmlStreamReader(in);
+        try {
+            EntityXmlReader entityReader = new EntityXmlReader(reader);
+            entityReader.toRootElement();
+            int count = 0;
+            while(entityReader.nextChild()) {
+                if("Entity".equals(reader.getLocalName())) {
+                    action.accept(type.cast(entityReader.entity(entity.get())));
+                    count++;
+                } else {
+                    entityReader.skipElement();
+                }
+            }
+            return count;
+        } finally {
+            reader.close();
+        }
+    }
+
+    private void entities(QcEntities entities, Supplier<? extends QcEntity> entity) throws XMLStreamException {
+        String totalResults = reader.getAttributeValue(null, "TotalResults");
+        if(totalResults != null) {
+            try {
+                entities.setTotalresults(Integer.parseInt(totalResults.trim()));
+            } catch(NumberFormatException e) {
+                //Left at 0, as JAXB does.
+            }
+        }
+        while(nextChild()) {
+            if("Entity".equals(reader.getLocalName())) {
+                EntityTypes.add(entities, entity(entity.get()));
+            } else {
+                skipElement();
+            }
+        }
+    }
+
+    /**
+     * Reads the entity element the reader is on, up to and including its end.
+     */
+    private QcEntity entity(QcEntity entity) throws XMLStreamException {
+        String type = reader.getAttributeValue(null, "Type");
+        if(type != null) {
+            entity.setType(names.canonical(type));
+        }
+        Map<String, String> fields = entity.getFields();
+        while(nextChild()) {
+            if("Fields".equals(reader.getLocalName())) {
+                //JAXB replaces the whole map, so fields set by the constructor do not survive either.
+                fields.clear();
+                fields(fields);
+            } else {
+                skipElement();
+            }
+        }
+        return entity;
+    }
+
+    private void fields(Map<String, String> fields) throws XMLStreamException {
+        while(nextChild()) {
+            if(!"Field".equals(reader.getLocalName())) {
+                skipElement();
+                continue;
+            }
+            String name = names.canonical(reader.getAttributeValue(null, "Name"));
+            String value = null;
+            while(nextChild()) {
+                if("Value".equals(reader.getLocalName())) {
+                    value = text();
+                } else {
+                    skipElement();
+                }
+            }
+            fields.put(name, value);
+        }
+    }
+
+    private void toRootElement() throws XMLStreamException {
+        while(reader.getEventType() != XMLStreamConstants.START_ELEMENT) {
+            reader.next();
+        }
+    }
+
+    /**
+     * Move to the next child element of the current element.
+     * @return boolean (false when the end of the current element was reached instead)
+     */
+    private boolean nextChild() throws XMLStreamException {
+        while(true) {
+            int event = reader.next();
+            if(event == XMLStreamConstants.START_ELEMENT) {
+                return true;
+            }
+            if(event == XMLStreamConstants.END_ELEMENT) {
+                return false;
+            }
+        }
+    }
+
+    /**
+     * Skip the element the reader is on, up to and including its end.
+     */
+    private void skipElement() throws XMLStreamException {
+        for(int depth = 1; depth > 0; ) {
+            int event = reader.next();
+            if(event == XMLStreamConstants.START_ELEMENT) {
+                depth++;
+            } else if(event == XMLStreamConstants.END_ELEMENT) {
+                depth--;
+            }
+        }
+    }
+
+    /**
+     * The text of the element the reader is on, up to and including its end. Child elements are skipped.
+     * Text in one piece is taken as it is; text in pieces (around escaped characters) is joined in a reused buffer.
+     */
+    private String text() throws XMLStreamException {
+        String first = null;
+        text.setLength(0);
+        while(true) {
+            int event = reader.next();
+            switch(event) {
+                case XMLStreamConstants.CHARACTERS:
+                case XMLStreamConstants.CDATA:
+                case XMLStreamConstants.SPACE:
+                    if(first == null && text.length() == 0) {
+                        first = reader.getText();
+                    } else {
+                        if(first != null) {
+                            text.append(first);
+                            first = null;
+                        }
+                        text.append(reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength());
+                    }
+                    break;
+                case XMLStreamConstants.START_ELEMENT:
+                    skipElement();
+                    break;
+                case XMLStreamConstants.END_ELEMENT:
+                    if(first != null) {
+                        return first;
+                    }
+                    return text.toString();
+                default:
+                    break;
+            }
+        }
+    }
+}
@@ -0,0 +1,579 @@
+/*
+ * QC REST API client
+ *
+ * Copyright (C) 2019  matthias.dirickx@outlook.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package be.mdi.testing.qc.client;
+
+import be.mdi.testing.qc.model.entities.QcEntities;
+import be.mdi.testing.qc.model.entities.QcEntity;
+import be.mdi.testing.qc.model.entities.QcRawFields;
+
+import javax.xml.stream.XMLStreamException;
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.function.Supplier;
+
+/**
+ * Reads entities from an XML response held in memory, without decoding the values of the fields
+ * (qcclient.fields.lazy, see QcClientConfig.setLazyFields).
+ *
+ * The bytes are scanned for the elements the EntityXmlReader reads. Of every Field the name is taken
+ * and the position of its Value in the buffer; the entity gets them as QcRawFields.
+ * A value is only decoded (UTF-8, references, CDATA) when it is first read, so a reader that uses a few fields
+ * of each entity does not pay for the others. The entities keep a reference to the whole buffer.
+ *
+ * The result is the same as what the EntityXmlReader reads. Documents it does not handle
+ * (an encoding other than UTF-8, a DOCTYPE) are read by the EntityXmlReader.
+ * A document that is not well formed may be read anyway, where the EntityXmlReader would fail.
+ */
+final class EntityXmlScanner {
+
+    private final byte[] buffer;
+    private final FieldNames names = new FieldNames();
+    private int pos;
+
+    //The start tag the scanner is on.
+    private int nameStart;
+    private int nameEnd;
+    private int attributesEnd;
+    private boolean emptyElement;
+    //The start of the last end tag, the end of the text of its element.
+    private int endTagStart;
+    private int valueStart;
+    private int valueEnd;
+
+    //The fields of the entity being read: per field its value region, or -1 when it has no Value.
+    private String[] fieldNames = new String[64];
+    private int[] regions = new int[128];
+    private int fieldCount;
+
+    private EntityXmlScanner(byte[] buffer) {
+        this.buffer = buffer;
+    }
+
+    /**
+     * @param type Class (an entity or collection class, see EntityTypes)
+     * @param buffer byte[] (the whole response)
+     * @return T
+     * @throws XMLStreamException when the end of the document is reached too soon
+     */
+    static <T> T read(Class<T> type, byte[] buffer) throws XMLStreamException {
+        EntityXmlScanner scanner = new EntityXmlScanner(buffer);
+        if(!scanner.isUtf8()) {
+            return EntityXmlReader.read(type, new ByteArrayInputStream(buffer));
+        }
+        try {
+            scanner.nextChild();
+            if(EntityTypes.isEntity(type)) {
+                return type.cast(scanner.entity(EntityTypes.entity(type).get()));
+            }
+            QcEntities entities = EntityTypes.newCollection(type);
+            scanner.entities(entities, EntityTypes.entityOf(type));
+            return type.cast(entities);
+        } catch(Unsupported e) {
+            return EntityXmlReader.read(type, new ByteArrayInputStream(buffer));
+        }
+    }
+
+    private void entities(QcEntities entities, Supplier<? extends QcEntity> entity) throws XMLStreamException {
+        if(attribute("TotalResults")) {
+            try {
+                entities.setTotalresults(Integer.parseInt(decode(buffer, valueStart, valueEnd, true).trim()));
+            } catch(NumberFormatException e) {
+                //Left at 0, as JAXB does.
+            }
+        }
+        while(nextChild()) {
+            if(isElement("Entity")) {
+                EntityTypes.add(entities, entity(entity.get()));
+            } else {
+                skipElement();
+            }
+        }
+    }
+
+    /**
+     * Reads the entity element the scanner is on, up to and including its end.
+     */
+    private QcEntity entity(QcEntity entity) throws XMLStreamException {
+        if(attribute("Type")) {
+            entity.setType(name(valueStart, valueEnd));
+        }
+        while(nextChild()) {
+            if(isElement("Fields")) {
+                fieldCount = 0;
+                fields();
+                entity.setRawFields(new RawFields(buffer,
+                        Arrays.copyOf(fieldNames, fieldCount), Arrays.copyOf(regions, fieldCount * 2)));
+            } else {
+                skipElement();
+            }
+        }
+        return entity;
+    }
+
+    private void fields() throws XMLStreamException {
+        while(nextChild()) {
+            if(!isElement("Field")) {
+                skipElement();
+                continue;
+            }
+            String name = attribute("Name") ? name(valueStart, valueEnd) : null;
+            int start = -1;
+            int end = -1;
+            while(nextChild()) {
+                if(!isElement("Value")) {
+                    skipElement();
+                } else if(emptyElement) {
+                    emptyElement = false;
+                    start = pos;
+                    end = pos;
+                } else {
+                    start = pos;
+                    skipElement();
+                    end = endTagStart;
+                }
+            }
+            addField(name, start, end);
+        }
+    }
+
+    private void addField(String name, int start, int end) {
+        if(fieldCount == fieldNames.length) {
+            fieldNames = Arrays.copyOf(fieldNames, fieldCount * 2);
+            regions = Arrays.copyOf(regions, fieldCount * 4);
+        }
+        fieldNames[fieldCount] = name;
+        regions[fieldCount * 2] = start;
+        regions[fieldCount * 2 + 1] = end;
+        fieldCount++;
+    }
+
+    /**
+     * A name from an attribute value: a known name is found without creating a string.
+     */
+    private String name(int start, int end) {
+        for(int i = start; i < end; i++) {
+            byte b = buffer[i];
+            if(b < 0x20 || b == '&') {
+                //Not ASCII (negative), white space to normalize, or a reference.
+                return names.canonical(decode(buffer, start, end, true));
+            }
+        }
+        return names.canonical(buffer, start, end);
+    }
+
+    /**
+     * Only UTF-8 (and ASCII) documents are scanned.
+     */
+    private boolean isUtf8() throws XMLStreamException {
+        if(buffer.length >= 3 && (buffer[0] & 0xff) == 0xef && (buffer[1] & 0xff) == 0xbb && (buffer[2] & 0xff) == 0xbf) {
+            pos = 3;
+        }
+        if(buffer.length > pos && buffer[pos] != '<' && !isWhitespace(buffer[pos])) {
+            //A byte order mark of UTF-16 or UTF-32, or no XML at all.
+            return false;
+        }
+        if(!startsWith(pos, "<?xml")) {
+            return true;
+        }
+        int end = indexOf("?>", pos);
+        if(end < 0) {
+            return false;
+        }
+        String declaration = new String(buffer, pos, end - pos, StandardCharsets.US_ASCII);
+        int encoding = declaration.indexOf("encoding");
+        if(encoding < 0) {
+            return true;
+        }
+        String value = declaration.substring(encoding + "encoding".length()).replaceAll("^\\s*=\\s*[\"']", "");
+        return value.regionMatches(true, 0, "UTF-8", 0, 5)
+                || value.regionMatches(true, 0, "UTF8", 0, 4)
+                || value.regionMatches(true, 0, "US-ASCII", 0, 8);
+    }
+
+    /**
+     * Move to the next child element of the current element.
+     * @return boolean (false when the end of the current element was reached instead)
+     */
+    private boolean nextChild() throws XMLStreamException {
+        if(emptyElement) {
+            emptyElement = false;
+            endTagStart = pos;
+            return false;
+        }
+        while(true) {
+            int lt = indexOf((byte) '<', pos);
+            pos = lt;
+            if(startsWith(lt, "</")) {
+                endTagStart = lt;
+                pos = indexOf((byte) '>', lt) + 1;
+                return false;
+            } else if(startsWith(lt, "<!--")) {
+                pos = indexOf("-->", lt) + 3;
+            } else if(startsWith(lt, "<![CDATA[")) {
+                pos = indexOf("]]>", lt) + 3;
+            } else if(startsWith(lt, "<?")) {
+                pos = indexOf("?>", lt) + 2;
+            } else if(startsWith(lt, "<!")) {
+                throw new Unsupported();
+            } else {
+                startTag(lt);
+                return true;
+            }
+        }
+    }
+
+    private void startTag(int lt) throws XMLStreamException {
+        int i = lt + 1;
+        nameStart = i;
+        while(i < buffer.length && !isWhitespace(buffer[i]) && buffer[i] != '/' && buffer[i] != '>') {
+            i++;
+        }
+        nameEnd = i;
+        while(i < buffer.length && buffer[i] != '>') {
+            if(buffer[i] == '"' || buffer[i] == '\'') {
+                i = indexOf(buffer[i], i + 1);
+            }
+            i++;
+        }
+        if(i >= buffer.length) {
+            throw endOfDocument();
+        }
+        attributesEnd = i;
+        emptyElement = buffer[i - 1] == '/';
+        pos = i + 1;
+    }
+
+    /**
+     * Skip the element the scanner is on, up to and including its end.
+     */
+    private void skipElement() throws XMLStreamException {
+        if(emptyElement) {
+            emptyElement = false;
+            return;
+        }
+        for(int depth = 1; depth > 0; ) {
+            if(!nextChild()) {
+                depth--;
+            } else if(emptyElement) {
+                emptyElement = false;
+            } else {
+                depth++;
+            }
+        }
+    }
+
+    private boolean isElement(String name) {
+        return nameEnd - nameStart == name.length() && startsWith(nameStart, name);
+    }
+
+    /**
+     * Find an attribute of the current start tag.
+     * @return boolean (true when found; its value is then between valueStart and valueEnd)
+     */
+    private boolean attribute(String name) throws XMLStreamException {
+        int i = nameEnd;
+        while(true) {
+            while(i < attributesEnd && isWhitespace(buffer[i])) {
+                i++;
+            }
+            if(i >= attributesEnd || buffer[i] == '/') {
+                return false;
+            }
+            int start = i;
+            while(i < attributesEnd && buffer[i] != '=' && !isWhitespace(buffer[i])) {
+                i++;
+            }
+            boolean found = i - start == name.length() && startsWith(start, name);
+            while(i < attributesEnd && buffer[i] != '"' && buffer[i] != '\'') {
+                i++;
+            }
+            if(i >= attributesEnd) {
+                return false;
+            }
+            valueStart = i + 1;
+            valueEnd = indexOf(buffer[i], valueStart);
+            if(found) {
+                return true;
+            }
+            i = valueEnd + 1;
+        }
+    }
+
+    private boolean startsWith(int at, String prefix) {
+        if(at + prefix.length() > buffer.length) {
+            return false;
+        }
+        for(int i = 0; i < prefix.length(); i++) {
+            if(buffer[at + i] != prefix.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int indexOf(byte b, int from) throws XMLStreamException {
+        for(int i = from; i < buffer.length; i++) {
+            if(buffer[i] == b) {
+                return i;
+            }
+        }
+        throw endOfDocument();
+    }
+
+    private int indexOf(String s, int from) throws XMLStreamException {
+        int i = from;
+        while(true) {
+            i = indexOf((byte) s.charAt(0), i);
+            if(startsWith(i, s)) {
+                return i;
+            }
+            i++;
+        }
+    }
+
+    private static XMLStreamException endOfDocument() {
+        return new XMLStreamException("Unexpected end of the document");
+    }
+
+    private static boolean isWhitespace(byte b) {
+        return b == ' ' || b == '\t' || b == '\n' || b == '\r';
+    }
+
+    /**
+     * The text of a region of the buffer, as a parser reports it: UTF-8 decoded, line ends normalized,
+     * references resolved, CDATA sections taken as they are, comments and child elements left out.
+     * In an attribute, white space characters become spaces.
+     * @param buffer byte[]
+     * @param start int
+     * @param end int
+     * @param attribute boolean
+     * @return String
+     */
+    static String decode(byte[] buffer, int start, int end, boolean attribute) {
+        int plain = start;
+        while(plain < end) {
+            byte b = buffer[plain];
+            if(b == '<' || b == '&' || b == '\r' || (attribute && (b == '\n' || b == '\t'))) {
+                break;
+            }
+            plain++;
+        }
+        if(plain == end) {
+            return new String(buffer, start, end - start, StandardCharsets.UTF_8);
+        }
+        StringBuilder text = new StringBuilder(end - start);
+        int run = start;
+        int i = plain;
+        while(i < end) {
+            byte b = buffer[i];
+            if(b == '&') {
+                append(text, buffer, run, i);
+                i = reference(text, buffer, i, end);
+                run = i;
+            } else if(b == '\r' || (attribute && (b == '\n' || b == '\t'))) {
+                append(text, buffer, run, i);
+                text.append(attribute ? ' ' : '\n');
+                i++;
+                if(b == '\r' && i < end && buffer[i] == '\n') {
+                    i++;
+                }
+                run = i;
+            } else if(b == '<') {
+                append(text, buffer, run, i);
+                i = markup(text, buffer, i, end);
+                run = i;
+            } else {
+                i++;
+            }
+        }
+        append(text, buffer, run, end);
+        return text.toString();
+    }
+
+    private static void append(StringBuilder text, byte[] buffer, int from, int to) {
+        if(to > from) {
+            text.append(new String(buffer, from, to - from, StandardCharsets.UTF_8));
+        }
+    }
+
+    /**
+     * Resolve the reference at i.
+     * @return int (the position after it; a reference that is not understood is kept as it is)
+     */
+    private static int reference(StringBuilder text, byte[] buffer, int i, int end) {
+        int semicolon = i + 1;
+        while(semicolon < end && semicolon - i <= 10 && buffer[semicolon] != ';') {
+            semicolon++;
+        }
+        if(semicolon >= end || buffer[semicolon] != ';') {
+            text.append('&');
+            return i + 1;
+        }
+        String name = new String(buffer, i + 1, semicolon - i - 1, StandardCharsets.US_ASCII);
+        switch(name) {
+            case "amp": text.append('&'); break;
+            case "lt": text.append('<'); break;
+            case "gt": text.append('>'); break;
+            case "quot": text.append('"'); break;
+            case "apos": text.append('\''); break;
+            default:
+                try {
+                    if(name.startsWith("#x")) {
+                        text.appendCodePoint(Integer.parseInt(name.substring(2), 16));
+                    } else if(name.startsWith("#")) {
+                        text.appendCodePoint(Integer.parseInt(name.substring(1)));
+                    } else {
+                        text.append('&');
+                        return i + 1;
+                    }
+                } catch(IllegalArgumentException e) {
+                    text.append('&');
+                    return i + 1;
+                }
+        }
+        return semicolon + 1;
+    }
+
+    /**
+     * Handle the markup at i: the content of a CDATA section is text, comments,
+     * processing instructions and child elements (with their text) are left out.
+     * @return int (the position after it)
+     */
+    private static int markup(StringBuilder text, byte[] buffer, int i, int end) {
+        if(matches(buffer, i, "<![CDATA[")) {
+            int close = find(buffer, i + 9, end, "]]>");
+            String content = new String(buffer, i + 9, close - i - 9, StandardCharsets.UTF_8);
+            text.append(content.indexOf('\r') < 0 ? content : content.replace("\r\n", "\n").replace('\r', '\n'));
+            return close + 3;
+        }
+        if(matches(buffer, i, "<!--")) {
+            return find(buffer, i + 4, end, "-->") + 3;
+        }
+        if(matches(buffer, i, "<?")) {
+            return find(buffer, i + 2, end, "?>") + 2;
+        }
+        //A child element: skip it with everything in it.
+        int depth = 0;
+        while(i < end) {
+            if(matches(buffer, i, "<![CDATA[")) {
+                i = find(buffer, i + 9, end, "]]>") + 3;
+            } else if(matches(buffer, i, "<!--")) {
+                i = find(buffer, i + 4, end, "-->") + 3;
+            } else if(matches(buffer, i, "<?")) {
+                i = find(buffer, i + 2, end, "?>") + 2;
+            } else if(buffer[i] == '<') {
+                boolean endTag = buffer[i + 1] == '/';
+                int gt = i + 1;
+                while(gt < end && buffer[gt] != '>') {
+                    if(buffer[gt] == '"' || buffer[gt] == '\'') {
+                        gt = find(buffer, gt + 1, end, buffer[gt] == '"' ? "\"" : "'");
+                    }
+                    gt++;
+                }
+                if(endTag) {
+                    depth--;
+                } else if(buffer[gt - 1] != '/') {
+                    depth++;
+                }
+                i = gt + 1;
+                if(depth <= 0) {
+                    return i;
+                }
+            } else {
+                i++;
+            }
+        }
+        return end;
+    }
+
+    private static boolean matches(byte[] buffer, int at, String s) {
+        if(at + s.length() > buffer.length) {
+            return false;
+        }
+        for(int i = 0; i < s.length(); i++) {
+            if(buffer[at + i] != s.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return int (position of s in the region, or the end of the region)
+     */
+    private static int find(byte[] buffer, int from, int end, String s) {
+        for(int i = from; i < end; i++) {
+            if(matches(buffer, i, s)) {
+                return i;
+            }
+        }
+        return end;
+    }
+
+    /**
+     * Markup the scanner leaves to the EntityXmlReader.
+     */
+    private static final class Unsupported extends RuntimeException {
+        Unsupported() {
+            super(null, null, false, false);
+        }
+    }
+
+    /**
+     * The fields of one entity: names, and value regions in the shared buffer, decoded on first use.
+     */
+    static final class RawFields implements QcRawFields {
+        private final byte[] buffer;
+        private final String[] names;
+        private final int[] regions;
+        private String[] values;
+
+        RawFields(byte[] buffer, String[] names, int[] regions) {
+            this.buffer = buffer;
+            this.names = names;
+            this.regions = regions;
+        }
+
+        @Override
+        public int size() {
+            return names.length;
+        }
+
+        @Override
+        public String getName(int index) {
+            return names[index];
+        }
+
+        @Override
+        public synchronized String getValue(int index) {
+            int start = regions[index * 2];
+            if(start < 0) {
+                return null;
+            }
+            if(values == null) {
+                values = new String[names.length];
+            }
+            if(values[index] == null) {
+                values[index] = decode(buffer, start, regions[index * 2 + 1], false);
+            }
+            return values[index];
+        }
+    }
+}
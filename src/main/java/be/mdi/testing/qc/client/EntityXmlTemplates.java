@@ -0,0 +1,303 @@
+/*
+ * QC REST API client
+ *
+ * Copyright (C) 2019  matthias.dirickx@outlook.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package be.mdi.testing.qc.client;
+
+import be.mdi.testing.qc.model.entities.QcEntities;
+import be.mdi.testing.qc.model.entities.QcEntity;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Writes entities as XML from pre-compiled templates (qcclient.write.templates, see QcClientConfig.setWriteTemplates).
+ *
+ * Entities of one type with the same field names in the same order (the run steps of a test, for example)
+ * have the same XML apart from the values. The first time such a shape is written, the markup around the values is
+ * encoded to UTF-8 once and kept. After that, writing an entity copies those bytes and escapes the values only.
+ * The XML is the same as what the EntityXmlWriter writes.
+ *
+ * One instance per RestCallHandler. It may be used by many threads: the templates are immutable and
+ * the list of templates is replaced, not changed.
+ */
+final class EntityXmlTemplates {
+
+    /**
+     * Shapes kept. Entities of other shapes are written from a template that is not kept.
+     */
+    static final int MAX_TEMPLATES = 64;
+
+    private static final byte[] DECLARATION =
+            ascii("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>");
+    private static final byte[] ENTITIES_START = ascii("<Entities TotalResults=\"");
+    private static final byte[] ENTITIES_EMPTY = ascii("\"/>");
+    private static final byte[] ENTITIES_OPEN = ascii("\">");
+    private static final byte[] ENTITIES_END = ascii("</Entities>");
+    private static final byte[] VALUE_END = ascii("</Value></Field>");
+    private static final byte[] ENTITY_END = ascii("</Fields></Entity>");
+
+    private volatile Template[] templates = new Template[0];
+
+    /**
+     * @param entity QcEntity
+     * @param out OutputStream (flushed, not closed)
+     * @throws IOException when writing fails
+     */
+    void write(QcEntity entity, OutputStream out) throws IOException {
+        Output output = new Output(out);
+        output.write(DECLARATION);
+        entity(entity, null, output);
+        output.flush();
+    }
+
+    /**
+     * @param entities QcEntities
+     * @param out OutputStream (flushed, not closed)
+     * @throws IOException when writing fails
+     */
+    void write(QcEntities entities, OutputStream out) throws IOException {
+        Output output = new Output(out);
+        output.write(DECLARATION);
+        output.write(ENTITIES_START);
+        output.write(ascii(Integer.toString(entities.getTotalresults())));
+        List<? extends QcEntity> list = entities.getEntityList();
+        if(list.isEmpty()) {
+            output.write(ENTITIES_EMPTY);
+        } else {
+            output.write(ENTITIES_OPEN);
+            Template last = null;
+            for(QcEntity entity : list) {
+                last = entity(entity, last, output);
+            }
+            output.write(ENTITIES_END);
+        }
+        output.flush();
+    }
+
+    /**
+     * @return int (number of templates kept)
+     */
+    int size() { return templates.length; }
+
+    /**
+     * Write one entity, trying the template of the entity before it first.
+     * @return Template (used for the entity; null when it has no fields)
+     */
+    private Template entity(QcEntity entity, Template last, Output output) throws IOException {
+        Map<String, String> fields = entity.getFields();
+        if(fields == null || fields.isEmpty()) {
+            output.write(head(entity.getType(), fields == null ? "/>" : "><Fields/></Entity>"));
+            return null;
+        }
+        Template template = last != null && last.matches(entity.getType(), fields) ? last : template(entity.getType(), fields);
+        output.write(template.head);
+        //By name, as the EntityXmlWriter: the field maps of the entities walk their names without creating an entry per field.
+        int i = 0;
+        for(String name : fields.keySet()) {
+            String value = fields.get(name);
+            if(value == null) {
+                output.write(template.empty[i++]);
+                continue;
+            }
+            output.write(template.open[i++]);
+            output.escape(value);
+            output.write(VALUE_END);
+        }
+        output.write(ENTITY_END);
+        return template;
+    }
+
+    private Template template(String type, Map<String, String> fields) {
+        Template[] current = templates;
+        for(Template template : current) {
+            if(template.matches(type, fields)) {
+                return template;
+            }
+        }
+        Template template = new Template(type, fields.keySet().toArray(new String[0]));
+        synchronized(this) {
+            current = templates;
+            for(Template kept : current) {
+                if(kept.matches(type, fields)) {
+                    return kept;
+                }
+            }
+            if(current.length < MAX_TEMPLATES) {
+                Template[] grown = new Template[current.length + 1];
+                System.arraycopy(current, 0, grown, 0, current.length);
+                grown[current.length] = template;
+                templates = grown;
+            }
+        }
+        return template;
+    }
+
+    private static byte[] head(String type, String end) {
+        StringBuilder xml = new StringBuilder("<Entity");
+        if(type != null) {
+            xml.append(" Type=\"").append(escape(type, true)).append('"');
+        }
+        return xml.append(end).toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Escapes as the EntityXmlWriter: the markup characters, and the quote in attribute values.
+     */
+    private static String escape(String value, boolean inAttribute) {
+        StringBuilder escaped = new StringBuilder(value.length());
+        for(int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch(c) {
+                case '&': escaped.append("&amp;"); break;
+                case '<': escaped.append("&lt;"); break;
+                case '>': escaped.append("&gt;"); break;
+                case '"': escaped.append(inAttribute ? "&quot;" : "\""); break;
+                default: escaped.append(c);
+            }
+        }
+        return escaped.toString();
+    }
+
+    private static byte[] ascii(String value) {
+        return value.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * The markup of one shape: the entity start and, per field, the bytes before the value and the bytes of an empty field.
+     */
+    private static final class Template {
+        private final String type;
+        private final String[] names;
+        private final byte[] head;
+        private final byte[][] open;
+        private final byte[][] empty;
+
+        Template(String type, String[] names) {
+            this.type = type;
+            this.names = names;
+            this.head = head(type, "><Fields>");
+            this.open = new byte[names.length][];
+            this.empty = new byte[names.length][];
+            for(int i = 0; i < names.length; i++) {
+                String field = names[i] == null ? "<Field" : "<Field Name=\"" + escape(names[i], true) + '"';
+                open[i] = (field + "><Value>").getBytes(StandardCharsets.UTF_8);
+                empty[i] = (field + "/>").getBytes(StandardCharsets.UTF_8);
+            }
+        }
+
+        boolean matches(String type, Map<String, String> fields) {
+            if(!Objects.equals(this.type, type) || fields.size() != names.length) {
+                return false;
+            }
+            Iterator<String> it = fields.keySet().iterator();
+            for(String name : names) {
+                String other = it.next();
+                //The names of decoded and enum fields are shared instances, so mostly the same reference.
+                if(name != other && (name == null || !name.equals(other))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * A buffer in front of the OutputStream that encodes the values to UTF-8 itself, without a Writer.
+     */
+    private static final class Output {
+        private final OutputStream out;
+        private final byte[] buffer = new byte[8192];
+        private int position;
+
+        Output(OutputStream out) {
+            this.out = out;
+        }
+
+        void write(byte[] bytes) throws IOException {
+            if(bytes.length > buffer.length - position) {
+                flushBuffer();
+                if(bytes.length > buffer.length) {
+                    out.write(bytes);
+                    return;
+                }
+            }
+            System.arraycopy(bytes, 0, buffer, position, bytes.length);
+            position += bytes.length;
+        }
+
+        /**
+         * Escape a value to UTF-8 as the OutputStreamWriter of the EntityXmlWriter encodes it:
+         * a surrogate that is not part of a pair becomes '?'.
+         */
+        void escape(String value) throws IOException {
+            for(int i = 0; i < value.length(); i++) {
+                //Room for the longest escape (&amp;) or character (4 bytes).
+                if(buffer.length - position < 5) {
+                    flushBuffer();
+                }
+                char c = value.charAt(i);
+                if(c < 0x80) {
+                    switch(c) {
+                        case '&': escaped("&amp;"); break;
+                        case '<': escaped("&lt;"); break;
+                        case '>': escaped("&gt;"); break;
+                        default: buffer[position++] = (byte) c;
+                    }
+                } else if(c < 0x800) {
+                    buffer[position++] = (byte) (0xc0 | c >> 6);
+                    buffer[position++] = (byte) (0x80 | c & 0x3f);
+                } else if(Character.isHighSurrogate(c) && i + 1 < value.length() && Character.isLowSurrogate(value.charAt(i + 1))) {
+                    int cp = Character.toCodePoint(c, value.charAt(++i));
+                    buffer[position++] = (byte) (0xf0 | cp >> 18);
+                    buffer[position++] = (byte) (0x80 | cp >> 12 & 0x3f);
+                    buffer[position++] = (byte) (0x80 | cp >> 6 & 0x3f);
+                    buffer[position++] = (byte) (0x80 | cp & 0x3f);
+                } else if(Character.isSurrogate(c)) {
+                    buffer[position++] = '?';
+                } else {
+                    buffer[position++] = (byte) (0xe0 | c >> 12);
+                    buffer[position++] = (byte) (0x80 | c >> 6 & 0x3f);
+                    buffer[position++] = (byte) (0x80 | c & 0x3f);
+                }
+            }
+        }
+
+        private void escaped(String escaped) {
+            for(int i = 0; i < escaped.length(); i++) {
+                buffer[position++] = (byte) escaped.charAt(i);
+            }
+        }
+
+        void flush() throws IOException {
+            flushBuffer();
+            out.flush();
+        }
+
+        private void flushBuffer() throws IOException {
+            if(position > 0) {
+                out.write(buffer, 0, position);
+                position = 0;
+            }
+        }
+    }
+}
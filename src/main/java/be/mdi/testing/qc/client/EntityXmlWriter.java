@@ -0,0 +1,151 @@
+/*
+ * QC REST API client
+ *
+ * Copyright (C) 2019  matthias.dirickx@outlook.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package be.mdi.testing.qc.client;
+
+import be.mdi.testing.qc.model.entities.QcEntities;
+import be.mdi.testing.qc.model.entities.QcEntity;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes entities as XML. A collection is written one entity after the other, straight to the OutputStream of a request.
+ *
+ * The XML is the same as what JAXB writes, but the field maps are read as they are:
+ * there is no object graph of the whole collection and no adapter copy of the fields.
+ * So the memory needed does not grow with the number of entities.
+ */
+final class EntityXmlWriter {
+
+    private static final String DECLARATION = "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>";
+
+    private final Writer out;
+
+    private EntityXmlWriter(OutputStream out) {
+        this.out = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @param entities QcEntities
+     * @param out OutputStream (flushed, not closed)
+     * @throws IOException when writing fails
+     */
+    static void write(QcEntities entities, OutputStream out) throws IOException {
+        EntityXmlWriter writer = new EntityXmlWriter(out);
+        writer.entities(entities);
+        writer.out.flush();
+    }
+
+    /**
+     * @param entity QcEntity
+     * @param out OutputStream (flushed, not closed)
+     * @throws IOException when writing fails
+     */
+    static void write(QcEntity entity, OutputStream out) throws IOException {
+        EntityXmlWriter writer = new EntityXmlWriter(out);
+        writer.out.write(DECLARATION);
+        writer.entity(entity);
+        writer.out.flush();
+    }
+
+    private void entities(QcEntities entities) throws IOException {
+        out.write(DECLARATION);
+        out.write("<Entities TotalResults=\"");
+        out.write(Integer.toString(entities.getTotalresults()));
+        List<? extends QcEntity> list = entities.getEntityList();
+        if(list.isEmpty()) {
+            out.write("\"/>");
+            return;
+        }
+        out.write("\">");
+        for(QcEntity entity : list) {
+            entity(entity);
+        }
+        out.write("</Entities>");
+    }
+
+    private void entity(QcEntity entity) throws IOException {
+        out.write("<Entity");
+        attribute("Type", entity.getType());
+        Map<String, String> fields = entity.getFields();
+        if(fields == null) {
+            out.write("/>");
+            return;
+        }
+        if(fields.isEmpty()) {
+            out.write("><Fields/></Entity>");
+            return;
+        }
+        out.write("><Fields>");
+        //By name: the field maps of the entities walk their names without creating an entry per field.
+        for(String name : fields.keySet()) {
+            String value = fields.get(name);
+            out.write("<Field");
+            attribute("Name", name);
+            if(value == null) {
+                out.write("/>");
+                continue;
+            }
+            out.write("><Value>");
+            escape(value, false);
+            out.write("</Value></Field>");
+        }
+        out.write("</Fields></Entity>");
+    }
+
+    private void attribute(String name, String value) throws IOException {
+        if(value == null) {
+            return;
+        }
+        out.write(' ');
+        out.write(name);
+        out.write("=\"");
+        escape(value, true);
+        out.write('"');
+    }
+
+    /**
+     * Escapes as JAXB does: the markup characters, and the quote in attribute values.
+     */
+    private void escape(String value, boolean inAttribute) throws IOException {
+        int start = 0;
+        for(int i = 0; i < value.length(); i++) {
+            String escaped;
+            switch(value.charAt(i)) {
+                case '&': escaped = "&amp;"; break;
+                case '<': escaped = "&lt;"; break;
+                case '>': escaped = "&gt;"; break;
+                case '"': escaped = inAttribute ? "&quot;" : null; break;
+                default: escaped = null;
+            }
+            if(escaped != null) {
+                out.write(value, start, i - start);
+                out.write(escaped);
+                start = i + 1;
+            }
+        }
+        out.write(value, start, value.length() - start);
+    }
+}
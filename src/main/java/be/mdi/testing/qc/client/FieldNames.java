@@ -0,0 +1,139 @@
+/*
+ * QC REST API client
+ *
+ * Copyright (C) 2019  matthias.dirickx@outlook.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package be.mdi.testing.qc.client;
+
+import be.mdi.testing.qc.model.QcType;
+import be.mdi.testing.qc.model.fields.QcAttachmentField;
+import be.mdi.testing.qc.model.fields.QcDefectField;
+import be.mdi.testing.qc.model.fields.QcRunField;
+import be.mdi.testing.qc.model.fields.QcRunStepField;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Canonical field names for the entity readers.
+ *
+ * A parser creates a new string for every field name it reads, so 100k defects would hold millions of copies
+ * of "id", "status" or "detected-by". The readers put the names of the field enums (and of the entity types)
+ * in the field maps instead: one string per name for the whole JVM.
+ * Names that are not in the enums (user fields of a project) are shared within one document.
+ */
+final class FieldNames {
+
+    /**
+     * Unknown names kept per document, so a document full of distinct names does not grow the table without end.
+     */
+    private static final int MAX_SEEN = 1024;
+
+    private static final Map<String, String> KNOWN = new HashMap<>();
+
+    /**
+     * The known names in an open addressing table, to look a name up by its bytes without creating a string first.
+     */
+    private static final String[] TABLE;
+
+    static {
+        for(QcDefectField field : QcDefectField.values()) {
+            known(field.getName());
+        }
+        for(QcRunField field : QcRunField.values()) {
+            known(field.getName());
+        }
+        for(QcRunStepField field : QcRunStepField.values()) {
+            known(field.getName());
+        }
+        for(QcAttachmentField field : QcAttachmentField.values()) {
+            known(field.getName());
+        }
+        for(QcType type : QcType.values()) {
+            known(type.getSmallCapType());
+        }
+        TABLE = new String[Integer.highestOneBit(KNOWN.size()) * 4];
+        for(String name : KNOWN.keySet()) {
+            int slot = name.hashCode() & (TABLE.length - 1);
+            while(TABLE[slot] != null) {
+                slot = (slot + 1) & (TABLE.length - 1);
+            }
+            TABLE[slot] = name;
+        }
+    }
+
+    private final Map<String, String> seen = new HashMap<>();
+
+    private static void known(String name) {
+        KNOWN.putIfAbsent(name, name);
+    }
+
+    /**
+     * @param name String (as read, may be null)
+     * @return String (equal to the name; the same instance for every occurrence)
+     */
+    String canonical(String name) {
+        if(name == null) {
+            return null;
+        }
+        String canonical = KNOWN.get(name);
+        if(canonical != null) {
+            return canonical;
+        }
+        canonical = seen.get(name);
+        if(canonical != null) {
+            return canonical;
+        }
+        if(seen.size() < MAX_SEEN) {
+            seen.put(name, name);
+        }
+        return name;
+    }
+
+    /**
+     * The name in the bytes, without creating a string when it is a known name.
+     * @param buffer byte[]
+     * @param from int
+     * @param to int
+     * @return String (the name of the bytes; they must be ASCII without references)
+     */
+    String canonical(byte[] buffer, int from, int to) {
+        int hash = 0;
+        for(int i = from; i < to; i++) {
+            hash = 31 * hash + buffer[i];
+        }
+        for(int slot = hash & (TABLE.length - 1); TABLE[slot] != null; slot = (slot + 1) & (TABLE.length - 1)) {
+            String name = TABLE[slot];
+            if(name.hashCode() == hash && is(name, buffer, from, to)) {
+                return name;
+            }
+        }
+        return canonical(new String(buffer, from, to - from, StandardCharsets.US_ASCII));
+    }
+
+    private static boolean is(String name, byte[] buffer, int from, int to) {
+        if(name.length() != to - from) {
+            return false;
+        }
+        for(int i = 0; i < name.length(); i++) {
+            if(name.charAt(i) != buffer[from + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,258 @@
+/*
+ * QC REST API client
+ *
+ * Copyright (C) 2019  matthias.dirickx@outlook.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package be.mdi.testing.qc.client;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Opt-in gzip support, applied by the RestCallHandler around every QcTransport when enabled in the QcClientConfig.
+ *
+ *     - Responses: asks for gzip (Accept-Encoding) and decodes gzip encoded responses.
+ *     - Requests: XML and JSON bodies of at least the threshold size are sent gzip encoded.
+ *       Smaller bodies and binary attachments are sent as they are.
+ *       Content that is written while it is sent is compressed while it is written.
+ *
+ * The sizes before and after compression are added to the QcClientMetrics.
+ */
+class GzipCodec {
+
+    private static final String GZIP = "gzip";
+
+    private final QcClientConfig config;
+    private final QcClientMetrics metrics;
+
+    GzipCodec(QcClientConfig config, QcClientMetrics metrics) {
+        this.config = config;
+        this.metrics = metrics;
+    }
+
+    /**
+     * Ask for a gzip encoded response when enabled.
+     * @param headers Map (of the request)
+     */
+    void acceptGzip(Map<String, String> headers) {
+        if(config.isGzipResponses()) {
+            headers.put("Accept-Encoding", GZIP);
+        }
+    }
+
+    /**
+     * The body to send: compressed when enabled and large enough, else the body itself.
+     * @param body QcTransportBody (XML or JSON bytes or content; other bodies are returned as they are)
+     * @param headers Map (of the request; Content-Encoding is added when compressed)
+     * @return QcTransportBody
+     */
+    QcTransportBody encode(QcTransportBody body, Map<String, String> headers) {
+        if(!body.isRepeatable() || !isText(body.getContentType())) {
+            return body;
+        }
+        if(body.getContent() != null) {
+            return encodeContent(body, headers);
+        }
+        boolean compress = config.isGzipRequests() && body.getLength() >= config.getGzipThreshold();
+        if(!compress) {
+            metrics.addRequest(body.getLength(), body.getLength(), false);
+            return body;
+        }
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(body.getLength() / 4 + 64);
+        try(GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+            gzip.write(body.getBytes(), 0, body.getLength());
+        } catch(IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        headers.put("Content-Encoding", GZIP);
+        metrics.addRequest(body.getLength(), compressed.size(), true);
+        return QcTransportBody.ofBytes(body.getContentType(), compressed.toByteArray(), compressed.size());
+    }
+
+    /**
+     * The size of content is not known up front. Up to the threshold is written first:
+     * content that ends before it is sent as bytes, larger content is compressed while it is sent.
+     */
+    private QcTransportBody encodeContent(QcTransportBody body, Map<String, String> headers) {
+        if(!config.isGzipRequests()) {
+            return QcTransportBody.ofContent(body.getContentType(), out -> {
+                CountingOutputStream counted = new CountingOutputStream(out);
+                body.writeTo(counted);
+                metrics.addRequest(counted.count, counted.count, false);
+            });
+        }
+        byte[] head = head(body, config.getGzipThreshold());
+        if(head != null) {
+            return encode(QcTransportBody.ofBytes(body.getContentType(), head, head.length), headers);
+        }
+        headers.put("Content-Encoding", GZIP);
+        return QcTransportBody.ofContent(body.getContentType(), out -> {
+            CountingOutputStream onWire = new CountingOutputStream(out);
+            CountingOutputStream plain;
+            try(GZIPOutputStream gzip = new GZIPOutputStream(onWire, 8192)) {
+                plain = new CountingOutputStream(gzip);
+                body.writeTo(plain);
+            }
+            metrics.addRequest(plain.count, onWire.count, true);
+        });
+    }
+
+    /**
+     * @return byte[] (the whole body when it is smaller than the limit, else null)
+     */
+    private static byte[] head(QcTransportBody body, int limit) {
+        LimitedOutputStream head = new LimitedOutputStream(limit);
+        try {
+            body.writeTo(head);
+        } catch(LimitReached e) {
+            return null;
+        } catch(IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return head.toByteArray();
+    }
+
+    /**
+     * The body of a response, decoded when it is gzip encoded.
+     * @param response QcTransportResponse
+     * @return InputStream
+     * @throws IOException when the gzip header cannot be read
+     */
+    InputStream decode(QcTransportResponse response) throws IOException {
+        String encoding = response.getHeader("Content-Encoding");
+        if(encoding == null || !GZIP.equalsIgnoreCase(encoding.trim())) {
+            return response.getBody();
+        }
+        metrics.addCompressedResponse();
+        CountingInputStream onWire = new CountingInputStream(response.getBody(), false);
+        return new CountingInputStream(new GZIPInputStream(onWire), true);
+    }
+
+    private static boolean isText(String contentType) {
+        return contentType != null && (contentType.endsWith("xml") || contentType.endsWith("json"));
+    }
+
+    /**
+     * Adds the bytes read to the metrics, either as decoded or as on-the-wire size.
+     */
+    private class CountingInputStream extends FilterInputStream {
+
+        private final boolean decoded;
+
+        CountingInputStream(InputStream in, boolean decoded) {
+            super(in);
+            this.decoded = decoded;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if(b >= 0) {
+                count(1);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if(n > 0) {
+                count(n);
+            }
+            return n;
+        }
+
+        private void count(long n) {
+            if(decoded) {
+                metrics.addResponseBytes(n, 0);
+            } else {
+                metrics.addResponseBytes(0, n);
+            }
+        }
+    }
+
+    /**
+     * Counts the bytes written. Close only flushes: the stream underneath belongs to the transport.
+     */
+    private static class CountingOutputStream extends FilterOutputStream {
+
+        private long count;
+
+        CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+
+        @Override
+        public void close() throws IOException {
+            flush();
+        }
+    }
+
+    private static class LimitedOutputStream extends ByteArrayOutputStream {
+
+        private final int limit;
+
+        LimitedOutputStream(int limit) {
+            super(Math.min(limit, 8192));
+            this.limit = limit;
+        }
+
+        @Override
+        public synchronized void write(int b) {
+            if(count + 1 >= limit) {
+                throw new LimitReached();
+            }
+            super.write(b);
+        }
+
+        @Override
+        public synchronized void write(byte[] b, int off, int len) {
+            if(count + len >= limit) {
+                throw new LimitReached();
+            }
+            super.write(b, off, len);
+        }
+    }
+
+    /**
+     * Stops writing the head of a body once it reaches the limit.
+     */
+    private static class LimitReached extends RuntimeException {
+        LimitReached() {
+            super(null, null, false, false);
+        }
+    }
+}
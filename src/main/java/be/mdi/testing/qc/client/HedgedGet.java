@@ -0,0 +1,163 @@
+/*
+ * QC REST API client
+ *
+ * Copyright (C) 2019  matthias.dirickx@outlook.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package be.mdi.testing.qc.client;
+
+import be.mdi.testing.qc.exception.QcClientException;
+import be.mdi.testing.qc.exception.QcDeadlineExceededException;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Hedging of GET calls, to cut the latency tail.
+ *
+ * The call is sent; when it has not answered within the hedge delay, the same call is sent a second time.
+ * The first answer wins. The other attempt is cancelled: its thread is interrupted
+ * and when its response still arrives, it is closed without being read.
+ * An attempt that fails does not fail the call while the other one may still succeed.
+ *
+ * The hedge delay is the configured percentile of recent GET latencies, but not less than the minimum delay.
+ * Only use this for idempotent calls: the server may see the call twice.
+ *
+ * The threads of the attempts are created on the first call and stopped on close; a later call starts them again.
+ */
+class HedgedGet {
+
+    private final QcClientConfig config;
+    private final QcClientMetrics metrics;
+    private ExecutorService executor;
+    private final LatencyTracker latencies;
+    private final long minDelayNanos;
+
+    HedgedGet(QcClientConfig config, QcClientMetrics metrics) {
+        this.config = config;
+        this.metrics = metrics;
+        this.latencies = new LatencyTracker(config.getHedgePercentile());
+        this.minDelayNanos = TimeUnit.MILLISECONDS.toNanos(config.getHedgeMinDelay());
+    }
+
+    /**
+     * @param attempt Attempt (one execution of the call)
+     * @param <T> result type
+     * @return T (the result of the attempt that answered first)
+     */
+    <T> T execute(Attempt<T> attempt) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        AtomicBoolean decided = new AtomicBoolean();
+        AtomicInteger running = new AtomicInteger(1);
+        QcDeadline deadline = QcDeadline.current();
+        long hedgeDelay = Math.max(minDelayNanos, latencies.getPercentile());
+        ExecutorService executor = getExecutor();
+        Future<?> primary = executor.submit(() -> run(attempt, deadline, result, decided, running, false));
+        Future<?> hedge = null;
+        try {
+            try {
+                return result.get(hedgeDelay, TimeUnit.NANOSECONDS);
+            } catch(TimeoutException slow) {
+                if(deadline != null && deadline.remainingNanos() <= 0) {
+                    throw slow;
+                }
+                running.incrementAndGet();
+                metrics.addHedgeFired();
+                hedge = executor.submit(() -> run(attempt, deadline, result, decided, running, true));
+                return deadline == null || !deadline.isLimited()
+                        ? result.get()
+                        : result.get(Math.max(0, deadline.remainingNanos()), TimeUnit.NANOSECONDS);
+            }
+        } catch(TimeoutException e) {
+            throw new QcDeadlineExceededException("Deadline exceeded while waiting for a GET.", e);
+        } catch(ExecutionException e) {
+            throw rethrow(e.getCause());
+        } catch(InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new QcClientException("Interrupted while waiting for a GET.", e);
+        } finally {
+            primary.cancel(true);
+            if(hedge != null) {
+                hedge.cancel(true);
+            }
+        }
+    }
+
+    /**
+     * Stop the threads of the attempts. Attempts that are running finish.
+     */
+    synchronized void close() {
+        if(executor != null) {
+            executor.shutdown();
+            executor = null;
+        }
+    }
+
+    private synchronized ExecutorService getExecutor() {
+        if(executor == null) {
+            executor = QcThreads.newCachedExecutor(config, "qcclient-hedge");
+        }
+        return executor;
+    }
+
+    private <T> void run(Attempt<T> attempt, QcDeadline deadline, CompletableFuture<T> result, AtomicBoolean decided,
+                         AtomicInteger running, boolean isHedge) {
+        long start = System.nanoTime();
+        try {
+            //The attempts run on other threads, with the deadline of the caller.
+            T value = QcDeadline.callWithin(deadline, () -> attempt.execute(decided::get));
+            //When the other attempt won, this value is dropped.
+            //The win is claimed and counted before the caller is released by complete().
+            if(decided.compareAndSet(false, true)) {
+                latencies.record(System.nanoTime() - start);
+                if(isHedge) {
+                    metrics.addHedgeWon();
+                }
+                result.complete(value);
+            }
+        } catch(RuntimeException | Error e) {
+            //The call only fails when every attempt failed.
+            if(running.decrementAndGet() == 0 && decided.compareAndSet(false, true)) {
+                result.completeExceptionally(e);
+            }
+        }
+    }
+
+    private static RuntimeException rethrow(Throwable cause) {
+        if(cause instanceof Error) {
+            throw (Error) cause;
+        }
+        return (RuntimeException) cause;
+    }
+
+    /**
+     * One execution of the hedged call.
+     * @param <T> result type
+     */
+    interface Attempt<T> {
+        /**
+         * @param cancelled BooleanSupplier (true once another attempt won; the attempt may then stop and return null)
+         * @return T
+         */
+        T execute(BooleanSupplier cancelled);
+    }
+}
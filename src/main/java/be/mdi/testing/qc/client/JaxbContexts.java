@@ -0,0 +1,186 @@
+/*
+ * QC REST API client
+ *
+ * Copyright (C) 2019  matthias.dirickx@outlook.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package be.mdi.testing.qc.client;
+
+import be.mdi.testing.qc.model.AuthenticationInfo;
+import be.mdi.testing.qc.model.Domains;
+import be.mdi.testing.qc.model.Projects;
+
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.JAXBException;
+import javax.xml.bind.Unmarshaller;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Reads the XML bodies of the domains, projects and authentication info, with one JAXBContext per class.
+ * The entities and their collections are not read with JAXB but with the EntityXmlReader, and written
+ * with the EntityXmlWriter.
+ *
+ * A JAXBContext is thread safe and costly to create, so it is created once per class
+ * and shared by all clients of the JVM. The warm-up creates the contexts of the known classes up front.
+ *
+ * Unmarshallers are not thread safe but can be reused, so each class keeps a pool of idle ones.
+ * A call borrows one and gives it back when done. The pools are shared by all threads rather than per thread,
+ * so they also reuse instances when every call runs on a new (virtual) thread.
+ *
+ * Responses are read with a StAX reader that does not resolve DTDs or external entities.
+ */
+final class JaxbContexts {
+
+    //Idle unmarshallers kept per class; more are created when needed but not kept.
+    private static final int MAX_IDLE = 32;
+
+    private static final ConcurrentMap<Class<?>, Mapping> MAPPINGS = new ConcurrentHashMap<>();
+    private static final XMLInputFactory XML_INPUT = newXmlInputFactory();
+    private static final String EMPTY_DOCUMENT = "<e/>";
+
+    private JaxbContexts() {}
+
+    /**
+     * Create the context of a class and put an unmarshaller in its pool.
+     * @param type Class (annotated with XmlRootElement)
+     * @throws JAXBException when the class cannot be mapped
+     */
+    static void prepare(Class<?> type) throws JAXBException {
+        Mapping mapping = mappingOf(type);
+        mapping.unmarshallers.giveBack(mapping.unmarshallers.isEmpty() ? mapping.context.createUnmarshaller() : null);
+    }
+
+    static <T> T unmarshal(Class<T> type, InputStream in) throws JAXBException, XMLStreamException {
+        Mapping mapping = mappingOf(type);
+        Unmarshaller unmarshaller = mapping.unmarshallers.borrow();
+        if(unmarshaller == null) {
+            unmarshaller = mapping.context.createUnmarshaller();
+        }
+        XMLStreamReader reader = XML_INPUT.createXMLStreamReader(in);
+        try {
+            T value = unmarshaller.unmarshal(reader, type).getValue();
+            giveBack(mapping, unmarshaller);
+            return value;
+        } finally {
+            reader.close();
+        }
+    }
+
+    /**
+     * A StAX reader that does not resolve DTDs or external entities.
+     * @param in InputStream
+     * @return XMLStreamReader
+     * @throws XMLStreamException when the start of the document cannot be read
+     */
+    static XMLStreamReader createXmlStreamReader(InputStream in) throws XMLStreamException {
+        return XML_INPUT.createXMLStreamReader(in);
+    }
+
+    /**
+     * An unmarshaller keeps a reference to the last object it read until it reads the next one.
+     * Reading a tiny document first lets an idle unmarshaller hold on to nothing but that.
+     */
+    private static void giveBack(Mapping mapping, Unmarshaller unmarshaller) {
+        try {
+            XMLStreamReader reader = XML_INPUT.createXMLStreamReader(new StringReader(EMPTY_DOCUMENT));
+            try {
+                unmarshaller.unmarshal(reader, String.class);
+            } finally {
+                reader.close();
+            }
+        } catch(JAXBException | XMLStreamException e) {
+            return;
+        }
+        mapping.unmarshallers.giveBack(unmarshaller);
+    }
+
+    private static Mapping mappingOf(Class<?> type) throws JAXBException {
+        Mapping mapping = MAPPINGS.get(type);
+        if(mapping != null) {
+            return mapping;
+        }
+        mapping = new Mapping(JAXBContext.newInstance(type));
+        Mapping raced = MAPPINGS.putIfAbsent(type, mapping);
+        return raced == null ? mapping : raced;
+    }
+
+    /**
+     * The classes the client reads with JAXB: the domain, project and authentication info.
+     * @return List
+     */
+    static List<Class<?>> knownClasses() {
+        return Arrays.<Class<?>>asList(Domains.class, Projects.class, AuthenticationInfo.class);
+    }
+
+    private static final class Mapping {
+        private final JAXBContext context;
+        private final Pool<Unmarshaller> unmarshallers = new Pool<>();
+
+        Mapping(JAXBContext context) {
+            this.context = context;
+        }
+    }
+
+    private static final class Pool<T> {
+        private final ConcurrentLinkedQueue<T> idle = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger size = new AtomicInteger();
+
+        /**
+         * @return T (null when none is idle)
+         */
+        T borrow() {
+            T instance = idle.poll();
+            if(instance != null) {
+                size.decrementAndGet();
+            }
+            return instance;
+        }
+
+        /**
+         * @param instance T (null is ignored)
+         */
+        void giveBack(T instance) {
+            if(instance == null) {
+                return;
+            }
+            if(size.incrementAndGet() > MAX_IDLE) {
+                size.decrementAndGet();
+                return;
+            }
+            idle.offer(instance);
+        }
+
+        boolean isEmpty() {
+            return idle.isEmpty();
+        }
+    }
+
+    private static XMLInputFactory newXmlInputFactory() {
+        XMLInputFactory factory = XMLInputFactory.newFactory();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        return factory;
+    }
+}
@@ -0,0 +1,231 @@
+/*
+ * QC REST API client
+ *
+ * Copyright (C) 2019  matthias.dirickx@outlook.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package be.mdi.testing.qc.client;
+
+import javax.ws.rs.ProcessingException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * QcTransport on the java.net.http.HttpClient of the JDK (qcclient.transport=jdk).
+ *
+ * HTTP/2 is used when the server supports it, so many calls share one connection.
+ * Otherwise it falls back to HTTP/1.1 with kept-alive connections.
+ * The JDK manages its own connections: the qcclient.pool.* settings do not apply,
+ * the number of calls in flight is bounded by the ConcurrencyLimiter.
+ * The read timeout is the time until the status and headers are in.
+ * Content bodies are written by a thread of their own while the HttpClient sends them.
+ */
+class JdkHttpTransport implements QcTransport {
+
+    private final QcClientConfig config;
+
+    private HttpClient client;
+    private ExecutorService writers;
+
+    JdkHttpTransport(QcClientConfig config) {
+        this.config = config;
+    }
+
+    @Override
+    public QcTransportResponse send(QcTransportRequest request) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(request.getUri()));
+        int readTimeout = request.getReadTimeout() > 0 ? request.getReadTimeout() : config.getReadTimeout();
+        if(readTimeout > 0) {
+            builder.timeout(Duration.ofMillis(readTimeout));
+        }
+        for(Map.Entry<String, String> header : request.getHeaders().entrySet()) {
+            builder.header(header.getKey(), header.getValue());
+        }
+        QcTransportBody body = request.getBody();
+        List<BodyPipe> pipes = new CopyOnWriteArrayList<>();
+        if(body == null) {
+            builder.method(request.getMethod(), HttpRequest.BodyPublishers.noBody());
+        } else {
+            builder.header("Content-Type", body.getContentType());
+            builder.method(request.getMethod(), publisherOf(body, pipes));
+        }
+
+        try {
+            return new JdkResponse(getClient().send(builder.build(), HttpResponse.BodyHandlers.ofInputStream()));
+        } catch(IOException e) {
+            throw new ProcessingException(e.getMessage(), e);
+        } catch(InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ProcessingException("Interrupted while waiting for " + request.getUri() + ".", e);
+        } finally {
+            //Ends a writer that is still blocked because the body was not read up to the end.
+            for(BodyPipe pipe : pipes) {
+                pipe.close();
+            }
+        }
+    }
+
+    /**
+     * The HttpClient reads a body from an InputStream, so content is written into a pipe by a thread of its own.
+     */
+    private HttpRequest.BodyPublisher publisherOf(QcTransportBody body, List<BodyPipe> pipes) {
+        if(body.getBytes() != null) {
+            return HttpRequest.BodyPublishers.ofByteArray(body.getBytes(), 0, body.getLength());
+        }
+        if(body.getStream() != null) {
+            return HttpRequest.BodyPublishers.ofInputStream(body::getStream);
+        }
+        return HttpRequest.BodyPublishers.ofInputStream(() -> {
+            BodyPipe pipe = new BodyPipe();
+            pipes.add(pipe);
+            PipedOutputStream out;
+            try {
+                out = new PipedOutputStream(pipe);
+            } catch(IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            getWriters().execute(() -> {
+                try {
+                    body.writeTo(out);
+                } catch(IOException | RuntimeException e) {
+                    //Before the close: the reader must not see the end of the body without the failure.
+                    pipe.fail(e);
+                } finally {
+                    try {
+                        out.close();
+                    } catch(IOException e) {
+                        //The reader is gone.
+                    }
+                }
+            });
+            return pipe;
+        });
+    }
+
+    /**
+     * The HttpClient can only be closed from Java 21 on. On older JDKs its connections are left to time out.
+     */
+    @Override
+    public synchronized void close() {
+        if(writers != null) {
+            writers.shutdown();
+            writers = null;
+        }
+        if(client instanceof AutoCloseable) {
+            try {
+                ((AutoCloseable) client).close();
+            } catch(Exception e) {
+                //Closing is best effort.
+            }
+        }
+        client = null;
+    }
+
+    private synchronized ExecutorService getWriters() {
+        if(writers == null) {
+            writers = QcThreads.newCachedExecutor(config, "qcclient-body-writer");
+        }
+        return writers;
+    }
+
+    private synchronized HttpClient getClient() {
+        if(client == null) {
+            HttpClient.Builder builder = HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_2)
+                    .followRedirects(HttpClient.Redirect.NEVER);
+            if(config.getConnectTimeout() > 0) {
+                builder.connectTimeout(Duration.ofMillis(config.getConnectTimeout()));
+            }
+            client = builder.build();
+        }
+        return client;
+    }
+
+    /**
+     * A pipe that fails the request when writing the content failed, rather than ending the body early.
+     */
+    private static class BodyPipe extends PipedInputStream {
+
+        private volatile Exception failure;
+
+        BodyPipe() {
+            super(8192);
+        }
+
+        void fail(Exception e) {
+            failure = e;
+        }
+
+        @Override
+        public synchronized int read() throws IOException {
+            int b = super.read();
+            if(b < 0 && failure != null) {
+                throw new IOException("Could not write the request body: " + failure.getMessage(), failure);
+            }
+            return b;
+        }
+
+        @Override
+        public void close() {
+            try {
+                super.close();
+            } catch(IOException e) {
+                //Nothing to release.
+            }
+        }
+    }
+
+    private static class JdkResponse implements QcTransportResponse {
+
+        private final HttpResponse<InputStream> response;
+
+        JdkResponse(HttpResponse<InputStream> response) {
+            this.response = response;
+        }
+
+        @Override
+        public int getStatus() { return response.statusCode(); }
+
+        @Override
+        public String getHeader(String name) { return response.headers().firstValue(name).orElse(null); }
+
+        @Override
+        public List<String> getHeaders(String name) { return response.headers().allValues(name); }
+
+        @Override
+        public InputStream getBody() { return response.body(); }
+
+        @Override
+        public void close() {
+            try {
+                response.body().close();
+            } catch(IOException e) {
+                //The connection is dropped; nothing left to release.
+            }
+        }
+    }
+}
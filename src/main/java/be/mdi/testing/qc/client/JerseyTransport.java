@@ -0,0 +1,178 @@
+/*
+ * QC REST API client
+ *
+ * Copyright (C) 2019  matthias.dirickx@outlook.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package be.mdi.testing.qc.client;
+
+import org.apache.http.impl.conn.PoolingClientConnectionManager;
+import org.glassfish.jersey.apache.connector.ApacheClientProperties;
+import org.glassfish.jersey.apache.connector.ApacheConnector;
+import org.glassfish.jersey.client.ClientConfig;
+import org.glassfish.jersey.client.ClientProperties;
+
+import javax.ws.rs.client.Client;
+import javax.ws.rs.client.ClientBuilder;
+import javax.ws.rs.client.Entity;
+import javax.ws.rs.client.Invocation;
+import javax.ws.rs.client.WebTarget;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
+import javax.ws.rs.core.Variant;
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The default QcTransport: one Jersey client shared by all calls of a RestCallHandler.
+ * The client is backed by a pooling connection manager so connections are kept alive and reused.
+ * Idle and expired connections are evicted in the background.
+ *
+ * The client is created on first use and released on close().
+ * Using the transport after close() creates a new client.
+ */
+class JerseyTransport implements QcTransport {
+
+    private final QcClientConfig config;
+
+    private Client client;
+    private PoolingClientConnectionManager connectionManager;
+    private ScheduledExecutorService evictor;
+
+    JerseyTransport(QcClientConfig config) {
+        this.config = config;
+    }
+
+    @Override
+    public QcTransportResponse send(QcTransportRequest request) {
+        WebTarget webTarget = getClient().target(request.getUri());
+        if(request.getReadTimeout() > 0) {
+            //Set on the target: the connector does not look at the properties of the invocation.
+            webTarget.property(ClientProperties.READ_TIMEOUT, request.getReadTimeout());
+        }
+        Invocation.Builder invocationBuilder = webTarget.request();
+        for(Map.Entry<String, String> header : request.getHeaders().entrySet()) {
+            invocationBuilder.header(header.getKey(), header.getValue());
+        }
+        QcTransportBody body = request.getBody();
+        Response response = body == null
+                ? invocationBuilder.method(request.getMethod())
+                : invocationBuilder.method(request.getMethod(), entityOf(body, request.getHeaders().get("Content-Encoding")));
+        return new JerseyResponse(response);
+    }
+
+    @Override
+    public synchronized void close() {
+        if(client == null) {
+            return;
+        }
+        evictor.shutdownNow();
+        client.close();
+        connectionManager.shutdown();
+        client = null;
+        connectionManager = null;
+        evictor = null;
+    }
+
+    private synchronized Client getClient() {
+        if(client == null) {
+            open();
+        }
+        return client;
+    }
+
+    /**
+     * Jersey sets the content headers from the variant of the entity, so the encoding goes in there as well.
+     */
+    private static Entity<?> entityOf(QcTransportBody body, String contentEncoding) {
+        Variant variant = new Variant(MediaType.valueOf(body.getContentType()), (String) null, contentEncoding);
+        if(body.getStream() != null) {
+            return Entity.entity(body.getStream(), variant);
+        }
+        if(body.getContent() != null) {
+            return Entity.entity((StreamingOutput) body::writeTo, variant);
+        }
+        byte[] bytes = body.getBytes();
+        if(bytes.length != body.getLength()) {
+            bytes = Arrays.copyOf(bytes, body.getLength());
+        }
+        return Entity.entity(bytes, variant);
+    }
+
+    private void open() {
+        connectionManager = new PoolingClientConnectionManager();
+        connectionManager.setMaxTotal(config.getMaxConnectionsTotal());
+        connectionManager.setDefaultMaxPerRoute(config.getMaxConnectionsPerRoute());
+
+        ClientConfig clientConfig = new ClientConfig();
+        clientConfig.property(ApacheClientProperties.CONNECTION_MANAGER, connectionManager);
+        //The session cookie is managed by the RestCallHandler, not by the connector.
+        clientConfig.property(ApacheClientProperties.DISABLE_COOKIES, true);
+        clientConfig.property(ClientProperties.CONNECT_TIMEOUT, config.getConnectTimeout());
+        clientConfig.property(ClientProperties.READ_TIMEOUT, config.getReadTimeout());
+        clientConfig.connector(new ApacheConnector(clientConfig));
+        client = ClientBuilder.newClient(clientConfig);
+
+        evictor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "qcclient-connection-evictor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        final PoolingClientConnectionManager evictedManager = connectionManager;
+        final long idleTimeout = config.getIdleConnectionTimeout();
+        final long period = Math.max(1, idleTimeout / 2);
+        evictor.scheduleAtFixedRate(() -> {
+            evictedManager.closeExpiredConnections();
+            evictedManager.closeIdleConnections(idleTimeout, TimeUnit.SECONDS);
+        }, period, period, TimeUnit.SECONDS);
+    }
+
+    private static class JerseyResponse implements QcTransportResponse {
+
+        private final Response response;
+
+        JerseyResponse(Response response) {
+            this.response = response;
+        }
+
+        @Override
+        public int getStatus() { return response.getStatus(); }
+
+        @Override
+        public String getHeader(String name) { return response.getStringHeaders().getFirst(name); }
+
+        @Override
+        public List<String> getHeaders(String name) {
+            List<String> values = response.getStringHeaders().get(name);
+            return values == null ? Collections.<String>emptyList() : values;
+        }
+
+        @Override
+        public InputStream getBody() {
+            return response.hasEntity() ? response.readEntity(InputStream.class) : new ByteArrayInputStream(new byte[0]);
+        }
+
+        @Override
+        public void close() { response.close(); }
+    }
+}
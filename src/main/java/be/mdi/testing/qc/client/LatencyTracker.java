@@ -0,0 +1,69 @@
+/*
+ * QC REST API client
+ *
+ * Copyright (C) 2019  matthias.dirickx@outlook.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package be.mdi.testing.qc.client;
+
+import java.util.Arrays;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Percentile of the most recent latencies.
+ * The percentile is recomputed every RECOMPUTE_EVERY samples, not on every read.
+ * Until MIN_SAMPLES latencies are known, the percentile is 0.
+ */
+class LatencyTracker {
+
+    private static final int WINDOW = 1024;
+    private static final int RECOMPUTE_EVERY = 64;
+    private static final int MIN_SAMPLES = 20;
+
+    private final double percentile;
+    private final long[] samples = new long[WINDOW];
+    private final ReentrantLock lock = new ReentrantLock();
+    private int count;
+    private int sinceRecompute;
+    private volatile long current;
+
+    LatencyTracker(double percentile) {
+        this.percentile = Math.max(0, Math.min(100, percentile));
+    }
+
+    void record(long nanos) {
+        lock.lock();
+        try {
+            samples[count % WINDOW] = nanos;
+            count++;
+            if(count >= MIN_SAMPLES && (++sinceRecompute >= RECOMPUTE_EVERY || current == 0)) {
+                sinceRecompute = 0;
+                long[] sorted = Arrays.copyOf(samples, Math.min(count, WINDOW));
+                Arrays.sort(sorted);
+                int index = (int) Math.ceil(percentile / 100 * sorted.length) - 1;
+                current = sorted[Math.max(0, Math.min(sorted.length - 1, index))];
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return long (nanoseconds, 0 when there are not enough samples yet)
+     */
+    long getPercentile() {
+        return current;
+    }
+}
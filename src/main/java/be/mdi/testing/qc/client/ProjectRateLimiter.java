@@ -0,0 +1,118 @@
+/*
+ * QC REST API client
+ *
+ * Copyright (C) 2019  matthias.dirickx@outlook.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package be.mdi.testing.qc.client;
+
+import be.mdi.testing.qc.exception.QcClientException;
+import be.mdi.testing.qc.exception.QcRateLimitException;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * One token bucket per domain/project, with the RateLimit the QcClientConfig gives for that project.
+ * Calls outside of a project (domains, authentication...) are not limited.
+ *
+ * Tokens are reserved: a call that has to wait takes its token up front and sleeps until it is due.
+ * So waiting calls are let through in order, at the configured rate.
+ * A call is also rejected when its token would only be due after the deadline of the call.
+ */
+class ProjectRateLimiter {
+
+    private final QcClientConfig config;
+    private final QcClientMetrics metrics;
+    private final ConcurrentMap<String, TokenBucket> buckets = new ConcurrentHashMap<>();
+
+    ProjectRateLimiter(QcClientConfig config, QcClientMetrics metrics) {
+        this.config = config;
+        this.metrics = metrics;
+    }
+
+    /**
+     * Take a token for the project of the url, waiting when needed.
+     * @param restUrl RestUrl
+     * @throws QcRateLimitException when the wait would be longer than the maximum wait of the limit
+     */
+    void acquire(RestUrl restUrl) {
+        if(restUrl.getProject() == null) {
+            return;
+        }
+        RateLimit rateLimit = config.getRateLimit(restUrl.getDomain(), restUrl.getProject());
+        if(rateLimit == null || rateLimit.getPermitsPerSecond() <= 0) {
+            return;
+        }
+        TokenBucket bucket = buckets.computeIfAbsent(
+                restUrl.getDomain() + "/" + restUrl.getProject(), key -> new TokenBucket(rateLimit));
+
+        long waitNanos = bucket.reserve(System.nanoTime(), QcDeadline.remainingForCurrentThread());
+        if(waitNanos < 0) {
+            metrics.addRateLimitRejection();
+            throw new QcRateLimitException(restUrl.getDomain(), restUrl.getProject(),
+                    "Rate limit of " + rateLimit.getPermitsPerSecond() + " calls per second reached for project "
+                            + restUrl.getDomain() + "/" + restUrl.getProject() + ".");
+        }
+        if(waitNanos > 0) {
+            metrics.addRateLimitWait();
+            try {
+                TimeUnit.NANOSECONDS.sleep(waitNanos);
+            } catch(InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new QcClientException("Interrupted while waiting for the rate limit.", e);
+            }
+        }
+    }
+
+    private static class TokenBucket {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final double tokensPerNano;
+        private final double capacity;
+        private final long maxWaitNanos;
+        private double tokens;
+        private long refilledAt;
+
+        TokenBucket(RateLimit rateLimit) {
+            this.tokensPerNano = rateLimit.getPermitsPerSecond() / TimeUnit.SECONDS.toNanos(1);
+            this.capacity = rateLimit.getBurst();
+            this.maxWaitNanos = TimeUnit.MILLISECONDS.toNanos(rateLimit.getMaxWaitMillis());
+            this.tokens = capacity;
+            this.refilledAt = System.nanoTime();
+        }
+
+        /**
+         * @param deadlineNanos long (time left before the deadline of the caller)
+         * @return long (nanoseconds to wait for the reserved token, or -1 when it would take too long)
+         */
+        long reserve(long now, long deadlineNanos) {
+            lock.lock();
+            try {
+                tokens = Math.min(capacity, tokens + (now - refilledAt) * tokensPerNano);
+                refilledAt = now;
+                long wait = tokens >= 1 ? 0 : (long) Math.ceil((1 - tokens) / tokensPerNano);
+                if(wait > maxWaitNanos || (wait > 0 && wait >= deadlineNanos)) {
+                    return -1;
+                }
+                tokens -= 1;
+                return wait;
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
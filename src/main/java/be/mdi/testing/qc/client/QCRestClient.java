@@ -23,6 +23,17 @@ import be.mdi.testing.qc.model.entities.*;
 import be.mdi.testing.qc.model.Domains;
 import be.mdi.testing.qc.model.Projects;
 import be.mdi.testing.qc.model.fields.QcAttachmentField;
+import be.mdi.testing.qc.model.fields.QcDefectField;
+import be.mdi.testing.qc.model.fields.QcRunField;
+import be.mdi.testing.qc.model.fields.QcRunStepField;
+
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 /**
  * This class implemetns the {@Link RestCallHandler.Class} class.
@@ -30,14 +41,17 @@ import be.mdi.testing.qc.model.fields.QcAttachmentField;
  * The implementation may get verbose and repetitive.
  * A degree of verbosity and repetitiveness is tolerated to be able to offer a readable interface.
  */
-public class QCRestClient {
+public class QCRestClient implements AutoCloseable {
 
+    private final QcClientConfig config;
     private RestCallHandler callHandler;
+    private final CompletableFuture<Void> readiness;
 
     /**
      * QCRestClient core instance.
      * To instantiate - Call the constructor.
-     * After creating the object, you must log in by calling the login() method on this object.
+     * Logging in with login() is optional: the client authenticates on the first call
+     * and renews the session only when it is about to expire or when the server rejects it.
      * To log out, the logout() method may be used. If not logging out, then the session may be active until expiration.
      * This is to be avoided.
      * @param host - String, host name - only the server, not the /qcbin/rest part!
@@ -45,9 +59,45 @@ public class QCRestClient {
      * @param password - password in string format (TODO not safe - check implementation)
      */
     public QCRestClient(String host, String username, String password) {
-        callHandler = new RestCallHandler(host, username, password);
+        this(host, username, password, new QcClientConfig());
     }
 
+    /**
+     * QCRestClient core instance with a specific configuration (connection pool and so on).
+     * With qcclient.warmup.enabled, the client logs in and prepares itself in the background right away;
+     * see getReadiness().
+     * @param host - String, host name - only the server, not the /qcbin/rest part!
+     * @param username - Username in string format
+     * @param password - password in string format
+     * @param config - QcClientConfig
+     */
+    public QCRestClient(String host, String username, String password, QcClientConfig config) {
+        this.config = config;
+        callHandler = new RestCallHandler(host, username, password, config);
+        readiness = config.isWarmUpEnabled() ? callHandler.warmUp() : CompletableFuture.<Void>completedFuture(null);
+    }
+
+    /**
+     * The configuration of this client.
+     * @return QcClientConfig
+     */
+    public QcClientConfig getConfig() { return config; }
+
+    /**
+     * Completes when the background warm-up is done (login, pooled connections, XML mapping).
+     * Without warm-up it is complete from the start.
+     * It completes exceptionally when the warm-up failed, for example on bad credentials;
+     * the client can still be used and logs in on the first call.
+     * @return CompletableFuture
+     */
+    public CompletableFuture<Void> getReadiness() { return readiness; }
+
+    /**
+     * Counters of this client (bytes sent and received and so on).
+     * @return QcClientMetrics
+     */
+    public QcClientMetrics getMetrics() { return callHandler.getMetrics(); }
+
     // Overhead & General items like logging in
 
     /**
@@ -62,9 +112,16 @@ public class QCRestClient {
     /**
      * Log out of the session.
      * Advised to do so to keep the sessions clean.
+     * The pooled connections are released as well.
      */
     public void logout() { callHandler.logout(); }
 
+    /**
+     * Release the pooled connections without logging out.
+     */
+    @Override
+    public void close() { callHandler.close(); }
+
     /**
      * Check if the client is logged in.
      * @return boolean (logged in: true; not logged in: false - true when is-authenticated returns OK.
@@ -76,7 +133,7 @@ public class QCRestClient {
      * @return Domains
      */
     public Domains getDomains() {
-        return callHandler.getRestData(Domains.class, "rest/domains");
+        return within(config.getGetDeadline(), () -> callHandler.getRestData(Domains.class, "rest/domains"));
     }
 
     /**
@@ -85,7 +142,8 @@ public class QCRestClient {
      * @return Domains
      */
     public Domains getDomainsWithProjects() {
-        return callHandler.getRestData(Domains.class, "rest/domains?include-projects-info=y");
+        return within(config.getGetDeadline(),
+                () -> callHandler.getRestData(Domains.class, "rest/domains?include-projects-info=y"));
     }
 
     /**
@@ -94,7 +152,8 @@ public class QCRestClient {
      * @return Projects
      */
     public Projects getProjects(String domain) {
-        return callHandler.getRestData(Projects.class, "rest/domains/" + domain + "/projects");
+        return within(config.getGetDeadline(),
+                () -> callHandler.getRestData(Projects.class, "rest/domains/" + domain + "/projects"));
     }
 
     /**
@@ -106,8 +165,7 @@ public class QCRestClient {
      * @return Integer
      */
     public Integer postEntity(QcEntity entity) {
-        return
-        callHandler.postRestData(entity, entity.getUrl());
+        return within(config.getWriteDeadline(), () -> callHandler.postRestData(entity, entity.getUrl()));
     }
 
     /**
@@ -121,7 +179,7 @@ public class QCRestClient {
      * @return Class<T>
      */
     public <T> T postEntity(Class<T> retType, QcEntity entity) {
-        return callHandler.postRestData(retType, entity, entity.getUrl());
+        return within(config.getWriteDeadline(), () -> callHandler.postRestData(retType, entity, entity.getUrl()));
     }
 
     /**
@@ -133,8 +191,7 @@ public class QCRestClient {
      * @return Integer
      */
     public Integer postEntities(QcEntities entity) {
-        return
-                callHandler.postRestData(entity, entity.getUrl());
+        return within(config.getWriteDeadline(), () -> callHandler.postRestData(entity, entity.getUrl()));
     }
 
     /**
@@ -148,7 +205,8 @@ public class QCRestClient {
      * @return Class<T>
      */
     public <T> T postEntities(Class<T> retType, QcEntities qcEntities) {
-        return callHandler.postRestData(retType, qcEntities, qcEntities.getUrl());
+        return within(config.getWriteDeadline(),
+                () -> callHandler.postRestData(retType, qcEntities, qcEntities.getUrl()));
     }
 
     /**
@@ -158,7 +216,7 @@ public class QCRestClient {
      * @return Integer
      */
     public Integer putEntity(QcEntity entity) {
-        return callHandler.putRestData(entity, entity.getUrl());
+        return within(config.getWriteDeadline(), () -> callHandler.putRestData(entity, entity.getUrl()));
     }
 
     /**
@@ -180,10 +238,10 @@ public class QCRestClient {
      */
     private <T extends QcEntity> T getEntity(Class<T> retType, QcType qcType, String domain, String project, Integer entityId, Integer parentId) {
 
-        T e = callHandler.getRestData(
+        T e = within(config.getGetDeadline(), () -> callHandler.getRestData(
                 retType,
-                getEntityGetUrl(qcType, domain, project, entityId, parentId)
-        );
+                getEntityGetUrl(qcType, domain, project, entityId, parentId, null)
+        ));
 
         e.setProject(project);
         e.setDomain(domain);
@@ -197,21 +255,53 @@ public class QCRestClient {
      * @param qcType QcType
      * @param domain String
      * @param project String
+     * @param fields Set (names of the fields to read, see fieldNames; null for all fields)
      * @param <T> Class T - <T extends QcEntities & QcEntitiesInterface>
      * @return T extends QcEntities & QcEntitiesInterface
      */
-    private <T extends QcEntities & QcEntitiesInterface> T getEntities(Class<T> retType, QcType qcType, String domain, String project) {
+    private <T extends QcEntities & QcEntitiesInterface> T getEntities(Class<T> retType, QcType qcType, String domain, String project, Set<String> fields) {
 
-        T es = callHandler.getRestData(
+        T es = within(config.getGetDeadline(), () -> callHandler.getRestData(
                 retType,
-                getEntityGetUrl(qcType, domain, project, null, null)
-        );
+                getEntityGetUrl(qcType, domain, project, null, null, fields)
+        ));
 
         es.setProject(project);
         es.setDomain(domain);
+        if(fields != null) {
+            for(QcEntity e : es.getEntityList()) {
+                e.setLoadedFields(fields);
+            }
+        }
         return es;
     }
 
+    /**
+     * Read a collection of entities one at a time, without building the collection in memory.
+     * The heap used stays the same whatever the number of entities.
+     *
+     * @param entityType Class<T> (the type of one entity, for example QcRun)
+     * @param qcType QcType
+     * @param domain String
+     * @param project String
+     * @param fields Set (names of the fields to read, see fieldNames; null for all fields)
+     * @param action Consumer (called for every entity, in the order of the response)
+     * @param <T> Class T - <T extends QcEntity>
+     * @return int (number of entities read)
+     */
+    private <T extends QcEntity> int forEachEntity(Class<T> entityType, QcType qcType, String domain, String project, Set<String> fields, Consumer<? super T> action) {
+        return within(config.getGetDeadline(), () -> callHandler.forEachRestData(
+                entityType,
+                getEntityGetUrl(qcType, domain, project, null, null, fields),
+                e -> {
+                    e.setProject(project);
+                    e.setDomain(domain);
+                    e.setLoadedFields(fields);
+                    action.accept(e);
+                }
+        ));
+    }
+
     /**
      * Deduce the URL from the information stored in the parametres passed to the client methods.
      * @param qcType QcType
@@ -219,9 +309,10 @@ public class QCRestClient {
      * @param project String
      * @param entityId String (may not be null)
      * @param parentId String (may be null)
+     * @param fields Set (names of the fields to ask for; null for all fields)
      * @return
      */
-    private String getEntityGetUrl(QcType qcType, String domain, String project, Integer entityId, Integer parentId) {
+    private String getEntityGetUrl(QcType qcType, String domain, String project, Integer entityId, Integer parentId, Set<String> fields) {
         String url = "rest/domains/" + domain + "/projects/" + project + "/";
 
         if(qcType.hasTypeParent() && parentId != null) {
@@ -234,9 +325,37 @@ public class QCRestClient {
             url += "/" + entityId;
         }
 
+        if(fields != null) {
+            url += "?fields=" + String.join(",", fields);
+        }
+
         return url;
     }
 
+    /**
+     * The names of the fields to ask the server for.
+     * The id (and the parent id of a run step) is always added, so the entities can still be updated.
+     * @param qcType QcType
+     * @param fields Set (null for all fields)
+     * @param name Function (name of a field in the REST API)
+     * @param <F> field enum
+     * @return Set (null for all fields)
+     */
+    private static <F> Set<String> fieldNames(QcType qcType, Set<F> fields, Function<F, String> name) {
+        if(fields == null) {
+            return null;
+        }
+        Set<String> names = new LinkedHashSet<>();
+        names.add("id");
+        if(qcType.hasTypeParent()) {
+            names.add(qcType.getParentIdentifier());
+        }
+        for(F field : fields) {
+            names.add(name.apply(field));
+        }
+        return Collections.unmodifiableSet(names);
+    }
+
     public QcDefect getDefect(String domain, String project, Integer defectId) {
         return getEntity(
                 QcDefect.class,
@@ -253,10 +372,52 @@ public class QCRestClient {
                 QcDefects.class,
                 QcType.DEFECT,
                 domain,
-                project
+                project,
+                null
         );
     }
 
+    /**
+     * Read the defects with only the given fields (the fields= parameter of the REST API).
+     * The id is always read. A getField of a field that was not read throws a QcFieldNotLoadedException.
+     * @param domain String
+     * @param project String
+     * @param fields Set (an empty set reads the ids only)
+     * @return QcDefects
+     */
+    public QcDefects getDefects(String domain, String project, Set<QcDefectField> fields) {
+        return getEntities(
+                QcDefects.class,
+                QcType.DEFECT,
+                domain,
+                project,
+                fieldNames(QcType.DEFECT, fields, QcDefectField::getName)
+        );
+    }
+
+    /**
+     * Read the defects of a project one at a time. For large projects, where getDefects would need too much memory.
+     * @param domain String
+     * @param project String
+     * @param action Consumer
+     * @return int (number of defects read)
+     */
+    public int forEachDefect(String domain, String project, Consumer<? super QcDefect> action) {
+        return forEachEntity(QcDefect.class, QcType.DEFECT, domain, project, null, action);
+    }
+
+    /**
+     * Read the defects of a project one at a time, with only the given fields (see getDefects(domain, project, fields)).
+     * @param domain String
+     * @param project String
+     * @param fields Set
+     * @param action Consumer
+     * @return int (number of defects read)
+     */
+    public int forEachDefect(String domain, String project, Set<QcDefectField> fields, Consumer<? super QcDefect> action) {
+        return forEachEntity(QcDefect.class, QcType.DEFECT, domain, project, fieldNames(QcType.DEFECT, fields, QcDefectField::getName), action);
+    }
+
     public QcRun getRun(String domain, String project, int runId) {
         return getEntity(
                 QcRun.class,
@@ -273,10 +434,52 @@ public class QCRestClient {
                 QcRuns.class,
                 QcType.RUN,
                 domain,
-                project
+                project,
+                null
+        );
+    }
+
+    /**
+     * Read the runs with only the given fields (the fields= parameter of the REST API).
+     * The id is always read. A getField of a field that was not read throws a QcFieldNotLoadedException.
+     * @param domain String
+     * @param project String
+     * @param fields Set (an empty set reads the ids only)
+     * @return QcRuns
+     */
+    public QcRuns getRuns(String domain, String project, Set<QcRunField> fields) {
+        return getEntities(
+                QcRuns.class,
+                QcType.RUN,
+                domain,
+                project,
+                fieldNames(QcType.RUN, fields, QcRunField::getName)
         );
     }
 
+    /**
+     * Read the runs of a project one at a time. For large projects, where getRuns would need too much memory.
+     * @param domain String
+     * @param project String
+     * @param action Consumer
+     * @return int (number of runs read)
+     */
+    public int forEachRun(String domain, String project, Consumer<? super QcRun> action) {
+        return forEachEntity(QcRun.class, QcType.RUN, domain, project, null, action);
+    }
+
+    /**
+     * Read the runs of a project one at a time, with only the given fields (see getRuns(domain, project, fields)).
+     * @param domain String
+     * @param project String
+     * @param fields Set
+     * @param action Consumer
+     * @return int (number of runs read)
+     */
+    public int forEachRun(String domain, String project, Set<QcRunField> fields, Consumer<? super QcRun> action) {
+        return forEachEntity(QcRun.class, QcType.RUN, domain, project, fieldNames(QcType.RUN, fields, QcRunField::getName), action);
+    }
+
     public QcRunStep getRunStep(String domain, String project, int runId, int runStepId) {
         return getEntity(
                 QcRunStep.class,
@@ -293,10 +496,52 @@ public class QCRestClient {
                 QcRunSteps.class,
                 QcType.RUN_STEP,
                 domain,
-                project
+                project,
+                null
         );
     }
 
+    /**
+     * Read the run steps with only the given fields (the fields= parameter of the REST API).
+     * The id is always read. A getField of a field that was not read throws a QcFieldNotLoadedException.
+     * @param domain String
+     * @param project String
+     * @param fields Set (an empty set reads the ids only)
+     * @return QcRunSteps
+     */
+    public QcRunSteps getRunSteps(String domain, String project, Set<QcRunStepField> fields) {
+        return getEntities(
+                QcRunSteps.class,
+                QcType.RUN_STEP,
+                domain,
+                project,
+                fieldNames(QcType.RUN_STEP, fields, QcRunStepField::getName)
+        );
+    }
+
+    /**
+     * Read the run steps of a project one at a time. For large projects, where getRunSteps would need too much memory.
+     * @param domain String
+     * @param project String
+     * @param action Consumer
+     * @return int (number of run steps read)
+     */
+    public int forEachRunStep(String domain, String project, Consumer<? super QcRunStep> action) {
+        return forEachEntity(QcRunStep.class, QcType.RUN_STEP, domain, project, null, action);
+    }
+
+    /**
+     * Read the run steps of a project one at a time, with only the given fields (see getRunSteps(domain, project, fields)).
+     * @param domain String
+     * @param project String
+     * @param fields Set
+     * @param action Consumer
+     * @return int (number of run steps read)
+     */
+    public int forEachRunStep(String domain, String project, Set<QcRunStepField> fields, Consumer<? super QcRunStep> action) {
+        return forEachEntity(QcRunStep.class, QcType.RUN_STEP, domain, project, fieldNames(QcType.RUN_STEP, fields, QcRunStepField::getName), action);
+    }
+
     /**
      * Upsert attachment.
      * If no ID is found in the QcAttachment object: post attachment and update meta with rest of date via XML
@@ -305,6 +550,16 @@ public class QCRestClient {
      * @param qcAttachment
      */
     public void postAttachment(QcAttachment qcAttachment) {
+        //One deadline for the upload and the update of the meta data.
+        QcDeadline deadline = QcDeadline.start(config.getAttachmentDeadline());
+        try {
+            upsertAttachment(qcAttachment);
+        } finally {
+            deadline.close();
+        }
+    }
+
+    private void upsertAttachment(QcAttachment qcAttachment) {
 
         String attId = qcAttachment.getField(QcAttachmentField.ID);
         QcAttachment qcCreated = null;
@@ -336,4 +591,17 @@ public class QCRestClient {
             }
         }
     }
+
+    /**
+     * Run an operation within a deadline of its own, or within the deadline of the enclosing operation when that
+     * one ends earlier.
+     */
+    private <T> T within(long deadlineMillis, Supplier<T> operation) {
+        QcDeadline deadline = QcDeadline.start(deadlineMillis);
+        try {
+            return operation.get();
+        } finally {
+            deadline.close();
+        }
+    }
 }
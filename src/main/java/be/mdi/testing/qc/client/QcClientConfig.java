@@ -0,0 +1,726 @@
+/*
+ * QC REST API client
+ *
+ * Copyright (C) 2019  matthias.dirickx@outlook.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package be.mdi.testing.qc.client;
+
+import be.mdi.testing.qc.exception.QcClientException;
+import be.mdi.testing.qc.model.QcType;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static be.mdi.testing.qc.PropertyManager.getProperty;
+
+/**
+ * Configuration of a {@link QCRestClient}.
+ * The defaults are read from qcclient.properties (see PropertyManager).
+ * When a property is not defined, a sensible built-in default is used.
+ *
+ * All setters return the configuration object (fluent api).
+ *
+ * Properties:
+ *     - qcclient.pool.maxtotal      : maximum number of open connections for the client
+ *     - qcclient.pool.maxperroute   : maximum number of open connections per host
+ *     - qcclient.pool.idletimeout   : seconds after which an idle connection is closed
+ *     - qcclient.session.maxage     : seconds a session is trusted when the cookie has no expiry
+ *     - qcclient.session.refreshmargin : seconds before expiry at which the session is renewed
+ *     - qcclient.async.threads      : threads of the default executor of the AsyncQCRestClient
+ *     - qcclient.threads.virtual    : true to run the AsyncQCRestClient on virtual threads (Java 21+)
+ *     - qcclient.gzip.responses     : true to ask for and decode gzip encoded responses
+ *     - qcclient.gzip.requests      : true to gzip XML request bodies
+ *     - qcclient.gzip.threshold     : minimum size in bytes of a request body before it is compressed
+ *     - qcclient.retry.maxattempts  : attempts per call, the first one included (1 disables retries)
+ *     - qcclient.retry.backoff      : milliseconds to wait before the first retry
+ *     - qcclient.retry.maxbackoff   : maximum milliseconds to wait between retries
+ *     - qcclient.retry.maxretryafter : maximum seconds of a Retry-After header that is honoured
+ *     - qcclient.retry.budget.ratio : retries earned per call (0.2: at most one retry per five calls)
+ *     - qcclient.retry.budget.max   : retries that may be done in a burst
+ *     - qcclient.limiter.enabled    : true to adapt the number of calls in flight to the server (see ConcurrencyLimiter)
+ *     - qcclient.limiter.initial    : calls in flight allowed at the start
+ *     - qcclient.limiter.max        : upper bound of the calls in flight (0: the connections per route)
+ *     - qcclient.limiter.backoff    : factor applied to the limit on overload (0.9: 10% less)
+ *     - qcclient.limiter.tolerance  : a round trip this many times slower than the fastest recent one is overload
+ *     - qcclient.ratelimit.rate     : calls per second per project (0: no limit), see RateLimit
+ *     - qcclient.ratelimit.burst    : calls per project that may be done at once
+ *     - qcclient.ratelimit.maxwait  : milliseconds a call waits for the rate limit (0: reject right away)
+ *     - qcclient.breaker.enabled    : true to fail fast on endpoints that keep failing (see CircuitState)
+ *     - qcclient.breaker.failures   : consecutive failures after which the circuit of an endpoint opens
+ *     - qcclient.breaker.opentime   : seconds an open circuit waits before a trial call
+ *     - qcclient.get.coalesce       : true to let identical concurrent GETs share one call
+ *     - qcclient.hedge.enabled      : true to send a slow GET a second time and use the first answer
+ *     - qcclient.hedge.percentile   : percentile of recent GET latencies after which the second GET is sent
+ *     - qcclient.hedge.mindelay     : minimum milliseconds before the second GET is sent
+ *     - qcclient.timeout.connect    : milliseconds to wait for a connection (0: no timeout)
+ *     - qcclient.timeout.read       : milliseconds to wait for data on a connection (0: no timeout)
+ *     - qcclient.deadline.get       : milliseconds a GET operation may take, retries included (0: no deadline)
+ *     - qcclient.deadline.write     : milliseconds a POST or PUT of entities may take
+ *     - qcclient.deadline.attachment : milliseconds an attachment upload may take, meta data update included
+ *     - qcclient.deadline.commit    : milliseconds a composite commit (QcRunAndRunSteps) may take, all calls together
+ *     - qcclient.warmup.enabled     : true to log in, open connections and prepare the XML mapping in the background
+ *                                     as soon as the client is created (see QCRestClient.getReadiness())
+ *     - qcclient.warmup.connections : connections opened by the warm-up
+ *     - qcclient.transport          : HTTP library: jersey (default) or jdk (java.net.http, HTTP/2), see QcTransport
+ *     - qcclient.bulkhead.attachments.connections : connections of the separate pool for attachment uploads
+ *     - qcclient.bulkhead.attachments.calls       : attachment uploads in flight at the same time
+ *                                                   (also the threads of the AsyncQCRestClient for uploads)
+ *     - qcclient.format             : wire format of the entity calls: xml (default) or json
+ *     - qcclient.fields.lazy        : true to decode the field values of entities read as XML only when they are used
+ *     - qcclient.write.templates    : true to write XML entity bodies from pre-compiled templates per type and field names
+ */
+public class QcClientConfig implements Cloneable {
+
+    private int maxConnectionsTotal;
+    private int maxConnectionsPerRoute;
+    private int idleConnectionTimeout;
+    private int sessionMaxAge;
+    private int sessionRefreshMargin;
+    private int asyncThreads;
+    private boolean virtualThreads;
+    private boolean gzipResponses;
+    private boolean gzipRequests;
+    private int gzipThreshold;
+    private RetryPolicy retryPolicy;
+    private final Map<String, RetryPolicy> retryPolicies = new HashMap<>();
+    private double retryBudgetRatio;
+    private int retryBudgetMax;
+    private boolean limiterEnabled;
+    private int limiterInitial;
+    private int limiterMax;
+    private double limiterBackoffRatio;
+    private double limiterLatencyTolerance;
+    private RateLimit rateLimit;
+    private final Map<String, RateLimit> rateLimits = new HashMap<>();
+    private boolean breakerEnabled;
+    private int breakerFailures;
+    private int breakerOpenTime;
+    private boolean coalesceGets;
+    private boolean hedgeEnabled;
+    private double hedgePercentile;
+    private int hedgeMinDelay;
+    private int connectTimeout;
+    private int readTimeout;
+    private long getDeadline;
+    private long writeDeadline;
+    private long attachmentDeadline;
+    private long commitDeadline;
+    private boolean warmUpEnabled;
+    private int warmUpConnections;
+    private String transport;
+    private QcTransport.Factory transportFactory;
+    private int attachmentConnections;
+    private int attachmentCalls;
+    private String format;
+    private boolean lazyFields;
+    private boolean writeTemplates;
+
+    /**
+     * Create a configuration with the values from qcclient.properties or the built-in defaults.
+     */
+    public QcClientConfig() {
+        maxConnectionsTotal = intProperty("qcclient.pool.maxtotal", 20);
+        maxConnectionsPerRoute = intProperty("qcclient.pool.maxperroute", 10);
+        idleConnectionTimeout = intProperty("qcclient.pool.idletimeout", 30);
+        sessionMaxAge = intProperty("qcclient.session.maxage", 3600);
+        sessionRefreshMargin = intProperty("qcclient.session.refreshmargin", 60);
+        asyncThreads = intProperty("qcclient.async.threads", 16);
+        virtualThreads = booleanProperty("qcclient.threads.virtual", false);
+        gzipResponses = booleanProperty("qcclient.gzip.responses", false);
+        gzipRequests = booleanProperty("qcclient.gzip.requests", false);
+        gzipThreshold = intProperty("qcclient.gzip.threshold", 4096);
+        retryPolicy = new RetryPolicy(
+                intProperty("qcclient.retry.maxattempts", 3),
+                intProperty("qcclient.retry.backoff", 100),
+                intProperty("qcclient.retry.maxbackoff", 2000),
+                intProperty("qcclient.retry.maxretryafter", 30) * 1000L
+        );
+        retryBudgetRatio = doubleProperty("qcclient.retry.budget.ratio", 0.2);
+        retryBudgetMax = intProperty("qcclient.retry.budget.max", 10);
+        limiterEnabled = booleanProperty("qcclient.limiter.enabled", false);
+        limiterInitial = intProperty("qcclient.limiter.initial", 4);
+        limiterMax = intProperty("qcclient.limiter.max", 0);
+        limiterBackoffRatio = doubleProperty("qcclient.limiter.backoff", 0.9);
+        limiterLatencyTolerance = doubleProperty("qcclient.limiter.tolerance", 2.0);
+        double rate = doubleProperty("qcclient.ratelimit.rate", 0);
+        rateLimit = rate <= 0 ? null : new RateLimit(
+                rate,
+                intProperty("qcclient.ratelimit.burst", Math.max(1, (int) rate)),
+                intProperty("qcclient.ratelimit.maxwait", 10000)
+        );
+        breakerEnabled = booleanProperty("qcclient.breaker.enabled", false);
+        breakerFailures = intProperty("qcclient.breaker.failures", 5);
+        breakerOpenTime = intProperty("qcclient.breaker.opentime", 30);
+        coalesceGets = booleanProperty("qcclient.get.coalesce", true);
+        hedgeEnabled = booleanProperty("qcclient.hedge.enabled", false);
+        hedgePercentile = doubleProperty("qcclient.hedge.percentile", 95);
+        hedgeMinDelay = intProperty("qcclient.hedge.mindelay", 50);
+        connectTimeout = intProperty("qcclient.timeout.connect", 10000);
+        readTimeout = intProperty("qcclient.timeout.read", 60000);
+        getDeadline = intProperty("qcclient.deadline.get", 120000);
+        writeDeadline = intProperty("qcclient.deadline.write", 120000);
+        attachmentDeadline = intProperty("qcclient.deadline.attachment", 600000);
+        commitDeadline = intProperty("qcclient.deadline.commit", 300000);
+        warmUpEnabled = booleanProperty("qcclient.warmup.enabled", false);
+        warmUpConnections = intProperty("qcclient.warmup.connections", 2);
+        transport = getProperty("qcclient.transport", "jersey").trim();
+        attachmentConnections = intProperty("qcclient.bulkhead.attachments.connections", 4);
+        attachmentCalls = intProperty("qcclient.bulkhead.attachments.calls", 4);
+        format = getProperty("qcclient.format", "xml").trim();
+        lazyFields = booleanProperty("qcclient.fields.lazy", false);
+        writeTemplates = booleanProperty("qcclient.write.templates", false);
+    }
+
+    public int getMaxConnectionsTotal() { return maxConnectionsTotal; }
+    public int getMaxConnectionsPerRoute() { return maxConnectionsPerRoute; }
+    public int getIdleConnectionTimeout() { return idleConnectionTimeout; }
+    public int getSessionMaxAge() { return sessionMaxAge; }
+    public int getSessionRefreshMargin() { return sessionRefreshMargin; }
+    public int getAsyncThreads() { return asyncThreads; }
+    public boolean isVirtualThreads() { return virtualThreads; }
+    public boolean isGzipResponses() { return gzipResponses; }
+    public boolean isGzipRequests() { return gzipRequests; }
+    public int getGzipThreshold() { return gzipThreshold; }
+    public RetryPolicy getRetryPolicy() { return retryPolicy; }
+    public double getRetryBudgetRatio() { return retryBudgetRatio; }
+    public int getRetryBudgetMax() { return retryBudgetMax; }
+    public boolean isLimiterEnabled() { return limiterEnabled; }
+    public int getLimiterInitial() { return limiterInitial; }
+
+    /**
+     * @return int (the configured maximum, or the connections per route when it is 0)
+     */
+    public int getLimiterMax() { return limiterMax > 0 ? limiterMax : maxConnectionsPerRoute; }
+
+    public double getLimiterBackoffRatio() { return limiterBackoffRatio; }
+    public double getLimiterLatencyTolerance() { return limiterLatencyTolerance; }
+    public boolean isBreakerEnabled() { return breakerEnabled; }
+    public int getBreakerFailures() { return breakerFailures; }
+    public int getBreakerOpenTime() { return breakerOpenTime; }
+    public boolean isCoalesceGets() { return coalesceGets; }
+    public boolean isHedgeEnabled() { return hedgeEnabled; }
+    public double getHedgePercentile() { return hedgePercentile; }
+    public int getHedgeMinDelay() { return hedgeMinDelay; }
+    public int getConnectTimeout() { return connectTimeout; }
+    public int getReadTimeout() { return readTimeout; }
+    public long getGetDeadline() { return getDeadline; }
+    public long getWriteDeadline() { return writeDeadline; }
+    public long getAttachmentDeadline() { return attachmentDeadline; }
+    public long getCommitDeadline() { return commitDeadline; }
+    public boolean isWarmUpEnabled() { return warmUpEnabled; }
+    public int getWarmUpConnections() { return warmUpConnections; }
+    public String getTransport() { return transport; }
+    public int getAttachmentConnections() { return attachmentConnections; }
+    public int getAttachmentCalls() { return attachmentCalls; }
+    public String getFormat() { return format; }
+    public boolean isLazyFields() { return lazyFields; }
+    public boolean isWriteTemplates() { return writeTemplates; }
+
+    /**
+     * The factory set with setTransportFactory, else the built-in transport named by qcclient.transport.
+     * @return QcTransport.Factory
+     */
+    public QcTransport.Factory getTransportFactory() {
+        if(transportFactory != null) {
+            return transportFactory;
+        }
+        switch(transport) {
+            case "jersey": return JerseyTransport::new;
+            case "jdk": return JdkHttpTransport::new;
+            default: throw new QcClientException("Unknown transport '" + transport + "' (jersey or jdk).");
+        }
+    }
+
+    /**
+     * The rate limit for the calls on a project.
+     * That is the limit set for the project, or the default limit. Null when not limited.
+     * @param domain String
+     * @param project String
+     * @return RateLimit
+     */
+    public RateLimit getRateLimit(String domain, String project) {
+        RateLimit limit = rateLimits.get(domain + "/" + project);
+        return limit == null ? rateLimit : limit;
+    }
+
+    /**
+     * The retry policy for calls on this type of entity.
+     * That is the policy set for the type, or the default policy.
+     * @param qcType QcType
+     * @return RetryPolicy
+     */
+    public RetryPolicy getRetryPolicy(QcType qcType) {
+        return getRetryPolicy(qcType.getRestUrlType());
+    }
+
+    RetryPolicy getRetryPolicy(String restUrlType) {
+        RetryPolicy policy = restUrlType == null ? null : retryPolicies.get(restUrlType);
+        return policy == null ? retryPolicy : policy;
+    }
+
+    public QcClientConfig setMaxConnectionsTotal(int maxConnectionsTotal) {
+        this.maxConnectionsTotal = maxConnectionsTotal;
+        return this;
+    }
+
+    public QcClientConfig setMaxConnectionsPerRoute(int maxConnectionsPerRoute) {
+        this.maxConnectionsPerRoute = maxConnectionsPerRoute;
+        return this;
+    }
+
+    /**
+     * Idle connections are evicted from the pool after this amount of seconds.
+     * @param idleConnectionTimeout int (seconds)
+     * @return QcClientConfig (fluent api)
+     */
+    public QcClientConfig setIdleConnectionTimeout(int idleConnectionTimeout) {
+        this.idleConnectionTimeout = idleConnectionTimeout;
+        return this;
+    }
+
+    /**
+     * Maximum age of a session when the LWSSO cookie does not carry an expiry itself.
+     * @param sessionMaxAge int (seconds)
+     * @return QcClientConfig (fluent api)
+     */
+    public QcClientConfig setSessionMaxAge(int sessionMaxAge) {
+        this.sessionMaxAge = sessionMaxAge;
+        return this;
+    }
+
+    /**
+     * The session is renewed this amount of seconds before it expires.
+     * @param sessionRefreshMargin int (seconds)
+     * @return QcClientConfig (fluent api)
+     */
+    public QcClientConfig setSessionRefreshMargin(int sessionRefreshMargin) {
+        this.sessionRefreshMargin = sessionRefreshMargin;
+        return this;
+    }
+
+    /**
+     * Size of the thread pool an AsyncQCRestClient creates when no executor is passed.
+     * @param asyncThreads int
+     * @return QcClientConfig (fluent api)
+     */
+    public QcClientConfig setAsyncThreads(int asyncThreads) {
+        this.asyncThreads = asyncThreads;
+        return this;
+    }
+
+    /**
+     * Run the async client on a virtual thread per call instead of a fixed thread pool.
+     * Needs Java 21 or later, see QcThreads.virtualThreadsAvailable().
+     * @param virtualThreads boolean
+     * @return QcClientConfig (fluent api)
+     */
+    public QcClientConfig setVirtualThreads(boolean virtualThreads) {
+        this.virtualThreads = virtualThreads;
+        return this;
+    }
+
+    /**
+     * Send Accept-Encoding: gzip and decode gzip encoded responses.
+     * @param gzipResponses boolean
+     * @return QcClientConfig (fluent api)
+     */
+    public QcClientConfig setGzipResponses(boolean gzipResponses) {
+        this.gzipResponses = gzipResponses;
+        return this;
+    }
+
+    /**
+     * Gzip XML request bodies of at least getGzipThreshold() bytes.
+     * The server must accept Content-Encoding: gzip.
+     * @param gzipRequests boolean
+     * @return QcClientConfig (fluent api)
+     */
+    public QcClientConfig setGzipRequests(boolean gzipRequests) {
+        this.gzipRequests = gzipRequests;
+        return this;
+    }
+
+    /**
+     * @param gzipThreshold int (bytes)
+     * @return QcClientConfig (fluent api)
+     */
+    public QcClientConfig setGzipThreshold(int gzipThreshold) {
+        this.gzipThreshold = gzipThreshold;
+        return this;
+    }
+
+    /**
+     * The retry policy for all calls without a policy of their own.
+     * @param retryPolicy RetryPolicy
+     * @return QcClientConfig (fluent api)
+     */
+    public QcClientConfig setRetryPolicy(RetryPolicy retryPolicy) {
+        this.retryPolicy = retryPolicy;
+        return this;
+    }
+
+    /**
+     * The retry policy for the calls on one type of entity (for example RetryPolicy.noRetries() for QcType.RUN).
+     * Types sharing a url (BUG and DEFECT) share the policy.
+     * Calls on child entities (run-steps of a run) use the policy of the child type.
+     * @param qcType QcType
+     * @param retryPolicy RetryPolicy
+     * @return QcClientConfig (fluent api)
+     */
+    public QcClientConfig setRetryPolicy(QcType qcType, RetryPolicy retryPolicy) {
+        retryPolicies.put(qcType.getRestUrlType(), retryPolicy);
+        return this;
+    }
+
+    /**
+     * @param retryBudgetRatio double (retries earned per call)
+     * @return QcClientConfig (fluent api)
+     */
+    public QcClientConfig setRetryBudgetRatio(double retryBudgetRatio) {
+        this.retryBudgetRatio = retryBudgetRatio;
+        return this;
+    }
+
+    /**
+     * @param retryBudgetMax int (retries that may be done in a burst)
+     * @return QcClientConfig (fluent api)
+     */
+    public QcClientConfig setRetryBudgetMax(int retryBudgetMax) {
+        this.retryBudgetMax = retryBudgetMax;
+        return this;
+    }
+
+    /**
+     * Adapt the number of calls in flight to the latency and errors of the server. Off by default.
+     * When disabled, the number of calls is only bounded by the connection pool.
+     * @param limiterEnabled boolean
+     * @return QcClientConfig (fluent api)
+     */
+    public QcClientConfig setLimiterEnabled(boolean limiterEnabled) {
+        this.limiterEnabled = limiterEnabled;
+        return this;
+    }
+
+    /**
+     * @param limiterInitial int (calls in flight allowed at the start)
+     * @return QcClientConfig (fluent api)
+     */
+    public QcClientConfig setLimiterInitial(int limiterInitial) {
+        this.limiterInitial = limiterInitial;
+        return this;
+    }
+
+    /**
+     * Keep this at or below the connections per route; calls above that only wait for a connection.
+     * 0 (the default) follows the connections per route, so raising the pool also raises the limit.
+     * @param limiterMax int (upper bound of the calls in flight; 0 for the connections per route)
+     * @return QcClientConfig (fluent api)
+     */
+    public QcClientConfig setLimiterMax(int limiterMax) {
+        this.limiterMax = limiterMax;
+        return this;
+    }
+
+    /**
+     * @param limiterBackoffRatio double (factor applied to the limit on overload, between 0 and 1)
+     * @return QcClientConfig (fluent api)
+     */
+    public QcClientConfig setLimiterBackoffRatio(double limiterBackoffRatio) {
+        this.limiterBackoffRatio = limiterBackoffRatio;
+        return this;
+    }
+
+    /**
+     * @param limiterLatencyTolerance double (a round trip this many times slower than the fastest recent one is overload)
+     * @return QcClientConfig (fluent api)
+     */
+    public QcClientConfig setLimiterLatencyTolerance(double limiterLatencyTolerance) {
+        this.limiterLatencyTolerance = limiterLatencyTolerance;
+        return this;
+    }
+
+    /**
+     * The rate limit for every project without a limit of its own. Each project gets its own bucket.
+     * @param rateLimit RateLimit (null: no limit)
+     * @return QcClientConfig (fluent api)
+     */
+    public QcClientConfig setRateLimit(RateLimit rateLimit) {
+        this.rateLimit = rateLimit;
+        return this;
+    }
+
+    /**
+     * The rate limit for the calls on one project, for example the quota set by the QC admin.
+     * @param domain String
+     * @param project String
+     * @param rateLimit RateLimit
+     * @return QcClientConfig (fluent api)
+     */
+    public QcClientConfig setRateLimit(String domain, String project, RateLimit rateLimit) {
+        rateLimits.put(domain + "/" + project, rateLimit);
+        return this;
+    }
+
+    /**
+     * Fail fast on endpoint families (defects, runs, run-steps...) that keep failing. Off by default.
+     * @param breakerEnabled boolean
+     * @return QcClientConfig (fluent api)
+     */
+    public QcClientConfig setBreakerEnabled(boolean breakerEnabled) {
+        this.breakerEnabled = breakerEnabled;
+        return this;
+    }
+
+    /**
+     * @param breakerFailures int (consecutive failures after which the circuit opens)
+     * @return QcClientConfig (fluent api)
+     */
+    public QcClientConfig setBreakerFailures(int breakerFailures) {
+        this.breakerFailures = breakerFailures;
+        return this;
+    }
+
+    /**
+     * @param breakerOpenTime int (seconds an open circuit waits before a trial call)
+     * @return QcClientConfig (fluent api)
+     */
+    public QcClientConfig setBreakerOpenTime(int breakerOpenTime) {
+        this.breakerOpenTime = breakerOpenTime;
+        return this;
+    }
+
+    /**
+     * Let identical GETs that run at the same time share one call.
+     * Every caller still gets an object of its own, read from the shared response body, so it may be changed freely.
+     * @param coalesceGets boolean
+     * @return QcClientConfig (fluent api)
+     */
+    public QcClientConfig setCoalesceGets(boolean coalesceGets) {
+        this.coalesceGets = coalesceGets;
+        return this;
+    }
+
+    /**
+     * Send a GET a second time when it is slower than the hedge percentile; the first answer is used.
+     * This adds load on the server, so it is off by default.
+     * @param hedgeEnabled boolean
+     * @return QcClientConfig (fluent api)
+     */
+    public QcClientConfig setHedgeEnabled(boolean hedgeEnabled) {
+        this.hedgeEnabled = hedgeEnabled;
+        return this;
+    }
+
+    /**
+     * @param hedgePercentile double (for example 95: hedge the 5% slowest GETs)
+     * @return QcClientConfig (fluent api)
+     */
+    public QcClientConfig setHedgePercentile(double hedgePercentile) {
+        this.hedgePercentile = hedgePercentile;
+        return this;
+    }
+
+    /**
+     * Also the delay used until enough latencies are known.
+     * @param hedgeMinDelay int (milliseconds)
+     * @return QcClientConfig (fluent api)
+     */
+    public QcClientConfig setHedgeMinDelay(int hedgeMinDelay) {
+        this.hedgeMinDelay = hedgeMinDelay;
+        return this;
+    }
+
+    /**
+     * @param connectTimeout int (milliseconds to wait for a connection; 0: no timeout)
+     * @return QcClientConfig (fluent api)
+     */
+    public QcClientConfig setConnectTimeout(int connectTimeout) {
+        this.connectTimeout = connectTimeout;
+        return this;
+    }
+
+    /**
+     * Within a deadline, the read timeout of a call is cut to the time that is left.
+     * @param readTimeout int (milliseconds to wait for data on a connection; 0: no timeout)
+     * @return QcClientConfig (fluent api)
+     */
+    public QcClientConfig setReadTimeout(int readTimeout) {
+        this.readTimeout = readTimeout;
+        return this;
+    }
+
+    /**
+     * @param getDeadline long (milliseconds a GET operation may take; 0: no deadline)
+     * @return QcClientConfig (fluent api)
+     */
+    public QcClientConfig setGetDeadline(long getDeadline) {
+        this.getDeadline = getDeadline;
+        return this;
+    }
+
+    /**
+     * @param writeDeadline long (milliseconds a POST or PUT of entities may take; 0: no deadline)
+     * @return QcClientConfig (fluent api)
+     */
+    public QcClientConfig setWriteDeadline(long writeDeadline) {
+        this.writeDeadline = writeDeadline;
+        return this;
+    }
+
+    /**
+     * @param attachmentDeadline long (milliseconds postAttachment may take, all its calls together; 0: no deadline)
+     * @return QcClientConfig (fluent api)
+     */
+    public QcClientConfig setAttachmentDeadline(long attachmentDeadline) {
+        this.attachmentDeadline = attachmentDeadline;
+        return this;
+    }
+
+    /**
+     * @param commitDeadline long (milliseconds a composite commit may take, all its calls together; 0: no deadline)
+     * @return QcClientConfig (fluent api)
+     */
+    public QcClientConfig setCommitDeadline(long commitDeadline) {
+        this.commitDeadline = commitDeadline;
+        return this;
+    }
+
+    /**
+     * Log in, open connections and prepare the XML mapping on a background thread when the client is created.
+     * The first calls then do not pay for it. QCRestClient.getReadiness() tells when the warm-up is done.
+     * @param warmUpEnabled boolean
+     * @return QcClientConfig (fluent api)
+     */
+    public QcClientConfig setWarmUpEnabled(boolean warmUpEnabled) {
+        this.warmUpEnabled = warmUpEnabled;
+        return this;
+    }
+
+    /**
+     * @param warmUpConnections int (connections opened by the warm-up, capped by the pool size per host)
+     * @return QcClientConfig (fluent api)
+     */
+    public QcClientConfig setWarmUpConnections(int warmUpConnections) {
+        this.warmUpConnections = warmUpConnections;
+        return this;
+    }
+
+    /**
+     * @param transport String (jersey or jdk)
+     * @return QcClientConfig (fluent api)
+     */
+    public QcClientConfig setTransport(String transport) {
+        this.transport = transport;
+        return this;
+    }
+
+    /**
+     * Plug in another HTTP library. Takes precedence over setTransport.
+     * @param transportFactory QcTransport.Factory
+     * @return QcClientConfig (fluent api)
+     */
+    public QcClientConfig setTransportFactory(QcTransport.Factory transportFactory) {
+        this.transportFactory = transportFactory;
+        return this;
+    }
+
+    /**
+     * Attachment uploads use a connection pool of their own, so they never take the connections of the entity calls.
+     * @param attachmentConnections int (connections of the attachment pool)
+     * @return QcClientConfig (fluent api)
+     */
+    public QcClientConfig setAttachmentConnections(int attachmentConnections) {
+        this.attachmentConnections = attachmentConnections;
+        return this;
+    }
+
+    /**
+     * More uploads wait for one to finish (within their deadline).
+     * @param attachmentCalls int (attachment uploads in flight at the same time)
+     * @return QcClientConfig (fluent api)
+     */
+    public QcClientConfig setAttachmentCalls(int attachmentCalls) {
+        this.attachmentCalls = attachmentCalls;
+        return this;
+    }
+
+    /**
+     * The entities and their collections are sent and asked for in this format.
+     * The domains, projects and attachments stay XML.
+     * @param format String (xml or json)
+     * @return QcClientConfig (fluent api)
+     */
+    public QcClientConfig setFormat(String format) {
+        this.format = format;
+        return this;
+    }
+
+    /**
+     * Read the field values of defects, runs and run steps only when they are used.
+     * The XML response is kept in memory and a value is decoded on its first getField;
+     * a reader that uses a few fields of many entities saves most of the decoding.
+     * Every entity of a response keeps the whole response in memory as long as it is referenced,
+     * even when it is the only entity kept: call QcEntity.materialize on the entities kept for longer.
+     * An entity lets go of the response by itself once every lazy field of it is overwritten or removed.
+     * JSON responses and the forEach... methods decode all fields right away.
+     * @param lazyFields boolean
+     * @return QcClientConfig (fluent api)
+     */
+    public QcClientConfig setLazyFields(boolean lazyFields) {
+        this.lazyFields = lazyFields;
+        return this;
+    }
+
+    /**
+     * Write XML entity bodies from templates: the markup of every entity type and list of field names is encoded once,
+     * after that only the values are escaped. Worth it when many entities of the same shape are posted, like run steps.
+     * The XML is the same. JSON bodies (qcclient.format=json) are not affected.
+     * @param writeTemplates boolean
+     * @return QcClientConfig (fluent api)
+     */
+    public QcClientConfig setWriteTemplates(boolean writeTemplates) {
+        this.writeTemplates = writeTemplates;
+        return this;
+    }
+
+    /**
+     * This configuration with the pool sizes of the attachment pool, to create the attachment transport with.
+     * @return QcClientConfig
+     */
+    QcClientConfig forAttachments() {
+        QcClientConfig copy;
+        try {
+            copy = (QcClientConfig) clone();
+        } catch(CloneNotSupportedException e) {
+            throw new AssertionError(e);
+        }
+        copy.maxConnectionsTotal = attachmentConnections;
+        copy.maxConnectionsPerRoute = attachmentConnections;
+        return copy;
+    }
+
+    static int intProperty(String name, int defaultValue) {
+        return Integer.parseInt(getProperty(name, String.valueOf(defaultValue)).trim());
+    }
+
+    static double doubleProperty(String name, double defaultValue) {
+        return Double.parseDouble(getProperty(name, String.valueOf(defaultValue)).trim());
+    }
+
+    static boolean booleanProperty(String name, boolean defaultValue) {
+        return Boolean.parseBoolean(getProperty(name, String.valueOf(defaultValue)).trim());
+    }
+}
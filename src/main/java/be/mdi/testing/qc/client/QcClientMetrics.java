@@ -0,0 +1,228 @@
+/*
+ * QC REST API client
+ *
+ * Copyright (C) 2019  matthias.dirickx@outlook.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package be.mdi.testing.qc.client;
+
+import be.mdi.testing.qc.model.QcType;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counters of one QCRestClient.
+ * Get them with QCRestClient.getMetrics(). All counters are cumulative since the creation of the client.
+ */
+public class QcClientMetrics {
+
+    private final AtomicLong requestBytes = new AtomicLong();
+    private final AtomicLong requestBytesOnWire = new AtomicLong();
+    private final AtomicLong compressedRequests = new AtomicLong();
+    private final AtomicLong responseBytes = new AtomicLong();
+    private final AtomicLong responseBytesOnWire = new AtomicLong();
+    private final AtomicLong compressedResponses = new AtomicLong();
+    private final AtomicLong retries = new AtomicLong();
+    private final AtomicLong retriesDenied = new AtomicLong();
+    private final AtomicLong concurrencyLimit = new AtomicLong();
+    private final AtomicLong limiterWaits = new AtomicLong();
+    private final AtomicLong rateLimitWaits = new AtomicLong();
+    private final AtomicLong rateLimitRejections = new AtomicLong();
+    private final AtomicLong circuitOpens = new AtomicLong();
+    private final AtomicLong circuitHalfOpens = new AtomicLong();
+    private final AtomicLong circuitCloses = new AtomicLong();
+    private final AtomicLong circuitRejections = new AtomicLong();
+    private final AtomicLong coalescedGets = new AtomicLong();
+    private final AtomicLong hedgesFired = new AtomicLong();
+    private final AtomicLong hedgesWon = new AtomicLong();
+    private final AtomicLong attachmentWaits = new AtomicLong();
+    private final Map<String, CircuitState> circuitStates = new ConcurrentHashMap<>();
+
+    /**
+     * @return long (size of the XML request bodies before compression)
+     */
+    public long getRequestBytes() { return requestBytes.get(); }
+
+    /**
+     * @return long (size of the XML request bodies as sent, compressed or not)
+     */
+    public long getRequestBytesOnWire() { return requestBytesOnWire.get(); }
+
+    public long getCompressedRequests() { return compressedRequests.get(); }
+
+    /**
+     * @return long (size of the compressed response bodies after decompression)
+     */
+    public long getResponseBytes() { return responseBytes.get(); }
+
+    /**
+     * @return long (size of the compressed response bodies as received)
+     */
+    public long getResponseBytesOnWire() { return responseBytesOnWire.get(); }
+
+    public long getCompressedResponses() { return compressedResponses.get(); }
+
+    public long getRetries() { return retries.get(); }
+
+    /**
+     * @return long (retries that were not done because the retry budget was used up)
+     */
+    public long getRetriesDenied() { return retriesDenied.get(); }
+
+    /**
+     * @return long (current number of calls the adaptive limiter lets through at the same time, 0 when disabled)
+     */
+    public long getConcurrencyLimit() { return concurrencyLimit.get(); }
+
+    /**
+     * @return long (times a call had to wait for the adaptive limiter)
+     */
+    public long getLimiterWaits() { return limiterWaits.get(); }
+
+    /**
+     * @return long (calls that waited for the rate limit of their project)
+     */
+    public long getRateLimitWaits() { return rateLimitWaits.get(); }
+
+    /**
+     * @return long (calls rejected by the rate limit of their project, see QcRateLimitException)
+     */
+    public long getRateLimitRejections() { return rateLimitRejections.get(); }
+
+    /**
+     * @return long (times a circuit breaker opened)
+     */
+    public long getCircuitOpens() { return circuitOpens.get(); }
+
+    /**
+     * @return long (times a circuit breaker let a trial call through after the open time)
+     */
+    public long getCircuitHalfOpens() { return circuitHalfOpens.get(); }
+
+    /**
+     * @return long (times a circuit breaker closed again after a successful trial call)
+     */
+    public long getCircuitCloses() { return circuitCloses.get(); }
+
+    /**
+     * @return long (calls that failed fast because their circuit breaker was open)
+     */
+    public long getCircuitRejections() { return circuitRejections.get(); }
+
+    /**
+     * @param qcType QcType
+     * @return CircuitState (of the endpoint of the type; CLOSED when it was not called yet)
+     */
+    public CircuitState getCircuitState(QcType qcType) {
+        CircuitState state = circuitStates.get(qcType.getRestUrlType());
+        return state == null ? CircuitState.CLOSED : state;
+    }
+
+    /**
+     * @return long (GETs that shared the call of an identical GET already in flight)
+     */
+    public long getCoalescedGets() { return coalescedGets.get(); }
+
+    /**
+     * @return long (GETs that were sent a second time because the first attempt was slow)
+     */
+    public long getHedgesFired() { return hedgesFired.get(); }
+
+    /**
+     * @return long (hedged GETs where the second attempt answered first)
+     */
+    public long getHedgesWon() { return hedgesWon.get(); }
+
+    /**
+     * @return long (times an attachment upload had to wait because the maximum number of uploads was in flight)
+     */
+    public long getAttachmentWaits() { return attachmentWaits.get(); }
+
+    void addRequest(long bytes, long bytesOnWire, boolean compressed) {
+        requestBytes.addAndGet(bytes);
+        requestBytesOnWire.addAndGet(bytesOnWire);
+        if(compressed) {
+            compressedRequests.incrementAndGet();
+        }
+    }
+
+    void addCompressedResponse() {
+        compressedResponses.incrementAndGet();
+    }
+
+    void addResponseBytes(long bytes, long bytesOnWire) {
+        responseBytes.addAndGet(bytes);
+        responseBytesOnWire.addAndGet(bytesOnWire);
+    }
+
+    void addRetry() {
+        retries.incrementAndGet();
+    }
+
+    void addRetryDenied() {
+        retriesDenied.incrementAndGet();
+    }
+
+    void setConcurrencyLimit(long limit) {
+        concurrencyLimit.set(limit);
+    }
+
+    void addLimiterWait() {
+        limiterWaits.incrementAndGet();
+    }
+
+    void addRateLimitWait() {
+        rateLimitWaits.incrementAndGet();
+    }
+
+    void addRateLimitRejection() {
+        rateLimitRejections.incrementAndGet();
+    }
+
+    void setCircuitState(String restUrlType, CircuitState state) {
+        circuitStates.put(restUrlType, state);
+    }
+
+    void onCircuitStateChange(String restUrlType, CircuitState state) {
+        circuitStates.put(restUrlType, state);
+        switch(state) {
+            case OPEN: circuitOpens.incrementAndGet(); break;
+            case HALF_OPEN: circuitHalfOpens.incrementAndGet(); break;
+            case CLOSED: circuitCloses.incrementAndGet(); break;
+        }
+    }
+
+    void addCircuitRejection() {
+        circuitRejections.incrementAndGet();
+    }
+
+    void addCoalescedGet() {
+        coalescedGets.incrementAndGet();
+    }
+
+    void addHedgeFired() {
+        hedgesFired.incrementAndGet();
+    }
+
+    void addHedgeWon() {
+        hedgesWon.incrementAndGet();
+    }
+
+    void addAttachmentWait() {
+        attachmentWaits.incrementAndGet();
+    }
+}
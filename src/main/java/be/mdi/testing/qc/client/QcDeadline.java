@@ -0,0 +1,151 @@
+/*
+ * QC REST API client
+ *
+ * Copyright (C) 2019  matthias.dirickx@outlook.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package be.mdi.testing.qc.client;
+
+import be.mdi.testing.qc.exception.QcDeadlineExceededException;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * A point in time by which an operation must be done, shared by all calls the operation makes.
+ *
+ * A deadline is started for the current thread and holds until it is closed:
+ *     try(QcDeadline deadline = QcDeadline.start(30000)) {
+ *         qcc.postEntity(run);
+ *         qcc.postEntities(steps);
+ *     }
+ * The QCRestClient operations start a deadline of their own (see the qcclient.deadline.* properties).
+ * A deadline started within another one never ends later than the outer one,
+ * so the inner calls of a composite operation (QcRunAndRunSteps.commit()) share its deadline.
+ *
+ * While a deadline is active, calls are not sent after it expired (QcDeadlineExceededException),
+ * the read timeout of a call is cut to the remaining time and retries, rate limits and
+ * concurrency limits do not wait past it.
+ */
+public final class QcDeadline implements AutoCloseable {
+
+    private static final ThreadLocal<QcDeadline> CURRENT = new ThreadLocal<>();
+
+    private final long expiresAt;
+    private final boolean unlimited;
+    private final QcDeadline outer;
+    private boolean closed;
+
+    private QcDeadline(long expiresAt, boolean unlimited, QcDeadline outer) {
+        this.expiresAt = expiresAt;
+        this.unlimited = unlimited;
+        this.outer = outer;
+    }
+
+    /**
+     * Start a deadline for the current thread. Close it when the operation is done.
+     * @param millis long (time the operation may take; 0 or less: no limit of its own)
+     * @return QcDeadline
+     */
+    public static QcDeadline start(long millis) {
+        QcDeadline outer = CURRENT.get();
+        QcDeadline deadline;
+        if(millis <= 0) {
+            deadline = outer == null
+                    ? new QcDeadline(0, true, null)
+                    : new QcDeadline(outer.expiresAt, outer.unlimited, outer);
+        } else {
+            long expiresAt = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(millis);
+            if(outer != null && !outer.unlimited && outer.expiresAt - expiresAt < 0) {
+                expiresAt = outer.expiresAt;
+            }
+            deadline = new QcDeadline(expiresAt, false, outer);
+        }
+        CURRENT.set(deadline);
+        return deadline;
+    }
+
+    /**
+     * @return QcDeadline (the deadline of the current thread, null when there is none)
+     */
+    public static QcDeadline current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * @return boolean (false when the deadline has no limit)
+     */
+    public boolean isLimited() { return !unlimited; }
+
+    public boolean isExpired() {
+        return !unlimited && remainingNanos() <= 0;
+    }
+
+    /**
+     * @return long (milliseconds left, Long.MAX_VALUE when not limited)
+     */
+    public long remainingMillis() {
+        return unlimited ? Long.MAX_VALUE : Math.max(0, TimeUnit.NANOSECONDS.toMillis(remainingNanos()));
+    }
+
+    long remainingNanos() {
+        return unlimited ? Long.MAX_VALUE : expiresAt - System.nanoTime();
+    }
+
+    /**
+     * Restore the deadline that was active before this one was started.
+     */
+    @Override
+    public void close() {
+        if(!closed) {
+            closed = true;
+            if(CURRENT.get() == this) {
+                CURRENT.set(outer);
+            }
+        }
+    }
+
+    /**
+     * Throw when the deadline of the current thread has expired.
+     * @param what String (what was about to be done, for the message)
+     */
+    static void check(String what) {
+        QcDeadline deadline = CURRENT.get();
+        if(deadline != null && deadline.isExpired()) {
+            throw new QcDeadlineExceededException("Deadline exceeded before " + what + ".");
+        }
+    }
+
+    /**
+     * @return long (nanoseconds left for the current thread, Long.MAX_VALUE without deadline)
+     */
+    static long remainingForCurrentThread() {
+        QcDeadline deadline = CURRENT.get();
+        return deadline == null ? Long.MAX_VALUE : deadline.remainingNanos();
+    }
+
+    /**
+     * Run on another thread with the given deadline (hedged calls, shared calls).
+     */
+    static <T> T callWithin(QcDeadline deadline, Supplier<T> call) {
+        QcDeadline previous = CURRENT.get();
+        CURRENT.set(deadline);
+        try {
+            return call.get();
+        } finally {
+            CURRENT.set(previous);
+        }
+    }
+}
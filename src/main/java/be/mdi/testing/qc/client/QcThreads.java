@@ -0,0 +1,118 @@
+/*
+ * QC REST API client
+ *
+ * Copyright (C) 2019  matthias.dirickx@outlook.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package be.mdi.testing.qc.client;
+
+import be.mdi.testing.qc.exception.QcClientException;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Executors used by the client.
+ *
+ * Virtual threads are looked up at runtime (Java 21 or later),
+ * so the client still compiles and runs on older JDKs when the virtual thread mode is off.
+ */
+public final class QcThreads {
+
+    private static final Method NEW_VIRTUAL_THREAD_EXECUTOR = findVirtualThreadExecutorFactory();
+
+    private QcThreads() {}
+
+    /**
+     * @return boolean (true when the running JDK supports virtual threads)
+     */
+    public static boolean virtualThreadsAvailable() {
+        return NEW_VIRTUAL_THREAD_EXECUTOR != null;
+    }
+
+    /**
+     * An executor that starts a new virtual thread per task.
+     * @return ExecutorService
+     * @throws QcClientException when the JDK has no virtual threads
+     */
+    public static ExecutorService newVirtualThreadExecutor() {
+        if(!virtualThreadsAvailable()) {
+            throw new QcClientException(
+                    "Virtual threads need Java 21 or later (running " + System.getProperty("java.version") + ")."
+            );
+        }
+        try {
+            return (ExecutorService) NEW_VIRTUAL_THREAD_EXECUTOR.invoke(null);
+        } catch(ReflectiveOperationException e) {
+            throw new QcClientException("Could not create the virtual thread executor.", e);
+        }
+    }
+
+    /**
+     * A fixed pool of daemon platform threads.
+     * @param name String (thread name prefix)
+     * @param threads int
+     * @return ExecutorService
+     */
+    public static ExecutorService newPlatformThreadPool(String name, int threads) {
+        final AtomicInteger count = new AtomicInteger();
+        return Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, name + "-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * The executor for the given configuration: virtual threads when enabled, else a fixed platform pool.
+     * @param config QcClientConfig
+     * @param name String (thread name prefix for the platform pool)
+     * @return ExecutorService
+     */
+    static ExecutorService newExecutor(QcClientConfig config, String name) {
+        return config.isVirtualThreads()
+                ? newVirtualThreadExecutor()
+                : newPlatformThreadPool(name, config.getAsyncThreads());
+    }
+
+    /**
+     * Like newExecutor, but the platform pool grows as needed and idle threads end after a minute.
+     * For tasks that must not queue behind each other (hedged calls).
+     * @param config QcClientConfig
+     * @param name String (thread name prefix for the platform pool)
+     * @return ExecutorService
+     */
+    static ExecutorService newCachedExecutor(QcClientConfig config, String name) {
+        if(config.isVirtualThreads()) {
+            return newVirtualThreadExecutor();
+        }
+        final AtomicInteger count = new AtomicInteger();
+        return Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, name + "-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    private static Method findVirtualThreadExecutorFactory() {
+        try {
+            return Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+        } catch(NoSuchMethodException e) {
+            return null;
+        }
+    }
+}
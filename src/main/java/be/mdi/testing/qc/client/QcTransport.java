@@ -0,0 +1,57 @@
+/*
+ * QC REST API client
+ *
+ * Copyright (C) 2019  matthias.dirickx@outlook.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package be.mdi.testing.qc.client;
+
+/**
+ * The HTTP layer under the RestCallHandler.
+ * Everything above it (session, retries, limits, gzip, XML mapping) does not depend on the HTTP library.
+ *
+ * Built in (qcclient.transport):
+ *     - jersey : Jersey 2 with a pooling Apache connector (default)
+ *     - jdk    : the java.net.http.HttpClient of the JDK, HTTP/2 when the server supports it
+ * Another implementation can be plugged in with QcClientConfig.setTransportFactory(...).
+ *
+ * A transport is used by many threads at the same time.
+ * After close() it may be used again; it then opens new connections.
+ */
+public interface QcTransport extends AutoCloseable {
+
+    /**
+     * Send a request and return as soon as the status and headers are in.
+     * The body of the response is read from QcTransportResponse.getBody() and the response must be closed.
+     * @param request QcTransportRequest
+     * @return QcTransportResponse
+     * @throws javax.ws.rs.ProcessingException when the call could not be done (no connection, timeout, ...),
+     *         with the cause of the failure (for example a java.net.ConnectException)
+     */
+    QcTransportResponse send(QcTransportRequest request);
+
+    /**
+     * Release the connections.
+     */
+    @Override
+    void close();
+
+    /**
+     * Creates the transport of a client.
+     */
+    interface Factory {
+        QcTransport create(QcClientConfig config);
+    }
+}
@@ -0,0 +1,133 @@
+/*
+ * QC REST API client
+ *
+ * Copyright (C) 2019  matthias.dirickx@outlook.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package be.mdi.testing.qc.client;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * The body of a QcTransportRequest: bytes in memory, content written while it is sent, or a stream.
+ *
+ * Bytes can be sent any number of times, so calls with such a body can be retried.
+ * Content (a large collection of entities) is written straight to the request and written again when it is sent again.
+ * A stream (an attachment) is read while it is sent and can only be sent once.
+ */
+public final class QcTransportBody {
+
+    private final String contentType;
+    private final byte[] bytes;
+    private final int length;
+    private final Content content;
+    private final InputStream stream;
+
+    private QcTransportBody(String contentType, byte[] bytes, int length, Content content, InputStream stream) {
+        this.contentType = contentType;
+        this.bytes = bytes;
+        this.length = length;
+        this.content = content;
+        this.stream = stream;
+    }
+
+    /**
+     * Writes the body to the request while it is sent.
+     */
+    public interface Content {
+        /**
+         * @param out OutputStream (not to be closed)
+         * @throws IOException when writing fails
+         */
+        void writeTo(OutputStream out) throws IOException;
+    }
+
+    /**
+     * @param contentType String
+     * @param bytes byte[] (not copied: do not change it while the body is in use)
+     * @param length int (number of bytes of the array that make up the body)
+     * @return QcTransportBody
+     */
+    public static QcTransportBody ofBytes(String contentType, byte[] bytes, int length) {
+        return new QcTransportBody(contentType, bytes, length, null, null);
+    }
+
+    /**
+     * @param contentType String
+     * @param content Content (called each time the body is sent; writes the same body every time)
+     * @return QcTransportBody
+     */
+    public static QcTransportBody ofContent(String contentType, Content content) {
+        return new QcTransportBody(contentType, null, -1, content, null);
+    }
+
+    /**
+     * @param contentType String
+     * @param stream InputStream (read up to the end while sending; not closed)
+     * @return QcTransportBody
+     */
+    public static QcTransportBody ofStream(String contentType, InputStream stream) {
+        return new QcTransportBody(contentType, null, -1, null, stream);
+    }
+
+    public String getContentType() { return contentType; }
+
+    /**
+     * @return boolean (true for bytes and content: they can be sent again)
+     */
+    public boolean isRepeatable() { return stream == null; }
+
+    /**
+     * @return byte[] (null for content and a stream; only the first getLength() bytes belong to the body)
+     */
+    public byte[] getBytes() { return bytes; }
+
+    /**
+     * @return int (-1 for content and a stream: the length is not known up front)
+     */
+    public int getLength() { return length; }
+
+    /**
+     * @return Content (null for bytes and a stream)
+     */
+    public Content getContent() { return content; }
+
+    /**
+     * @return InputStream (null for bytes and content)
+     */
+    public InputStream getStream() { return stream; }
+
+    /**
+     * Write the body, for transports that send from an OutputStream.
+     * @param out OutputStream
+     * @throws IOException when writing or reading the stream fails
+     */
+    public void writeTo(OutputStream out) throws IOException {
+        if(bytes != null) {
+            out.write(bytes, 0, length);
+            return;
+        }
+        if(content != null) {
+            content.writeTo(out);
+            return;
+        }
+        byte[] buffer = new byte[8192];
+        for(int n = stream.read(buffer); n >= 0; n = stream.read(buffer)) {
+            out.write(buffer, 0, n);
+        }
+    }
+}
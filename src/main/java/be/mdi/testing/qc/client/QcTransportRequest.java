@@ -0,0 +1,56 @@
+/*
+ * QC REST API client
+ *
+ * Copyright (C) 2019  matthias.dirickx@outlook.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package be.mdi.testing.qc.client;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * One HTTP request as handed to a QcTransport.
+ */
+public final class QcTransportRequest {
+
+    private final String method;
+    private final String uri;
+    private final Map<String, String> headers;
+    private final QcTransportBody body;
+    private final int readTimeout;
+
+    /**
+     * @param method String (GET, POST, PUT, ...)
+     * @param uri String (absolute)
+     * @param headers Map (name to value; copied)
+     * @param body QcTransportBody (null: no body)
+     * @param readTimeout int (milliseconds to wait for data; 0: the timeout of the configuration)
+     */
+    public QcTransportRequest(String method, String uri, Map<String, String> headers, QcTransportBody body, int readTimeout) {
+        this.method = method;
+        this.uri = uri;
+        this.headers = Collections.unmodifiableMap(new LinkedHashMap<>(headers));
+        this.body = body;
+        this.readTimeout = readTimeout;
+    }
+
+    public String getMethod() { return method; }
+    public String getUri() { return uri; }
+    public Map<String, String> getHeaders() { return headers; }
+    public QcTransportBody getBody() { return body; }
+    public int getReadTimeout() { return readTimeout; }
+}
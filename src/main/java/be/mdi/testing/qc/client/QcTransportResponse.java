@@ -0,0 +1,52 @@
+/*
+ * QC REST API client
+ *
+ * Copyright (C) 2019  matthias.dirickx@outlook.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package be.mdi.testing.qc.client;
+
+import java.io.InputStream;
+import java.util.List;
+
+/**
+ * The response to a QcTransportRequest.
+ * The body is streamed: it is read from the connection while getBody() is read.
+ * close() releases the connection, whether the body was read or not.
+ */
+public interface QcTransportResponse extends AutoCloseable {
+
+    int getStatus();
+
+    /**
+     * @param name String (case insensitive)
+     * @return String (first value; null when the header is not there)
+     */
+    String getHeader(String name);
+
+    /**
+     * @param name String (case insensitive)
+     * @return List (all values; empty when the header is not there)
+     */
+    List<String> getHeaders(String name);
+
+    /**
+     * @return InputStream (empty when there is no body)
+     */
+    InputStream getBody();
+
+    @Override
+    void close();
+}
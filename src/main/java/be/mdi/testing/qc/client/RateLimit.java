@@ -0,0 +1,81 @@
+/*
+ * QC REST API client
+ *
+ * Copyright (C) 2019  matthias.dirickx@outlook.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package be.mdi.testing.qc.client;
+
+/**
+ * Token bucket rate limit for the calls on one QC project.
+ *
+ * The bucket holds up to burst tokens and is refilled at permitsPerSecond.
+ * Every call (retries included) takes one token.
+ * When the bucket is empty, the call waits for a token, at most maxWaitMillis.
+ * When the wait would be longer, a QcRateLimitException is thrown without calling the server.
+ * With maxWaitMillis 0 calls are rejected right away (fast rejection).
+ *
+ * All setters return the rate limit (fluent api).
+ */
+public class RateLimit {
+
+    private double permitsPerSecond;
+    private int burst;
+    private long maxWaitMillis;
+
+    /**
+     * @param permitsPerSecond double (calls per second allowed on average)
+     */
+    public RateLimit(double permitsPerSecond) {
+        this(permitsPerSecond, Math.max(1, (int) permitsPerSecond), 10000);
+    }
+
+    RateLimit(double permitsPerSecond, int burst, long maxWaitMillis) {
+        this.permitsPerSecond = permitsPerSecond;
+        this.burst = burst;
+        this.maxWaitMillis = maxWaitMillis;
+    }
+
+    public double getPermitsPerSecond() { return permitsPerSecond; }
+    public int getBurst() { return burst; }
+    public long getMaxWaitMillis() { return maxWaitMillis; }
+
+    /**
+     * @param permitsPerSecond double (calls per second allowed on average)
+     * @return RateLimit (fluent api)
+     */
+    public RateLimit setPermitsPerSecond(double permitsPerSecond) {
+        this.permitsPerSecond = permitsPerSecond;
+        return this;
+    }
+
+    /**
+     * @param burst int (calls that may be done at once after a quiet period)
+     * @return RateLimit (fluent api)
+     */
+    public RateLimit setBurst(int burst) {
+        this.burst = Math.max(1, burst);
+        return this;
+    }
+
+    /**
+     * @param maxWaitMillis long (longest wait for a token; 0 to reject right away)
+     * @return RateLimit (fluent api)
+     */
+    public RateLimit setMaxWaitMillis(long maxWaitMillis) {
+        this.maxWaitMillis = maxWaitMillis;
+        return this;
+    }
+}
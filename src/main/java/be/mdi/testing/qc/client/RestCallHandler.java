@@ -18,117 +18,589 @@
  */
 package be.mdi.testing.qc.client;
 
+import be.mdi.testing.qc.exception.QcClientException;
+import be.mdi.testing.qc.exception.QcDeadlineExceededException;
 import be.mdi.testing.qc.model.entities.QcAttachment;
 import be.mdi.testing.qc.model.entities.QcEntities;
 import be.mdi.testing.qc.model.entities.QcEntity;
-import org.glassfish.jersey.client.filter.HttpBasicAuthFilter;
+import com.fasterxml.jackson.core.JsonProcessingException;
 
-import javax.ws.rs.client.*;
-import javax.ws.rs.core.MediaType;
-import javax.ws.rs.core.Response;
+import javax.ws.rs.ProcessingException;
+import javax.xml.bind.JAXBException;
+import javax.xml.stream.XMLStreamException;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.PushbackInputStream;
+import java.io.UncheckedIOException;
+import java.net.ConnectException;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
 class RestCallHandler {
 
+    private static final String OCTET_STREAM = "application/octet-stream";
+
     private final String host;
-    private final String username;
-    private final String password;
-    private String sessionKey;
+    private final QcClientConfig config;
+    private final QcClientMetrics metrics;
+    private final QcTransport transport;
+    private final QcTransport attachmentTransport;
+    private final Bulkhead attachmentBulkhead;
+    private final GzipCodec gzip;
+    private final SessionManager sessionManager;
+    private final RetryBudget retryBudget;
+    private final ConcurrencyLimiter limiter;
+    private final ProjectRateLimiter rateLimiter;
+    private final ConcurrentMap<String, CircuitBreaker> circuitBreakers = new ConcurrentHashMap<>();
+    private final SingleFlight singleFlight;
+    private final HedgedGet hedgedGet;
+    private final EntityFormat format;
+    private final boolean lazyFields;
+    private final EntityXmlTemplates xmlTemplates;
+    /**
+     * The threads of a warm-up that may still run, stopped on close.
+     */
+    private volatile ExecutorService warmUpExecutor;
 
-    RestCallHandler(String host, String username, String password) {
+    RestCallHandler(String host, String username, String password, QcClientConfig config) {
         this.host = host;
-        this.username = username;
-        this.password = password;
+        this.config = config;
+        this.metrics = new QcClientMetrics();
+        this.retryBudget = new RetryBudget(config.getRetryBudgetRatio(), config.getRetryBudgetMax());
+        this.limiter = config.isLimiterEnabled() ? new ConcurrencyLimiter(config, metrics) : null;
+        this.rateLimiter = new ProjectRateLimiter(config, metrics);
+        this.singleFlight = new SingleFlight(metrics);
+        this.hedgedGet = config.isHedgeEnabled() ? new HedgedGet(config, metrics) : null;
+        this.format = EntityFormat.of(config.getFormat());
+        this.lazyFields = config.isLazyFields();
+        this.xmlTemplates = config.isWriteTemplates() && format == EntityFormat.XML ? new EntityXmlTemplates() : null;
+        this.transport = config.getTransportFactory().create(config);
+        this.attachmentTransport = config.getTransportFactory().create(config.forAttachments());
+        this.attachmentBulkhead = new Bulkhead(config.getAttachmentCalls(), metrics);
+        this.gzip = new GzipCodec(config, metrics);
+        this.sessionManager = new SessionManager(host, username, password, transport, config);
     }
 
+    /**
+     * GET and unmarshal.
+     * Identical GETs (same url and return type) that run at the same time share one call when qcclient.get.coalesce
+     * is on. They share the body of the response, not the result: every caller reads its own object from it.
+     * Slow GETs are hedged when qcclient.hedge.enabled is on.
+     */
     <T> T getRestData(Class<T> retType, String restUrl) {
-        Invocation.Builder invocationBuilder = buildRestRequest(restUrl);
-        return invocationBuilder.get().readEntity(retType);
+        Map<String, String> headers = EntityTypes.isKnown(retType) ? entityHeaders() : Collections.<String, String>emptyMap();
+        if(!config.isCoalesceGets()) {
+            return get(restUrl, headers, response -> read(retType, response));
+        }
+        ResponseBody body = singleFlight.execute(
+                retType.getName() + " " + restUrl, () -> get(restUrl, headers, this::readBody));
+        return read(retType, new ByteArrayInputStream(body.bytes), body.contentType, body.status);
+    }
+
+    private <T> T get(String restUrl, Map<String, String> headers, Function<QcTransportResponse, T> reader) {
+        if(hedgedGet == null) {
+            return reader.apply(execute("GET", restUrl, null, headers));
+        }
+        return hedgedGet.execute(cancelled -> {
+            QcTransportResponse response = execute("GET", restUrl, null, headers);
+            if(cancelled.getAsBoolean()) {
+                response.close();
+                return null;
+            }
+            return reader.apply(response);
+        });
+    }
+
+    /**
+     * GET an Entities collection and hand the entities to the action one at a time, while the response is read.
+     * Not coalesced nor hedged: the entities go to the action of this caller only.
+     * A failure half way is not retried, as the action has seen part of the entities.
+     * @return int (number of entities read)
+     */
+    <T> int forEachRestData(Class<T> entityType, String restUrl, Consumer<? super T> action) {
+        QcTransportResponse response = execute("GET", restUrl, null, entityHeaders());
+        try(QcTransportResponse closed = response) {
+            return EntityFormat.ofContentType(closed.getHeader("Content-Type"), format)
+                    .readEach(entityType, gzip.decode(closed), action);
+        } catch(JsonProcessingException | XMLStreamException e) {
+            throw new QcClientException(
+                    "Could not read the " + entityType.getSimpleName() + " entities in the response (HTTP " + response.getStatus() + ").", e);
+        } catch(IOException e) {
+            throw new ProcessingException("Could not read the response: " + e.getMessage(), e);
+        }
     }
 
     Integer postRestData(QcEntity qcEntity, String restUrl) {
-        Invocation.Builder invocationBuilder = buildRestRequest(restUrl);
-        Response response = invocationBuilder.post(Entity.entity(qcEntity, MediaType.APPLICATION_XML_TYPE));
-        return response.getStatus();
+        return status(execute("POST", restUrl, body(qcEntity), entityHeaders()));
     }
 
     <T> T postRestData(Class<T> retType, QcEntity qcEntity, String restUrl) {
-        Invocation.Builder invocationBuilder = buildRestRequest(restUrl);
-        return invocationBuilder.post(Entity.entity(qcEntity, MediaType.APPLICATION_XML_TYPE)).readEntity(retType);
+        return read(retType, execute("POST", restUrl, body(qcEntity), entityHeaders()));
     }
 
     Integer postRestData(QcEntities qcEntity, String restUrl) {
-        Invocation.Builder invocationBuilder = buildRestRequest(restUrl);
-        Response response = invocationBuilder.post(Entity.entity(qcEntity, MediaType.APPLICATION_XML_TYPE));
-        return response.getStatus();
+        return status(execute("POST", restUrl, streamedBody(qcEntity), entityHeaders()));
     }
 
     <T> T postRestData(Class<T> retType, QcEntities qcEntities, String restUrl) {
-        Invocation.Builder invocationBuilder = buildRestRequest(restUrl);
-        return invocationBuilder.post(Entity.entity(qcEntities, MediaType.APPLICATION_XML_TYPE)).readEntity(retType);
+        return read(retType, execute("POST", restUrl, streamedBody(qcEntities), entityHeaders()));
     }
 
     Integer putRestData(QcEntity qcEntity, String restUrl) {
-        Invocation.Builder invocationBuilder = buildRestRequest(restUrl);
-        Response response = invocationBuilder.put(Entity.entity(qcEntity, MediaType.APPLICATION_XML));
-        return response.getStatus();
+        return status(execute("PUT", restUrl, body(qcEntity), entityHeaders()));
     }
 
     <T> T putRestData(Class<T> retType, QcEntity qcEntity, String restUrl) {
-        Invocation.Builder invocationBuilder = buildRestRequest(restUrl);
-        return invocationBuilder
-                .post(
-                        Entity.entity(qcEntity, MediaType.APPLICATION_XML_TYPE)
-                )
-                .readEntity(retType);
+        return read(retType, execute("PUT", restUrl, body(qcEntity), entityHeaders()));
     }
 
     QcAttachment postAttachment(InputStream inputStream, String fileName, String restUrl) {
-        Invocation.Builder invocationBuilder = buildRestRequest(restUrl);
-        invocationBuilder.header("Slug", fileName);
-        return invocationBuilder
-                .post(Entity.entity(inputStream, MediaType.APPLICATION_OCTET_STREAM_TYPE))
-                .readEntity(QcAttachment.class);
+        return read(QcAttachment.class, execute(
+                "POST",
+                restUrl,
+                QcTransportBody.ofStream(OCTET_STREAM, inputStream),
+                Collections.singletonMap("Slug", fileName)
+        ));
     }
 
     QcAttachment putAttachment(InputStream inputStream, String fileName, String restUrl) {
-        Invocation.Builder invocationbuilder = buildRestRequest(restUrl);
-        invocationbuilder.header("Slug", fileName);
-        return invocationbuilder
-                .put(Entity.entity(inputStream, MediaType.APPLICATION_OCTET_STREAM_TYPE))
-                .readEntity(QcAttachment.class);
+        return read(QcAttachment.class, execute(
+                "PUT",
+                restUrl,
+                QcTransportBody.ofStream(OCTET_STREAM, inputStream),
+                Collections.singletonMap("Slug", fileName)
+        ));
+    }
+
+    QcClientMetrics getMetrics() {
+        return metrics;
     }
 
     void login() {
-        Client client = ClientBuilder.newClient();
-        client.register(new HttpBasicAuthFilter(username, password));
-        WebTarget webTarget = client.target(host + "/qcbin/authentication-point/authenticate");
-        Response response = webTarget.request(MediaType.TEXT_PLAIN_TYPE).get();
-        sessionKey = response.getHeaderString("Set-Cookie").split("=")[1].split(" ")[0];
+        sessionManager.login();
     }
 
+    /**
+     * Log out and release the pooled connections.
+     * A later call opens a new client.
+     */
     void logout() {
-        buildRestRequest("/qcbin/authentication-point/logout").get();
+        String sessionKey = sessionManager.peekSessionKey();
+        if(sessionKey != null) {
+            invoke("GET", "authentication-point/logout", null, Collections.<String, String>emptyMap(), sessionKey).close();
+        }
+        sessionManager.clear();
+        close();
     }
 
+    void close() {
+        transport.close();
+        attachmentTransport.close();
+        if(hedgedGet != null) {
+            hedgedGet.close();
+        }
+        ExecutorService warmUpExecutor = this.warmUpExecutor;
+        if(warmUpExecutor != null) {
+            warmUpExecutor.shutdown();
+        }
+    }
+
+    /**
+     * Prepare the client in the background so the first calls do not pay for it:
+     *     - log in and open qcclient.warmup.connections pooled connections (parallel is-authenticated calls),
+     *     - create the JAXBContexts and a pooled unmarshaller of the classes read with JAXB (see JaxbContexts).
+     * Both run at the same time. The future fails when the login or a call failed;
+     * the client stays usable and simply does the same work again on the first calls.
+     * @return CompletableFuture (completes when the warm-up is done)
+     */
+    CompletableFuture<Void> warmUp() {
+        final ExecutorService executor = QcThreads.newCachedExecutor(config, "qcclient-warmup");
+        warmUpExecutor = executor;
+        CompletableFuture<Void> contexts = CompletableFuture.runAsync(() -> {
+            try {
+                for(Class<?> type : JaxbContexts.knownClasses()) {
+                    JaxbContexts.prepare(type);
+                }
+            } catch(JAXBException e) {
+                throw new QcClientException("Could not prepare the XML mapping.", e);
+            }
+        }, executor);
+        CompletableFuture<Void> connections = CompletableFuture
+                .supplyAsync(sessionManager::getSessionKey, executor)
+                .thenCompose(sessionKey -> openConnections(sessionKey, executor));
+        CompletableFuture<Void> ready = CompletableFuture.allOf(contexts, connections);
+        ready.whenComplete((done, failure) -> executor.shutdown());
+        return ready;
+    }
+
+    /**
+     * The calls run in parallel so each of them needs a connection of its own.
+     */
+    private CompletableFuture<Void> openConnections(String sessionKey, ExecutorService executor) {
+        int connections = Math.min(config.getWarmUpConnections(), config.getMaxConnectionsPerRoute());
+        CompletableFuture<?>[] calls = new CompletableFuture<?>[Math.max(0, connections)];
+        for(int i = 0; i < calls.length; i++) {
+            calls[i] = CompletableFuture.runAsync(
+                    () -> status(invoke("GET", "rest/is-authenticated", null,
+                            Collections.<String, String>emptyMap(), sessionKey)), executor);
+        }
+        return CompletableFuture.allOf(calls);
+    }
+
+    /**
+     * Explicit check of the session on the server.
+     * Regular calls do not use this: the SessionManager decides when to authenticate.
+     * @return boolean
+     */
     boolean isLoggedIn() {
-        Client client = ClientBuilder.newClient();
-        WebTarget webTarget = client.target(host + "/qcbin/rest/is-authenticated");
-        Response response = webTarget.request(MediaType.TEXT_PLAIN_TYPE)
-                .header("Cookie", "LWSSO_COOKIE_KEY=" + sessionKey)
-                .get();
-        return response.getStatus() == 200 ? true : false;
+        String sessionKey = sessionManager.peekSessionKey();
+        if(sessionKey == null) {
+            return false;
+        }
+        return status(invoke("GET", "rest/is-authenticated", null, Collections.<String, String>emptyMap(), sessionKey)) == 200;
+    }
+
+    /**
+     * Execute a call, retrying transient failures according to the RetryPolicy of the entity type.
+     * See RetryPolicy for what is retried and how long is waited in between.
+     */
+    private QcTransportResponse execute(String method, String restUrl, QcTransportBody body, Map<String, String> headers) {
+        RestUrl url = RestUrl.parse(restUrl);
+        RetryPolicy policy = config.getRetryPolicy(url.getRestUrlType());
+        boolean replayable = isReplayable(body);
+        boolean safe = !"POST".equals(method) || policy.isRetryPost();
+        retryBudget.onCall();
+
+        for(int attempt = 1; ; attempt++) {
+            QcDeadline.check(method + " " + restUrl);
+            boolean lastAttempt = !replayable || attempt >= policy.getMaxAttempts();
+            QcTransportResponse response;
+            try {
+                response = executeLimited(url, method, restUrl, body, headers);
+            } catch(ProcessingException e) {
+                QcDeadline deadline = QcDeadline.current();
+                if(deadline != null && deadline.isExpired()) {
+                    throw new QcDeadlineExceededException("Deadline exceeded during " + method + " " + restUrl + ".", e);
+                }
+                //A POST that could not connect never reached the server, so it is safe as well.
+                long wait = policy.backoff(attempt, ThreadLocalRandom.current().nextDouble());
+                if(lastAttempt || !(safe || isConnectFailure(e)) || !takeRetry(wait)) {
+                    throw e;
+                }
+                pause(wait);
+                continue;
+            }
+
+            if(lastAttempt || !safe || !policy.isRetryable(response.getStatus())) {
+                return response;
+            }
+            long wait = retryAfter(response, policy.backoff(attempt, ThreadLocalRandom.current().nextDouble()));
+            if(wait > policy.getMaxRetryAfterMillis() || !takeRetry(wait)) {
+                return response;
+            }
+            response.close();
+            pause(wait);
+        }
+    }
+
+    /**
+     * Execute one attempt within the rate limit of the project, the circuit breaker of the endpoint
+     * and the adaptive concurrency limit.
+     * The rate limit is waited for first, so waiting calls do not hold a concurrency slot.
+     */
+    private QcTransportResponse executeLimited(RestUrl url, String method, String restUrl, QcTransportBody body, Map<String, String> headers) {
+        rateLimiter.acquire(url);
+        CircuitBreaker breaker = circuitBreakerOf(url);
+        if(breaker == null) {
+            return executeWithinLimit(method, restUrl, body, headers);
+        }
+
+        breaker.acquire();
+        QcTransportResponse response;
+        try {
+            response = executeWithinLimit(method, restUrl, body, headers);
+        } catch(ProcessingException e) {
+            breaker.onFailure();
+            throw e;
+        } catch(RuntimeException e) {
+            breaker.onIgnored();
+            throw e;
+        }
+        if(CircuitBreaker.isFailure(response.getStatus())) {
+            breaker.onFailure();
+        } else {
+            breaker.onSuccess();
+        }
+        return response;
+    }
+
+    /**
+     * The round trip is measured up to the response headers; reading the body is not included.
+     * Attachment uploads are limited by their own bulkhead instead of the adaptive limit.
+     */
+    private QcTransportResponse executeWithinLimit(String method, String restUrl, QcTransportBody body, Map<String, String> headers) {
+        if(isUpload(body)) {
+            attachmentBulkhead.acquire();
+            try {
+                return executeInSession(method, restUrl, body, headers);
+            } finally {
+                attachmentBulkhead.release();
+            }
+        }
+        if(limiter == null) {
+            return executeInSession(method, restUrl, body, headers);
+        }
+        limiter.acquire();
+        long start = System.nanoTime();
+        boolean overloaded = false;
+        try {
+            QcTransportResponse response = executeInSession(method, restUrl, body, headers);
+            overloaded = ConcurrencyLimiter.isOverload(response.getStatus());
+            return response;
+        } catch(ProcessingException e) {
+            overloaded = true;
+            throw e;
+        } finally {
+            limiter.release(System.nanoTime() - start, overloaded);
+        }
+    }
+
+    private CircuitBreaker circuitBreakerOf(RestUrl url) {
+        if(!config.isBreakerEnabled() || url.getRestUrlType() == null) {
+            return null;
+        }
+        return circuitBreakers.computeIfAbsent(
+                url.getRestUrlType(), type -> new CircuitBreaker(type, config, metrics));
+    }
+
+    /**
+     * Execute a call with the current session.
+     * When the server rejects the session (401), the session is renewed and the call is sent once more.
+     * Streamed bodies (attachments) are not sent again as the stream has been consumed.
+     */
+    private QcTransportResponse executeInSession(String method, String restUrl, QcTransportBody body, Map<String, String> headers) {
+        String sessionKey = sessionManager.getSessionKey();
+        QcTransportResponse response = invoke(method, restUrl, body, headers, sessionKey);
+
+        if(response.getStatus() == 401) {
+            sessionManager.invalidate(sessionKey);
+            if(isReplayable(body)) {
+                response.close();
+                response = invoke(method, restUrl, body, headers, sessionManager.getSessionKey());
+            }
+        }
+        return response;
+    }
+
+    private QcTransportResponse invoke(String method, String restUrl, QcTransportBody body, Map<String, String> headers, String sessionKey) {
+        Map<String, String> requestHeaders = new LinkedHashMap<>(headers);
+        requestHeaders.putIfAbsent("Accept", "*/*");
+        requestHeaders.put("Cookie", SessionManager.COOKIE_NAME + "=" + sessionKey);
+        gzip.acceptGzip(requestHeaders);
+        QcTransportBody sent = body == null ? null : gzip.encode(body, requestHeaders);
+        QcTransport lane = isUpload(body) ? attachmentTransport : transport;
+        return lane.send(new QcTransportRequest(method, host + "/qcbin/" + restUrl, requestHeaders, sent, readTimeout()));
+    }
+
+    /**
+     * The read timeout of a call within a deadline: the configured timeout, cut to the time that is left.
+     * Rounded up, so a timeout means the deadline has passed. 0 when there is no deadline.
+     */
+    private int readTimeout() {
+        long remaining = QcDeadline.remainingForCurrentThread();
+        if(remaining == Long.MAX_VALUE) {
+            return 0;
+        }
+        long remainingMillis = Math.max(1, TimeUnit.NANOSECONDS.toMillis(remaining + 999999));
+        return config.getReadTimeout() > 0
+                ? (int) Math.min(config.getReadTimeout(), remainingMillis)
+                : (int) Math.min(Integer.MAX_VALUE, remainingMillis);
+    }
+
+    /**
+     * The body of an entity, in the configured format. It is written once and sent again as it is on a retry.
+     */
+    private QcTransportBody body(QcEntity entity) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(1024);
+        try {
+            if(xmlTemplates != null) {
+                xmlTemplates.write(entity, out);
+            } else {
+                format.write(entity, out);
+            }
+        } catch(IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return QcTransportBody.ofBytes(format.getMediaType(), out.toByteArray(), out.size());
+    }
+
+    /**
+     * The body of a collection of entities, in the configured format.
+     * It is written entity by entity while it is sent, and written again on a retry.
+     */
+    private QcTransportBody streamedBody(QcEntities entities) {
+        return QcTransportBody.ofContent(format.getMediaType(), out -> {
+            if(xmlTemplates != null) {
+                xmlTemplates.write(entities, out);
+            } else {
+                format.write(entities, out);
+            }
+        });
+    }
+
+    /**
+     * The headers of an entity call. The server answers XML by default, JSON has to be asked for.
+     */
+    private Map<String, String> entityHeaders() {
+        return format == EntityFormat.XML
+                ? Collections.<String, String>emptyMap()
+                : Collections.singletonMap("Accept", format.getMediaType());
+    }
+
+    /**
+     * Read the body of a response and close it. Null when there is no body.
+     * Entities are read in the format of the response, the other classes are XML.
+     * With lazy fields, an XML response is read in one piece and its field values are decoded when used.
+     */
+    private <T> T read(Class<T> retType, QcTransportResponse response) {
+        try(QcTransportResponse closed = response) {
+            return read(retType, gzip.decode(closed), closed.getHeader("Content-Type"), closed.getStatus());
+        } catch(IOException e) {
+            throw new ProcessingException("Could not read the response: " + e.getMessage(), e);
+        }
+    }
+
+    private <T> T read(Class<T> retType, InputStream body, String contentType, int status) {
+        try {
+            PushbackInputStream in = new PushbackInputStream(body);
+            int first = in.read();
+            if(first < 0) {
+                return null;
+            }
+            in.unread(first);
+            if(!EntityTypes.isKnown(retType)) {
+                return JaxbContexts.unmarshal(retType, in);
+            }
+            EntityFormat responseFormat = EntityFormat.ofContentType(contentType, format);
+            return lazyFields && responseFormat == EntityFormat.XML
+                    ? EntityXmlScanner.read(retType, in.readAllBytes())
+                    : responseFormat.read(retType, in);
+        } catch(JsonProcessingException | JAXBException | XMLStreamException e) {
+            throw new QcClientException(
+                    "Could not read the " + retType.getSimpleName() + " in the response (HTTP " + status + ").", e);
+        } catch(IOException e) {
+            throw new ProcessingException("Could not read the response: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Read the whole body of a response and close it, for a GET that is shared by several callers.
+     */
+    private ResponseBody readBody(QcTransportResponse response) {
+        try(QcTransportResponse closed = response) {
+            return new ResponseBody(gzip.decode(closed).readAllBytes(), closed.getHeader("Content-Type"), closed.getStatus());
+        } catch(IOException e) {
+            throw new ProcessingException("Could not read the response: " + e.getMessage(), e);
+        }
     }
 
-    private Invocation.Builder buildRestRequest(String restUrl) {
-        Client client = ClientBuilder.newClient();
-        WebTarget webTarget = client.target(host + "/qcbin/" + restUrl);
+    /**
+     * A retry is only done when it can start before the deadline and the retry budget allows it.
+     */
+    private boolean takeRetry(long waitMillis) {
+        if(TimeUnit.MILLISECONDS.toNanos(waitMillis) >= QcDeadline.remainingForCurrentThread()) {
+            return false;
+        }
+        if(retryBudget.tryRetry()) {
+            metrics.addRetry();
+            return true;
+        }
+        metrics.addRetryDenied();
+        return false;
+    }
 
-        if(!isLoggedIn()) {
-            login();
+    private static boolean isReplayable(QcTransportBody body) {
+        return body == null || body.isRepeatable();
+    }
+
+    /**
+     * Attachments are the only bodies read from a stream.
+     */
+    private static boolean isUpload(QcTransportBody body) {
+        return body != null && !body.isRepeatable();
+    }
+
+    private static boolean isConnectFailure(Throwable throwable) {
+        for(Throwable cause = throwable; cause != null; cause = cause.getCause()) {
+            if(cause instanceof ConnectException) {
+                return true;
+            }
         }
+        return false;
+    }
 
-        Invocation.Builder invocationBuilder = webTarget.request(MediaType.WILDCARD_TYPE);
-        return invocationBuilder.header("Cookie", "LWSSO_COOKIE_KEY=" + sessionKey);
+    /**
+     * The wait asked for by the Retry-After header (seconds or an HTTP date), else the backoff.
+     */
+    private static long retryAfter(QcTransportResponse response, long backoff) {
+        String retryAfter = response.getHeader("Retry-After");
+        if(retryAfter == null) {
+            return backoff;
+        }
+        retryAfter = retryAfter.trim();
+        try {
+            return Math.max(0, Long.parseLong(retryAfter) * 1000L);
+        } catch(NumberFormatException e) {
+            try {
+                ZonedDateTime date = ZonedDateTime.parse(retryAfter, DateTimeFormatter.RFC_1123_DATE_TIME);
+                return Math.max(0, date.toInstant().toEpochMilli() - System.currentTimeMillis());
+            } catch(DateTimeParseException unparsable) {
+                return backoff;
+            }
+        }
+    }
+
+    private static void pause(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch(InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new QcClientException("Interrupted while waiting to retry a call.", e);
+        }
+    }
+
+    private static int status(QcTransportResponse response) {
+        int status = response.getStatus();
+        response.close();
+        return status;
+    }
+
+    /**
+     * The body of a shared GET, read once and decoded by every caller on its own.
+     */
+    private static final class ResponseBody {
+        private final byte[] bytes;
+        private final String contentType;
+        private final int status;
+
+        ResponseBody(byte[] bytes, String contentType, int status) {
+            this.bytes = bytes;
+            this.contentType = contentType;
+            this.status = status;
+        }
     }
 }
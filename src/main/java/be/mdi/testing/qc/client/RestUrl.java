@@ -0,0 +1,60 @@
+/*
+ * QC REST API client
+ *
+ * Copyright (C) 2019  matthias.dirickx@outlook.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package be.mdi.testing.qc.client;
+
+/**
+ * The parts of a relative REST url the client cares about.
+ *
+ * For "rest/domains/D/projects/P/runs/12/run-steps?query" that is
+ *     - domain: D
+ *     - project: P
+ *     - restUrlType: run-steps (the last collection in the path, as in QcType.getRestUrlType())
+ * Urls outside of a project (authentication, rest/domains...) have null parts.
+ */
+final class RestUrl {
+
+    private final String domain;
+    private final String project;
+    private final String restUrlType;
+
+    private RestUrl(String domain, String project, String restUrlType) {
+        this.domain = domain;
+        this.project = project;
+        this.restUrlType = restUrlType;
+    }
+
+    static RestUrl parse(String restUrl) {
+        int query = restUrl.indexOf('?');
+        String[] parts = (query < 0 ? restUrl : restUrl.substring(0, query)).split("/");
+        if(parts.length < 5 || !"domains".equals(parts[1]) || !"projects".equals(parts[3])) {
+            return new RestUrl(null, null, null);
+        }
+        String type = null;
+        for(int i = 5; i < parts.length; i++) {
+            if(!parts[i].isEmpty() && !Character.isDigit(parts[i].charAt(0))) {
+                type = parts[i];
+            }
+        }
+        return new RestUrl(parts[2], parts[4], type);
+    }
+
+    String getDomain() { return domain; }
+    String getProject() { return project; }
+    String getRestUrlType() { return restUrlType; }
+}
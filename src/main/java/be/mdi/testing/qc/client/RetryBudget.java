@@ -0,0 +1,59 @@
+/*
+ * QC REST API client
+ *
+ * Copyright (C) 2019  matthias.dirickx@outlook.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package be.mdi.testing.qc.client;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Limits the retries of one client to a share of its calls.
+ *
+ * Every first attempt adds ratio tokens, every retry takes one.
+ * The budget holds at most max tokens and starts full.
+ * So a short burst of failures may be retried, but when most calls fail
+ * (the server is down or overloaded) the client stops multiplying the load.
+ */
+class RetryBudget {
+
+    private static final long UNIT = 1000;
+
+    private final long deposit;
+    private final long capacity;
+    private final AtomicLong balance;
+
+    RetryBudget(double ratio, int max) {
+        this.deposit = (long) (ratio * UNIT);
+        this.capacity = max * UNIT;
+        this.balance = new AtomicLong(capacity);
+    }
+
+    void onCall() {
+        balance.updateAndGet(b -> Math.min(capacity, b + deposit));
+    }
+
+    boolean tryRetry() {
+        long current;
+        do {
+            current = balance.get();
+            if(current < UNIT) {
+                return false;
+            }
+        } while(!balance.compareAndSet(current, current - UNIT));
+        return true;
+    }
+}
@@ -0,0 +1,156 @@
+/*
+ * QC REST API client
+ *
+ * Copyright (C) 2019  matthias.dirickx@outlook.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package be.mdi.testing.qc.client;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * When and how often a failed call is sent again.
+ *
+ * A call is retried when the server answers with one of the retryable statuses (default 429, 502, 503, 504)
+ * or when the connection fails (reset, timeout and so on).
+ * Only calls that are safe to repeat are retried:
+ *     - GET and PUT are retried.
+ *     - POST is only retried when the connection could not be made, so the server never saw the call.
+ *       With setRetryPost(true) a POST is retried like the others; only do that when duplicates do no harm.
+ *     - Calls sending an InputStream (attachments) are never retried, the stream cannot be read twice.
+ *
+ * The wait before a retry grows exponentially (backoff, 2 * backoff, 4 * backoff...) up to maxBackoff.
+ * A random part of it (full jitter) is used so clients that failed together do not retry together.
+ * When the server sends a Retry-After header, that wait is used instead, unless it is longer than maxRetryAfter.
+ *
+ * All setters return the policy (fluent api).
+ * Policies are set per QcType on the QcClientConfig.
+ */
+public class RetryPolicy {
+
+    private int maxAttempts;
+    private long backoffMillis;
+    private long maxBackoffMillis;
+    private long maxRetryAfterMillis;
+    private boolean retryPost;
+    private Set<Integer> retryableStatuses;
+
+    /**
+     * Policy with the built-in defaults: 3 attempts, 100ms backoff up to 2s, Retry-After up to 30s.
+     */
+    public RetryPolicy() {
+        this(3, 100, 2000, 30000);
+    }
+
+    RetryPolicy(int maxAttempts, long backoffMillis, long maxBackoffMillis, long maxRetryAfterMillis) {
+        this.maxAttempts = maxAttempts;
+        this.backoffMillis = backoffMillis;
+        this.maxBackoffMillis = maxBackoffMillis;
+        this.maxRetryAfterMillis = maxRetryAfterMillis;
+        this.retryPost = false;
+        this.retryableStatuses = new HashSet<>(Arrays.asList(429, 502, 503, 504));
+    }
+
+    /**
+     * A policy that sends every call once.
+     * @return RetryPolicy
+     */
+    public static RetryPolicy noRetries() {
+        return new RetryPolicy().setMaxAttempts(1);
+    }
+
+    public int getMaxAttempts() { return maxAttempts; }
+    public long getBackoffMillis() { return backoffMillis; }
+    public long getMaxBackoffMillis() { return maxBackoffMillis; }
+    public long getMaxRetryAfterMillis() { return maxRetryAfterMillis; }
+    public boolean isRetryPost() { return retryPost; }
+    public Set<Integer> getRetryableStatuses() { return retryableStatuses; }
+
+    /**
+     * @param maxAttempts int (total number of attempts, the first call included)
+     * @return RetryPolicy (fluent api)
+     */
+    public RetryPolicy setMaxAttempts(int maxAttempts) {
+        this.maxAttempts = Math.max(1, maxAttempts);
+        return this;
+    }
+
+    /**
+     * @param backoffMillis long (wait before the first retry)
+     * @return RetryPolicy (fluent api)
+     */
+    public RetryPolicy setBackoffMillis(long backoffMillis) {
+        this.backoffMillis = backoffMillis;
+        return this;
+    }
+
+    /**
+     * @param maxBackoffMillis long (upper bound of the exponential wait)
+     * @return RetryPolicy (fluent api)
+     */
+    public RetryPolicy setMaxBackoffMillis(long maxBackoffMillis) {
+        this.maxBackoffMillis = maxBackoffMillis;
+        return this;
+    }
+
+    /**
+     * A Retry-After longer than this is not waited for; the response is returned as it is.
+     * @param maxRetryAfterMillis long
+     * @return RetryPolicy (fluent api)
+     */
+    public RetryPolicy setMaxRetryAfterMillis(long maxRetryAfterMillis) {
+        this.maxRetryAfterMillis = maxRetryAfterMillis;
+        return this;
+    }
+
+    /**
+     * Also retry POST calls that reached the server. This may create duplicates.
+     * @param retryPost boolean
+     * @return RetryPolicy (fluent api)
+     */
+    public RetryPolicy setRetryPost(boolean retryPost) {
+        this.retryPost = retryPost;
+        return this;
+    }
+
+    /**
+     * @param statuses Integer... (HTTP statuses that are worth another attempt)
+     * @return RetryPolicy (fluent api)
+     */
+    public RetryPolicy setRetryableStatuses(Integer... statuses) {
+        this.retryableStatuses = new HashSet<>(Arrays.asList(statuses));
+        return this;
+    }
+
+    boolean isRetryable(int status) {
+        return retryableStatuses.contains(status);
+    }
+
+    /**
+     * Exponential backoff with full jitter.
+     * @param retry int (1 for the first retry)
+     * @param random double (between 0 and 1)
+     * @return long (milliseconds)
+     */
+    long backoff(int retry, double random) {
+        long ceiling = backoffMillis;
+        for(int i = 1; i < retry && ceiling < maxBackoffMillis; i++) {
+            ceiling *= 2;
+        }
+        return (long) (Math.min(ceiling, maxBackoffMillis) * random);
+    }
+}
@@ -0,0 +1,200 @@
+/*
+ * QC REST API client
+ *
+ * Copyright (C) 2019  matthias.dirickx@outlook.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package be.mdi.testing.qc.client;
+
+import be.mdi.testing.qc.exception.QcClientException;
+
+import java.net.HttpCookie;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Keeps track of the LWSSO session of a RestCallHandler.
+ *
+ * The session key is obtained once and reused for all calls.
+ * A new session is only requested when
+ *     - there is no session yet,
+ *     - the session is about to expire (expiry of the cookie or the configured maximum age),
+ *     - the server answered 401 to a call with the current key (see invalidate()).
+ *
+ * Authentication is single-flight: when many threads need a new session at the same time,
+ * only one of them calls authenticate. The others wait and reuse the new key.
+ * A ReentrantLock is used rather than a monitor so waiting virtual threads do not pin their carrier.
+ */
+class SessionManager {
+
+    static final String COOKIE_NAME = "LWSSO_COOKIE_KEY";
+
+    private final String host;
+    private final String username;
+    private final String password;
+    private final QcTransport transport;
+    private final long maxAgeMillis;
+    private final long refreshMarginMillis;
+
+    private final ReentrantLock loginLock = new ReentrantLock();
+    private volatile Session session;
+
+    SessionManager(String host, String username, String password, QcTransport transport, QcClientConfig config) {
+        this.host = host;
+        this.username = username;
+        this.password = password;
+        this.transport = transport;
+        this.maxAgeMillis = config.getSessionMaxAge() * 1000L;
+        this.refreshMarginMillis = config.getSessionRefreshMargin() * 1000L;
+    }
+
+    /**
+     * Get a valid session key, authenticating first when needed.
+     * @return String (value of the LWSSO cookie)
+     */
+    String getSessionKey() {
+        Session current = session;
+        if(current != null && !current.isAboutToExpire(System.currentTimeMillis(), refreshMarginMillis)) {
+            return current.key;
+        }
+        return renew(current);
+    }
+
+    /**
+     * Force a new authentication, regardless of the current session.
+     */
+    void login() {
+        loginLock.lock();
+        try {
+            session = authenticate();
+        } finally {
+            loginLock.unlock();
+        }
+    }
+
+    /**
+     * Mark the session with this key as rejected by the server (401).
+     * When another thread already renewed the session, nothing happens.
+     * @param rejectedKey String
+     */
+    void invalidate(String rejectedKey) {
+        loginLock.lock();
+        try {
+            Session current = session;
+            if(current != null && current.key.equals(rejectedKey)) {
+                session = null;
+            }
+        } finally {
+            loginLock.unlock();
+        }
+    }
+
+    /**
+     * The current key without authenticating. Null when there is no session.
+     * @return String
+     */
+    String peekSessionKey() {
+        Session current = session;
+        return current == null ? null : current.key;
+    }
+
+    void clear() {
+        loginLock.lock();
+        try {
+            session = null;
+        } finally {
+            loginLock.unlock();
+        }
+    }
+
+    private String renew(Session stale) {
+        loginLock.lock();
+        try {
+            Session current = session;
+            //Another thread logged in while this one was waiting for the lock.
+            if(current != null && current != stale
+                    && !current.isAboutToExpire(System.currentTimeMillis(), refreshMarginMillis)) {
+                return current.key;
+            }
+            session = authenticate();
+            return session.key;
+        } finally {
+            loginLock.unlock();
+        }
+    }
+
+    private Session authenticate() {
+        Map<String, String> headers = new LinkedHashMap<>();
+        headers.put("Accept", "text/plain");
+        headers.put("Authorization", "Basic " + Base64.getEncoder().encodeToString(
+                (username + ":" + password).getBytes(StandardCharsets.ISO_8859_1)));
+        QcTransportResponse response = transport.send(new QcTransportRequest(
+                "GET", host + "/qcbin/authentication-point/authenticate", headers, null, 0));
+        try {
+            HttpCookie cookie = sessionCookie(response);
+            if(cookie == null) {
+                throw new QcClientException(
+                        "Authentication failed for user " + username + " (HTTP " + response.getStatus() + ")."
+                );
+            }
+            return new Session(cookie.getValue(), expiryOf(cookie, System.currentTimeMillis()));
+        } finally {
+            response.close();
+        }
+    }
+
+    private static HttpCookie sessionCookie(QcTransportResponse response) {
+        for(String header : response.getHeaders("Set-Cookie")) {
+            try {
+                for(HttpCookie cookie : HttpCookie.parse(header)) {
+                    if(COOKIE_NAME.equals(cookie.getName())) {
+                        return cookie;
+                    }
+                }
+            } catch(IllegalArgumentException malformed) {
+                //Not a cookie we can read, so not the session cookie either.
+            }
+        }
+        return null;
+    }
+
+    /**
+     * The max age of the cookie also covers an Expires attribute: HttpCookie converts it to a max age.
+     */
+    private long expiryOf(HttpCookie cookie, long now) {
+        long expiry = now + maxAgeMillis;
+        if(cookie.getMaxAge() >= 0) {
+            expiry = Math.min(expiry, now + cookie.getMaxAge() * 1000L);
+        }
+        return expiry;
+    }
+
+    private static class Session {
+        private final String key;
+        private final long expiresAt;
+
+        Session(String key, long expiresAt) {
+            this.key = key;
+            this.expiresAt = expiresAt;
+        }
+
+        boolean isAboutToExpire(long now, long margin) {
+            return now + margin >= expiresAt;
+        }
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * QC REST API client
+ *
+ * Copyright (C) 2019  matthias.dirickx@outlook.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package be.mdi.testing.qc.client;
+
+import be.mdi.testing.qc.exception.QcClientException;
+import be.mdi.testing.qc.exception.QcDeadlineExceededException;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Lets concurrent identical calls share one execution.
+ *
+ * The first caller for a key runs the call. Callers with the same key that arrive while it runs
+ * wait for it and get the same result (the same object) or the same exception.
+ * Once the call is done the key is free again; results are not cached.
+ * The RestCallHandler shares the body of a GET this way, not the objects read from it, as those may be changed.
+ * A waiting caller does not wait past its own deadline.
+ */
+class SingleFlight {
+
+    private final QcClientMetrics metrics;
+    private final ConcurrentMap<String, CompletableFuture<Object>> calls = new ConcurrentHashMap<>();
+
+    SingleFlight(QcClientMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    @SuppressWarnings("unchecked")
+    <T> T execute(String key, Supplier<T> call) {
+        CompletableFuture<Object> own = new CompletableFuture<>();
+        CompletableFuture<Object> running = calls.putIfAbsent(key, own);
+        if(running != null) {
+            metrics.addCoalescedGet();
+            long remaining = QcDeadline.remainingForCurrentThread();
+            try {
+                return (T) (remaining == Long.MAX_VALUE
+                        ? running.join()
+                        : running.get(Math.max(0, remaining), TimeUnit.NANOSECONDS));
+            } catch(CompletionException | ExecutionException e) {
+                throw rethrow(e.getCause());
+            } catch(TimeoutException e) {
+                throw new QcDeadlineExceededException("Deadline exceeded while waiting for a shared call.", e);
+            } catch(InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new QcClientException("Interrupted while waiting for a shared call.", e);
+            }
+        }
+
+        try {
+            T result = call.get();
+            own.complete(result);
+            return result;
+        } catch(RuntimeException | Error e) {
+            own.completeExceptionally(e);
+            throw e;
+        } finally {
+            calls.remove(key, own);
+        }
+    }
+
+    private static RuntimeException rethrow(Throwable cause) {
+        if(cause instanceof Error) {
+            throw (Error) cause;
+        }
+        return (RuntimeException) cause;
+    }
+}
@@ -0,0 +1,39 @@
+/*
+ * QC REST API client
+ *
+ * Copyright (C) 2019  matthias.dirickx@outlook.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package be.mdi.testing.qc.exception;
+
+/**
+ * Thrown when a call is not sent because the circuit breaker of its endpoint is open:
+ * the endpoint failed repeatedly and is given time to recover.
+ * The call did not reach the server.
+ */
+public class QcCircuitOpenException extends QcClientException {
+
+    private final String restUrlType;
+
+    public QcCircuitOpenException(String restUrlType, String message) {
+        super(message);
+        this.restUrlType = restUrlType;
+    }
+
+    /**
+     * @return String (the endpoint, as in QcType.getRestUrlType())
+     */
+    public String getRestUrlType() { return restUrlType; }
+}
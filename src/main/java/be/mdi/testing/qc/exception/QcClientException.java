@@ -0,0 +1,38 @@
+/*
+ * QC REST API client
+ *
+ * Copyright (C) 2019  matthias.dirickx@outlook.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package be.mdi.testing.qc.exception;
+
+/**
+ * Unchecked exception for failures while talking to the QC server.
+ * The client methods do not declare checked exceptions, hence the RuntimeException.
+ */
+public class QcClientException extends RuntimeException {
+
+    public QcClientException(String message) {
+        super(message);
+    }
+
+    public QcClientException(String message, Throwable throwable) {
+        super(message, throwable);
+    }
+
+    public QcClientException(Throwable throwable) {
+        super(throwable);
+    }
+}
@@ -0,0 +1,36 @@
+/*
+ * QC REST API client
+ *
+ * Copyright (C) 2019  matthias.dirickx@outlook.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package be.mdi.testing.qc.exception;
+
+/**
+ * Thrown when a field is read from an entity that was read with a selection of fields without it
+ * (for example QCRestClient.getDefects(domain, project, fields)).
+ * The value of the field is unknown, not empty. Check with QcEntity.isLoaded(name) or read the entity with the field.
+ */
+public class QcFieldNotLoadedException extends QcClientException {
+
+    private final String fieldName;
+
+    public QcFieldNotLoadedException(String fieldName, String message) {
+        super(message);
+        this.fieldName = fieldName;
+    }
+
+    public String getFieldName() { return fieldName; }
+}
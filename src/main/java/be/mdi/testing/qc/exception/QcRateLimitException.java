@@ -0,0 +1,39 @@
+/*
+ * QC REST API client
+ *
+ * Copyright (C) 2019  matthias.dirickx@outlook.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package be.mdi.testing.qc.exception;
+
+/**
+ * Thrown when a call is not sent because the rate limit of its project is used up
+ * and waiting for a free token would take longer than allowed.
+ * The call did not reach the server, so it can safely be sent again later.
+ */
+public class QcRateLimitException extends QcClientException {
+
+    private final String domain;
+    private final String project;
+
+    public QcRateLimitException(String domain, String project, String message) {
+        super(message);
+        this.domain = domain;
+        this.project = project;
+    }
+
+    public String getDomain() { return domain; }
+    public String getProject() { return project; }
+}
@@ -1,6 +1,14 @@
 package be.mdi.testing.qc.model.composits;
 
+import be.mdi.testing.qc.client.QCRestClient;
+
 public interface QcCommitable {
     void commit();
+
+    /**
+     * Commit with the given client instead of the static one.
+     * @param client QCRestClient
+     */
+    void commit(QCRestClient client);
     void update();
 }
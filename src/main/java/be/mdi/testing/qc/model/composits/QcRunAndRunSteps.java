@@ -19,6 +19,8 @@
 package be.mdi.testing.qc.model.composits;
 
 import static be.mdi.testing.qc.client.StaticQCRestClient.getQcClient;
+import be.mdi.testing.qc.client.QCRestClient;
+import be.mdi.testing.qc.client.QcDeadline;
 import be.mdi.testing.qc.model.entities.QcRun;
 import be.mdi.testing.qc.model.entities.QcRunStep;
 import be.mdi.testing.qc.model.entities.QcRunSteps;
@@ -80,17 +82,34 @@ public class QcRunAndRunSteps implements QcCommitable {
         return this;
     }
 
+    /**
+     * Post the run, set its status and post the steps, with the static client (see StaticQCRestClient).
+     */
     public void commit() {
-        String status = "Not Completed";
-        if(qcRun.getField(QcRunField.STATUS) != null) {
-            status = qcRun.getField(QcRunField.STATUS);
+        commit(getQcClient());
+    }
+
+    /**
+     * Post the run, set its status and post the steps.
+     * The three calls share one deadline (qcclient.deadline.commit).
+     * @param client QCRestClient
+     */
+    public void commit(QCRestClient client) {
+        QcDeadline deadline = QcDeadline.start(client.getConfig().getCommitDeadline());
+        try {
+            String status = "Not Completed";
+            if(qcRun.getField(QcRunField.STATUS) != null) {
+                status = qcRun.getField(QcRunField.STATUS);
+            }
+            qcRun = client.postEntity(QcRun.class, qcRun);
+            qcRun.setField(QcRunField.STATUS, status);
+            client.putEntity(qcRun);
+            String id = qcRun.getField(QcRunField.ID);
+            qcRunSteps.setRunId(id);
+            qcRunSteps = client.postEntities(QcRunSteps.class, qcRunSteps);
+        } finally {
+            deadline.close();
         }
-        qcRun = getQcClient().postEntity(QcRun.class, qcRun);
-        qcRun.setField(QcRunField.STATUS, status);
-        getQcClient().putEntity(qcRun);
-        String id = qcRun.getField(QcRunField.ID);
-        qcRunSteps.setRunId(id);
-        qcRunSteps = getQcClient().postEntities(QcRunSteps.class, qcRunSteps);
     }
 
     public void update() {
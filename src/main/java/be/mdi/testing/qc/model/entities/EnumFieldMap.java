@@ -0,0 +1,435 @@
+/*
+ * QC REST API client
+ *
+ * Copyright (C) 2019  matthias.dirickx@outlook.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package be.mdi.testing.qc.model.entities;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * The field map of an entity type with a field enum (QcDefect, QcRun, QcRunStep).
+ *
+ * The fields of the enum are kept in an array, at the ordinal of the field: getField and setField are an array access
+ * and an entity does not carry a HashMap node per field. Other fields (user fields of a project) go to an overflow map.
+ *
+ * The fields come in a fixed order: the enum fields in the order of the enum, then the other fields
+ * in the order they were added. The fields are written in that order.
+ *
+ * Fields read lazily (see QcRawFields) keep the index of their raw field instead of a value until they are read.
+ * The raw fields, and the response behind them, are let go when no field refers to them anymore or on materialize.
+ * Not thread safe for changes, as the HashMap; reading a lazy field from several threads is.
+ */
+final class EnumFieldMap<F extends Enum<F>> extends AbstractMap<String, String> {
+
+    /**
+     * The names of the fields of one enum, shared by all entities of the type.
+     */
+    static final class Schema<F extends Enum<F>> {
+        private final String[] names;
+        private final Map<String, Integer> ordinals = new HashMap<>();
+
+        Schema(F[] fields, Function<F, String> name) {
+            names = new String[fields.length];
+            for(F field : fields) {
+                String fieldName = name.apply(field);
+                names[field.ordinal()] = fieldName;
+                ordinals.put(fieldName, field.ordinal());
+            }
+        }
+
+        private int ordinal(Object name) {
+            Integer ordinal = ordinals.get(name);
+            return ordinal == null ? -1 : ordinal;
+        }
+    }
+
+    private final Schema<F> schema;
+    private String[] values;
+    private boolean[] present;
+    private Map<String, String> overflow;
+    private QcRawFields raw;
+    /**
+     * Index + 1 of the raw field of a slot whose value is not decoded yet; null when there are no raw fields.
+     */
+    private int[] rawIndexes;
+    private int undecoded;
+    private int size;
+    private int modCount;
+
+    EnumFieldMap(Schema<F> schema) {
+        this.schema = schema;
+    }
+
+    String get(F field) {
+        return value(field.ordinal());
+    }
+
+    private String value(int ordinal) {
+        if(present == null || !present[ordinal]) {
+            return null;
+        }
+        if(rawIndexes != null && rawIndexes[ordinal] != 0) {
+            return raw.getValue(rawIndexes[ordinal] - 1);
+        }
+        return values[ordinal];
+    }
+
+    /**
+     * Add the raw fields. The values of the enum fields are decoded when they are read, the others now.
+     * A field that is in the raw fields more than once gets the last value, as with put.
+     * @param rawFields QcRawFields
+     */
+    void putRaw(QcRawFields rawFields) {
+        for(int i = 0; i < rawFields.size(); i++) {
+            String name = rawFields.getName(i);
+            int ordinal = schema.ordinal(name);
+            if(ordinal < 0) {
+                put(name, rawFields.getValue(i));
+                continue;
+            }
+            set(ordinal, null);
+            if(rawIndexes == null) {
+                rawIndexes = new int[schema.names.length];
+            }
+            raw = rawFields;
+            rawIndexes[ordinal] = i + 1;
+            undecoded++;
+        }
+    }
+
+    /**
+     * Decode the fields that were not read yet, so the map no longer refers to its raw fields.
+     */
+    void materialize() {
+        if(rawIndexes == null) {
+            return;
+        }
+        for(int ordinal = 0; ordinal < rawIndexes.length; ordinal++) {
+            if(rawIndexes[ordinal] != 0) {
+                values[ordinal] = raw.getValue(rawIndexes[ordinal] - 1);
+            }
+        }
+        dropRaw();
+    }
+
+    void set(F field, String value) {
+        set(field.ordinal(), value);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        int ordinal = schema.ordinal(key);
+        if(ordinal >= 0) {
+            return present != null && present[ordinal];
+        }
+        return overflow != null && overflow.containsKey(key);
+    }
+
+    @Override
+    public String get(Object key) {
+        int ordinal = schema.ordinal(key);
+        if(ordinal >= 0) {
+            return value(ordinal);
+        }
+        return overflow == null ? null : overflow.get(key);
+    }
+
+    @Override
+    public String put(String key, String value) {
+        int ordinal = schema.ordinal(key);
+        if(ordinal >= 0) {
+            return putKnown(ordinal, value);
+        }
+        if(overflow == null) {
+            overflow = new LinkedHashMap<>();
+        }
+        if(overflow.containsKey(key)) {
+            return overflow.put(key, value);
+        }
+        overflow.put(key, value);
+        added();
+        return null;
+    }
+
+    private String putKnown(int ordinal, String value) {
+        String previous = value(ordinal);
+        set(ordinal, value);
+        return previous;
+    }
+
+    /**
+     * Put without the previous value, so a lazy field that is overwritten is not decoded first.
+     */
+    private void set(int ordinal, String value) {
+        if(present == null) {
+            values = new String[schema.names.length];
+            present = new boolean[schema.names.length];
+        }
+        values[ordinal] = value;
+        decoded(ordinal);
+        if(!present[ordinal]) {
+            present[ordinal] = true;
+            added();
+        }
+    }
+
+    private void added() {
+        modCount++;
+        size++;
+    }
+
+    @Override
+    public String remove(Object key) {
+        int ordinal = schema.ordinal(key);
+        if(ordinal >= 0) {
+            if(present == null || !present[ordinal]) {
+                return null;
+            }
+            String previous = value(ordinal);
+            values[ordinal] = null;
+            present[ordinal] = false;
+            decoded(ordinal);
+            removed();
+            return previous;
+        }
+        if(overflow == null || !overflow.containsKey(key)) {
+            return null;
+        }
+        removed();
+        return overflow.remove(key);
+    }
+
+    /**
+     * The slot no longer refers to its raw field.
+     */
+    private void decoded(int ordinal) {
+        if(rawIndexes != null && rawIndexes[ordinal] != 0) {
+            rawIndexes[ordinal] = 0;
+            if(--undecoded == 0) {
+                dropRaw();
+            }
+        }
+    }
+
+    private void dropRaw() {
+        raw = null;
+        rawIndexes = null;
+        undecoded = 0;
+    }
+
+    private void removed() {
+        modCount++;
+        size--;
+    }
+
+    @Override
+    public void clear() {
+        if(present != null) {
+            Arrays.fill(values, null);
+            Arrays.fill(present, false);
+        }
+        overflow = null;
+        dropRaw();
+        size = 0;
+        modCount++;
+    }
+
+    @Override
+    public Set<String> keySet() {
+        return new AbstractSet<String>() {
+            @Override
+            public Iterator<String> iterator() {
+                return new NameIterator();
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+
+            @Override
+            public boolean contains(Object o) {
+                return containsKey(o);
+            }
+
+            @Override
+            public void clear() {
+                EnumFieldMap.this.clear();
+            }
+        };
+    }
+
+    @Override
+    public Set<Entry<String, String>> entrySet() {
+        return new AbstractSet<Entry<String, String>>() {
+            @Override
+            public Iterator<Entry<String, String>> iterator() {
+                NameIterator names = new NameIterator();
+                return new Iterator<Entry<String, String>>() {
+                    @Override
+                    public boolean hasNext() {
+                        return names.hasNext();
+                    }
+
+                    @Override
+                    public Entry<String, String> next() {
+                        return new Field(EnumFieldMap.this, names.next());
+                    }
+
+                    @Override
+                    public void remove() {
+                        names.remove();
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+
+            @Override
+            public void clear() {
+                EnumFieldMap.this.clear();
+            }
+        };
+    }
+
+    /**
+     * A field of the map; reads and writes go to the map.
+     */
+    private static final class Field implements Entry<String, String> {
+        private final EnumFieldMap<?> map;
+        private final String key;
+
+        Field(EnumFieldMap<?> map, String key) {
+            this.map = map;
+            this.key = key;
+        }
+
+        @Override
+        public String getKey() {
+            return key;
+        }
+
+        @Override
+        public String getValue() {
+            return map.get(key);
+        }
+
+        @Override
+        public String setValue(String value) {
+            return map.put(key, value);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if(!(o instanceof Entry)) {
+                return false;
+            }
+            Entry<?, ?> e = (Entry<?, ?>) o;
+            return Objects.equals(key, e.getKey()) && Objects.equals(getValue(), e.getValue());
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hashCode(key) ^ Objects.hashCode(getValue());
+        }
+
+        @Override
+        public String toString() {
+            return key + "=" + getValue();
+        }
+    }
+
+    /**
+     * The names of the fields: the enum fields by ordinal, then the overflow fields in the order they were added.
+     * Nothing is allocated for the enum fields.
+     */
+    private final class NameIterator implements Iterator<String> {
+        private int ordinal;
+        private Iterator<String> overflowNames;
+        private int remaining = size;
+        private String last;
+        private boolean removable;
+        private int expectedModCount = modCount;
+
+        @Override
+        public boolean hasNext() {
+            return remaining > 0;
+        }
+
+        @Override
+        public String next() {
+            if(modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            if(remaining <= 0) {
+                throw new NoSuchElementException();
+            }
+            remaining--;
+            removable = true;
+            if(present != null) {
+                while(ordinal < present.length) {
+                    if(present[ordinal++]) {
+                        last = schema.names[ordinal - 1];
+                        return last;
+                    }
+                }
+            }
+            if(overflowNames == null) {
+                overflowNames = overflow.keySet().iterator();
+            }
+            last = overflowNames.next();
+            return last;
+        }
+
+        @Override
+        public void remove() {
+            if(!removable) {
+                throw new IllegalStateException();
+            }
+            if(modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            if(overflowNames != null) {
+                overflowNames.remove();
+                removed();
+            } else {
+                EnumFieldMap.this.remove(last);
+            }
+            expectedModCount = modCount;
+            removable = false;
+        }
+    }
+}
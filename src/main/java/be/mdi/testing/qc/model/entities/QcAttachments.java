@@ -22,7 +22,9 @@ import be.mdi.testing.qc.model.QcType;
 
 import javax.xml.bind.annotation.XmlElement;
 import javax.xml.bind.annotation.XmlRootElement;
+import javax.xml.bind.annotation.XmlTransient;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 @XmlRootElement(name = "Entities")
@@ -36,6 +38,10 @@ public class QcAttachments extends QcEntities implements QcEntitiesInterface<QcA
         entities = new ArrayList<>();
     }
 
+    @Override
+    @XmlTransient
+    public List<QcAttachment> getEntityList() { return Collections.unmodifiableList(entities); }
+
     public QcAttachment get(int index) {
         QcAttachment a = entities.get(index);
         a.setDomain(getDomain());
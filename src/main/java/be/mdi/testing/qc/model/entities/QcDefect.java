@@ -18,6 +18,7 @@
  */
 package be.mdi.testing.qc.model.entities;
 
+import be.mdi.testing.qc.exception.QcFieldNotLoadedException;
 import be.mdi.testing.qc.model.QcType;
 import be.mdi.testing.qc.model.fields.QcDefectField;
 
@@ -26,16 +27,30 @@ import javax.xml.bind.annotation.XmlRootElement;
 @XmlRootElement(name = "Entity")
 public class QcDefect extends QcEntity {
 
+    private static final EnumFieldMap.Schema<QcDefectField> FIELDS =
+            new EnumFieldMap.Schema<>(QcDefectField.values(), QcDefectField::getName);
+
     public QcDefect() {
-        super(QcType.DEFECT);
+        super(QcType.DEFECT, new EnumFieldMap<>(FIELDS));
     }
 
+    /**
+     * @param field QcDefectField
+     * @return String (null when the field has no value)
+     * @throws QcFieldNotLoadedException when the defect was read with a selection of fields without this one
+     */
     public String getField(QcDefectField field) {
-        return fields.get(field.getName());
+        checkLoaded(field.getName());
+        return fieldMap().get(field);
     }
 
     public QcDefect setField(QcDefectField field, String value) {
-        fields.put(field.getName(), value);
+        fieldMap().set(field, value);
         return this;
     }
+
+    @SuppressWarnings("unchecked")
+    private EnumFieldMap<QcDefectField> fieldMap() {
+        return (EnumFieldMap<QcDefectField>) fields;
+    }
 }
\ No newline at end of file
@@ -22,7 +22,9 @@ import be.mdi.testing.qc.model.QcType;
 
 import javax.xml.bind.annotation.XmlElement;
 import javax.xml.bind.annotation.XmlRootElement;
+import javax.xml.bind.annotation.XmlTransient;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 @XmlRootElement(name = "Entities")
@@ -36,6 +38,10 @@ public class QcDefects extends QcEntities implements QcEntitiesInterface<QcDefec
         entities = new ArrayList<QcDefect>();
     }
 
+    @Override
+    @XmlTransient
+    public List<QcDefect> getEntityList() { return Collections.unmodifiableList(entities); }
+
     public QcDefect get(int index) {
         QcDefect d = entities.get(index);
         d.setDomain(getDomain());
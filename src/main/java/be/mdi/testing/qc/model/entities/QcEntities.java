@@ -22,6 +22,8 @@ import be.mdi.testing.qc.model.QcType;
 
 import javax.xml.bind.annotation.XmlAttribute;
 import javax.xml.bind.annotation.XmlTransient;
+import java.util.Collections;
+import java.util.List;
 
 
 public class QcEntities {
@@ -52,6 +54,13 @@ public class QcEntities {
     public String getDomain() { return domain; }
     public String getProject() { return project; }
 
+    /**
+     * The entities in this collection, for writers that do not go through JAXB.
+     * @return List (read only)
+     */
+    @XmlTransient
+    public List<? extends QcEntity> getEntityList() { return Collections.emptyList(); }
+
     @XmlTransient
     public void setDomain(String domain) { this.domain = domain; }
     @XmlTransient
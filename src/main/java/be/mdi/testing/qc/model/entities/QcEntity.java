@@ -18,6 +18,7 @@
  */
 package be.mdi.testing.qc.model.entities;
 
+import be.mdi.testing.qc.exception.QcFieldNotLoadedException;
 import be.mdi.testing.qc.model.QcType;
 
 import javax.xml.bind.annotation.XmlAttribute;
@@ -29,6 +30,7 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 
 public class QcEntity {
@@ -41,11 +43,21 @@ public class QcEntity {
 
     protected Map<String,String> fields;
 
+    private Set<String> loadedFields;
+
     public QcEntity(QcType qcType) {
+        this(qcType, new HashMap<String, String>());
+    }
+
+    /**
+     * @param qcType QcType
+     * @param fields Map (the storage of the fields, see EnumFieldMap)
+     */
+    protected QcEntity(QcType qcType, Map<String,String> fields) {
         this.qcType = qcType;
         this.type = qcType.getSmallCapType();
 
-        fields = new HashMap<String, String>();
+        this.fields = fields;
     }
 
     @XmlTransient
@@ -64,11 +76,79 @@ public class QcEntity {
         return fields;
     }
 
+    /**
+     * The fields the entity was read with, when it was read with a selection of fields.
+     * @return Set (names of the loaded fields; null when all fields were loaded)
+     */
+    @XmlTransient
+    public Set<String> getLoadedFields() { return loadedFields; }
+
+    /**
+     * @param fieldName String
+     * @return boolean (false when the entity was read without this field and it was not set since)
+     */
+    public boolean isLoaded(String fieldName) {
+        return loadedFields == null || loadedFields.contains(fieldName) || fields.containsKey(fieldName);
+    }
+
     public void setType(String type) { this.type = type; }
     public void setDomain(String domain) { this.domain = domain; }
     public void setProject(String project) { this.project = project; }
+    /**
+     * Replaces the fields. They are copied, so the entity keeps its own storage.
+     * @param fields Map
+     */
     protected void setFields(Map<String,String> fields) {
-        this.fields = fields;
+        this.fields.clear();
+        if(fields != null) {
+            this.fields.putAll(fields);
+        }
+    }
+
+    /**
+     * Set by the client when the entity is read with a selection of fields.
+     * @param loadedFields Set (names of the loaded fields; null for all fields)
+     */
+    public void setLoadedFields(Set<String> loadedFields) { this.loadedFields = loadedFields; }
+
+    /**
+     * Used by the getField methods: a field that was not loaded has an unknown value, it is not null.
+     * @param fieldName String
+     * @throws QcFieldNotLoadedException when the field was not loaded
+     */
+    protected void checkLoaded(String fieldName) {
+        if(loadedFields != null && !isLoaded(fieldName)) {
+            throw new QcFieldNotLoadedException(fieldName,
+                    "The field " + fieldName + " was not loaded: the " + type + " was read with the fields " + loadedFields + ".");
+        }
+    }
+
+    /**
+     * Replaces the fields by the fields of a response that are not decoded yet.
+     * Defects, runs and run steps decode the value of a field of their field enum when it is first read;
+     * other fields and other entities are decoded right away.
+     * @param rawFields QcRawFields
+     */
+    public void setRawFields(QcRawFields rawFields) {
+        fields.clear();
+        if(fields instanceof EnumFieldMap) {
+            ((EnumFieldMap<?>) fields).putRaw(rawFields);
+            return;
+        }
+        for(int i = 0; i < rawFields.size(); i++) {
+            fields.put(rawFields.getName(i), rawFields.getValue(i));
+        }
+    }
+
+    /**
+     * Decodes the fields that were read lazily and not used yet (see QcClientConfig.setLazyFields).
+     * After this the entity no longer keeps the response it was read from in memory.
+     * Call it on the entities of a response that are kept for longer than the response is needed.
+     */
+    public void materialize() {
+        if(fields instanceof EnumFieldMap) {
+            ((EnumFieldMap<?>) fields).materialize();
+        }
     }
 
     public String getUrl() {
@@ -89,6 +169,10 @@ public class QcEntity {
     }
 }
 
+/**
+ * Maps the fields for JAXB. The client itself reads and writes the fields without it (see EntityXmlReader),
+ * this adapter is used when the model is marshalled with JAXB directly.
+ */
 class MapFieldsAdapter extends XmlAdapter<ValueList, Map<String, String>> {
     @Override
     public Map<String, String> unmarshal(ValueList value) {
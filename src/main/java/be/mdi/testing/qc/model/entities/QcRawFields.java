@@ -0,0 +1,44 @@
+/*
+ * QC REST API client
+ *
+ * Copyright (C) 2019  matthias.dirickx@outlook.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package be.mdi.testing.qc.model.entities;
+
+/**
+ * The fields of an entity as they are in the response it was read from (see QcClientConfig.setLazyFields).
+ * The names are known, a value is only decoded when it is asked for.
+ * Implementations are safe to read from several threads.
+ */
+public interface QcRawFields {
+
+    /**
+     * @return int (number of fields, in document order)
+     */
+    int size();
+
+    /**
+     * @param index int
+     * @return String (name of the field)
+     */
+    String getName(int index);
+
+    /**
+     * @param index int
+     * @return String (value of the field, decoded on the first call; null when the field has no value)
+     */
+    String getValue(int index);
+}
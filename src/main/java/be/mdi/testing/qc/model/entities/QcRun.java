@@ -18,6 +18,7 @@
  */
 package be.mdi.testing.qc.model.entities;
 
+import be.mdi.testing.qc.exception.QcFieldNotLoadedException;
 import be.mdi.testing.qc.model.QcType;
 import be.mdi.testing.qc.model.fields.QcRunField;
 
@@ -26,16 +27,30 @@ import javax.xml.bind.annotation.XmlRootElement;
 @XmlRootElement(name = "Entity")
 public class QcRun extends QcEntity {
 
+    private static final EnumFieldMap.Schema<QcRunField> FIELDS =
+            new EnumFieldMap.Schema<>(QcRunField.values(), QcRunField::getName);
+
     public QcRun() {
-        super(QcType.RUN);
+        super(QcType.RUN, new EnumFieldMap<>(FIELDS));
     }
 
+    /**
+     * @param field QcRunField
+     * @return String (null when the field has no value)
+     * @throws QcFieldNotLoadedException when the run was read with a selection of fields without this one
+     */
     public String getField(QcRunField field) {
-        return fields.get(field.getName());
+        checkLoaded(field.getName());
+        return fieldMap().get(field);
     }
 
     public QcRun setField(QcRunField field, String value) {
-        fields.put(field.getName(), value);
+        fieldMap().set(field, value);
         return this;
     }
+
+    @SuppressWarnings("unchecked")
+    private EnumFieldMap<QcRunField> fieldMap() {
+        return (EnumFieldMap<QcRunField>) fields;
+    }
 }
@@ -18,6 +18,7 @@
  */
 package be.mdi.testing.qc.model.entities;
 
+import be.mdi.testing.qc.exception.QcFieldNotLoadedException;
 import be.mdi.testing.qc.model.QcType;
 import be.mdi.testing.qc.model.fields.QcRunStepField;
 
@@ -26,16 +27,30 @@ import javax.xml.bind.annotation.XmlRootElement;
 @XmlRootElement(name = "Entity")
 public class QcRunStep extends QcEntity {
 
+    private static final EnumFieldMap.Schema<QcRunStepField> FIELDS =
+            new EnumFieldMap.Schema<>(QcRunStepField.values(), QcRunStepField::getName);
+
     public QcRunStep() {
-        super(QcType.RUN_STEP);
+        super(QcType.RUN_STEP, new EnumFieldMap<>(FIELDS));
     }
 
+    /**
+     * @param field QcRunStepField
+     * @return String (null when the field has no value)
+     * @throws QcFieldNotLoadedException when the run step was read with a selection of fields without this one
+     */
     public String getField(QcRunStepField field) {
-        return fields.get(field.getName());
+        checkLoaded(field.getName());
+        return fieldMap().get(field);
     }
 
     public QcRunStep setField(QcRunStepField field, String value) {
-        fields.put(field.getName(), value);
+        fieldMap().set(field, value);
         return this;
     }
+
+    @SuppressWarnings("unchecked")
+    private EnumFieldMap<QcRunStepField> fieldMap() {
+        return (EnumFieldMap<QcRunStepField>) fields;
+    }
 }
\ No newline at end of file
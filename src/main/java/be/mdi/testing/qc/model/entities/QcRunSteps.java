@@ -23,7 +23,9 @@ import be.mdi.testing.qc.model.fields.QcRunStepField;
 
 import javax.xml.bind.annotation.XmlElement;
 import javax.xml.bind.annotation.XmlRootElement;
+import javax.xml.bind.annotation.XmlTransient;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 @XmlRootElement(name = "Entities")
@@ -37,6 +39,10 @@ public class QcRunSteps extends QcEntities implements QcEntitiesInterface<QcRunS
         entities = new ArrayList<QcRunStep>();
     }
 
+    @Override
+    @XmlTransient
+    public List<QcRunStep> getEntityList() { return Collections.unmodifiableList(entities); }
+
     public QcRunStep get(int index) {
         QcRunStep rs = entities.get(index);
         rs.setDomain(getDomain());
@@ -22,7 +22,9 @@ import be.mdi.testing.qc.model.QcType;
 
 import javax.xml.bind.annotation.XmlElement;
 import javax.xml.bind.annotation.XmlRootElement;
+import javax.xml.bind.annotation.XmlTransient;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 @XmlRootElement(name = "Entities")
@@ -36,6 +38,10 @@ public class QcRuns extends QcEntities implements QcEntitiesInterface<QcRun, QcR
         entities = new ArrayList<QcRun>();
     }
 
+    @Override
+    @XmlTransient
+    public List<QcRun> getEntityList() { return Collections.unmodifiableList(entities); }
+
     public QcRun get(int index) {
         QcRun r = entities.get(index);
         r.setDomain(getDomain());
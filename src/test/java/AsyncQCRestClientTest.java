@@ -0,0 +1,136 @@
+/*
+ * QC REST API client
+ *
+ * Copyright (C) 2019  matthias.dirickx@outlook.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+import be.mdi.testing.qc.client.AsyncQCRestClient;
+import be.mdi.testing.qc.client.QCRestClient;
+import be.mdi.testing.qc.model.composits.QcRunAndRunSteps;
+import be.mdi.testing.qc.model.entities.QcDefect;
+import be.mdi.testing.qc.model.entities.QcRun;
+import be.mdi.testing.qc.model.entities.QcRunStep;
+import be.mdi.testing.qc.model.fields.QcDefectField;
+import be.mdi.testing.qc.model.fields.QcRunField;
+import be.mdi.testing.qc.model.fields.QcRunStepField;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockserver.verify.VerificationTimes;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.mockserver.model.HttpRequest.request;
+import static org.mockserver.model.HttpResponse.response;
+
+public class AsyncQCRestClientTest extends BaseMockTest {
+
+    private void mockDefect(int id) {
+        mockServer
+                .when(request("/qcbin/rest/domains/theDomain/projects/theProject/defects/" + id))
+                .respond(response()
+                        .withHeader("Content-Type", "application/xml")
+                        .withBody("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>" +
+                                "<Entity Type=\"defect\">" +
+                                "<Fields>" +
+                                "<Field Name=\"id\"><Value>" + id + "</Value></Field>" +
+                                "</Fields>" +
+                                "</Entity>"));
+    }
+
+    @Test
+    public void theAsyncClientFetchesDefectsConcurrently() {
+        mockDefect(1);
+        mockDefect(2);
+
+        try(QCRestClient qcc = new QCRestClient("http://127.0.0.1:1080", "abc", "def");
+            AsyncQCRestClient async = new AsyncQCRestClient(qcc)) {
+            CompletableFuture<QcDefect> first = async.getDefect("theDomain", "theProject", 1);
+            CompletableFuture<QcDefect> second = async.getDefect("theDomain", "theProject", 2);
+
+            Assertions.assertEquals("1", first.join().getField(QcDefectField.BUG_ID));
+            Assertions.assertEquals("2", second.join().getField(QcDefectField.BUG_ID));
+            Assertions.assertEquals("theProject", first.join().getProject());
+        }
+    }
+
+    @Test
+    public void theAsyncClientRunsOnTheGivenExecutor() {
+        mockServer
+                .when(request("/qcbin/rest/domains/theDomain/projects/theProject/defects"))
+                .respond(response().withStatusCode(201));
+
+        QcDefect d = new QcDefect();
+        d.setProject("theProject");
+        d.setDomain("theDomain");
+        d.setField(QcDefectField.DESCRIPTION, "the description");
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        AtomicInteger submitted = new AtomicInteger();
+        Executor countingExecutor = command -> {
+            submitted.incrementAndGet();
+            executor.execute(command);
+        };
+        try(QCRestClient qcc = new QCRestClient("http://127.0.0.1:1080", "abc", "def")) {
+            AsyncQCRestClient async = new AsyncQCRestClient(qcc, countingExecutor);
+
+            Assertions.assertEquals(201, (int) async.postEntity(d).join());
+            Assertions.assertEquals(1, submitted.get());
+            async.close();
+            Assertions.assertFalse(executor.isShutdown());
+        }
+        executor.shutdown();
+    }
+
+    @Test
+    public void aCommitGoesThroughTheWrappedClient() {
+        String runs = "/qcbin/rest/domains/theDomain/projects/theProject/runs";
+        mockServer
+                .when(request(runs).withMethod("POST"))
+                .respond(response()
+                        .withStatusCode(201)
+                        .withHeader("Content-Type", "application/xml")
+                        .withBody("<Entity Type=\"run\"><Fields><Field Name=\"id\"><Value>1</Value></Field></Fields></Entity>"));
+        mockServer
+                .when(request(runs + "/1").withMethod("PUT"))
+                .respond(response()
+                        .withHeader("Content-Type", "application/xml")
+                        .withBody("<Entity Type=\"run\"><Fields><Field Name=\"id\"><Value>1</Value></Field></Fields></Entity>"));
+        mockServer
+                .when(request(runs + "/1/run-steps").withMethod("POST"))
+                .respond(response()
+                        .withStatusCode(201)
+                        .withHeader("Content-Type", "application/xml")
+                        .withBody("<Entities TotalResults=\"0\"/>"));
+
+        QcRunAndRunSteps commitable = new QcRunAndRunSteps(new QcRun().setField(QcRunField.RUN_NAME, "the run name"))
+                .addStep(new QcRunStep().setField(QcRunStepField.DESCRIPTION, "the description of the step"))
+                .setProject("theProject")
+                .setDomain("theDomain");
+        //Another host name than the static client (qcclient.properties), for the same server.
+        try(QCRestClient qcc = new QCRestClient("http://localhost:1080", "abc", "def");
+            AsyncQCRestClient async = new AsyncQCRestClient(qcc)) {
+            async.commit(commitable).join();
+        }
+
+        Assertions.assertEquals("1", commitable.getQcRun().getField(QcRunField.ID));
+        mockServer.verify(request(runs).withMethod("POST").withHeader("Host", "localhost:1080"), VerificationTimes.once());
+        mockServer.verify(request(runs + "/1/run-steps").withHeader("Host", "localhost:1080"), VerificationTimes.once());
+        mockServer.verify(request(runs).withHeader("Host", "127.0.0.1:1080"), VerificationTimes.exactly(0));
+    }
+}
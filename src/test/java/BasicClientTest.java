@@ -78,12 +78,12 @@ public class BasicClientTest extends BaseMockTest {
                 .withBody("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>" +
                           "<Entity Type=\"defect\">" +
                               "<Fields>" +
-                                  "<Field Name=\"description\">" +
-                                      "<Value>the description</Value>" +
-                                  "</Field>" +
                                   "<Field Name=\"closing-date\">" +
                                       "<Value>2019-07-20</Value>" +
                                   "</Field>" +
+                                  "<Field Name=\"description\">" +
+                                      "<Value>the description</Value>" +
+                                  "</Field>" +
                               "</Fields>" +
                           "</Entity>"))
 
@@ -110,15 +110,15 @@ public class BasicClientTest extends BaseMockTest {
                         .withBody("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>" +
                                 "<Entity Type=\"defect\">" +
                                 "<Fields>" +
-                                "<Field Name=\"description\">" +
-                                "<Value>the description</Value>" +
-                                "</Field>" +
                                 "<Field Name=\"id\">" +
                                 "<Value>1</Value>" +
                                 "</Field>" +
                                 "<Field Name=\"closing-date\">" +
                                 "<Value>2019-07-20</Value>" +
                                 "</Field>" +
+                                "<Field Name=\"description\">" +
+                                "<Value>the description</Value>" +
+                                "</Field>" +
                                 "</Fields>" +
                                 "</Entity>"))
 
@@ -138,4 +138,25 @@ public class BasicClientTest extends BaseMockTest {
 
         assert qcc.putEntity(d) == 201;
     }
+
+    @Test
+    public void theClientCanBeUsedAgainAfterItIsClosed() {
+        mockServer
+                .when(request("/qcbin/rest/domains/theDomain/projects/theProject/defects"))
+                .respond(response()
+                        .withHeader("Content-Type", "application/xml")
+                        .withStatusCode(201)
+                        .withCookie("some-cookie", "to avoid default"));
+
+        QcDefect d = new QcDefect();
+        d.setProject("theProject");
+        d.setDomain(("theDomain"));
+        d.setField(QcDefectField.DESCRIPTION, "the description");
+
+        try(QCRestClient qcc = new QCRestClient("http://127.0.0.1:1080", "abc", "def")) {
+            assert qcc.postEntity(d) == 201;
+            qcc.close();
+            assert qcc.postEntity(d) == 201;
+        }
+    }
 }
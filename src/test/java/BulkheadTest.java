@@ -0,0 +1,94 @@
+/*
+ * QC REST API client
+ *
+ * Copyright (C) 2019  matthias.dirickx@outlook.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+import be.mdi.testing.qc.client.QCRestClient;
+import be.mdi.testing.qc.client.QcClientConfig;
+import be.mdi.testing.qc.model.QcType;
+import be.mdi.testing.qc.model.entities.QcAttachment;
+import be.mdi.testing.qc.model.entities.QcRun;
+import be.mdi.testing.qc.model.fields.QcRunField;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockserver.model.HttpRequest.request;
+import static org.mockserver.model.HttpResponse.response;
+
+public class BulkheadTest extends BaseMockTest {
+
+    private static final String RUNS = "/qcbin/rest/domains/theDomain/projects/theProject/runs";
+
+    private QcAttachment attachment() {
+        QcAttachment attachment = new QcAttachment();
+        attachment.setDomain("theDomain");
+        attachment.setProject("theProject");
+        attachment.setParent(QcType.RUN, "3");
+        attachment.setAttachmentInputStream(new ByteArrayInputStream(new byte[64 * 1024]), "large.bin");
+        return attachment;
+    }
+
+    private QcRun run() {
+        QcRun run = new QcRun().setField(QcRunField.RUN_NAME, "the run name");
+        run.setDomain("theDomain");
+        run.setProject("theProject");
+        return run;
+    }
+
+    @Test
+    public void slowUploadsDoNotHoldUpEntityCalls() throws Exception {
+        mockServer
+                .when(request(RUNS + "/3/attachments").withMethod("POST"))
+                .respond(response()
+                        .withStatusCode(201)
+                        .withHeader("Content-Type", "application/xml")
+                        .withDelay(TimeUnit.MILLISECONDS, 1000)
+                        .withBody("<Entity Type=\"attachment\"><Fields>" +
+                                "<Field Name=\"id\"><Value>5</Value></Field></Fields></Entity>"));
+        mockServer
+                .when(request(RUNS + "/3/attachments/5").withMethod("PUT"))
+                .respond(response().withStatusCode(200));
+        mockServer
+                .when(request(RUNS).withMethod("POST"))
+                .respond(response().withStatusCode(201));
+
+        //One connection and one call in flight for the entity calls, one upload at a time.
+        try(QCRestClient qcc = new QCRestClient("http://127.0.0.1:1080", "abc", "def", new QcClientConfig()
+                .setMaxConnectionsTotal(1)
+                .setMaxConnectionsPerRoute(1)
+                .setLimiterInitial(1)
+                .setLimiterMax(1)
+                .setAttachmentConnections(1)
+                .setAttachmentCalls(1))) {
+            qcc.login();
+
+            CompletableFuture<Void> first = CompletableFuture.runAsync(() -> qcc.postAttachment(attachment()));
+            CompletableFuture<Void> second = CompletableFuture.runAsync(() -> qcc.postAttachment(attachment()));
+            Thread.sleep(300);
+
+            long start = System.currentTimeMillis();
+            Assertions.assertEquals(201, (int) qcc.postEntity(run()));
+            Assertions.assertTrue(System.currentTimeMillis() - start < 500);
+
+            CompletableFuture.allOf(first, second).get(10, TimeUnit.SECONDS);
+            Assertions.assertEquals(1, qcc.getMetrics().getAttachmentWaits());
+        }
+    }
+}
@@ -0,0 +1,126 @@
+/*
+ * QC REST API client
+ *
+ * Copyright (C) 2019  matthias.dirickx@outlook.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+import be.mdi.testing.qc.client.CircuitState;
+import be.mdi.testing.qc.client.QCRestClient;
+import be.mdi.testing.qc.client.QcClientConfig;
+import be.mdi.testing.qc.client.RetryPolicy;
+import be.mdi.testing.qc.exception.QcCircuitOpenException;
+import be.mdi.testing.qc.model.QcType;
+import be.mdi.testing.qc.model.entities.QcDefect;
+import be.mdi.testing.qc.model.entities.QcRunStep;
+import be.mdi.testing.qc.model.entities.QcRunSteps;
+import be.mdi.testing.qc.model.fields.QcDefectField;
+import be.mdi.testing.qc.model.fields.QcRunStepField;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockserver.matchers.Times;
+import org.mockserver.verify.VerificationTimes;
+
+import static org.mockserver.model.HttpRequest.request;
+import static org.mockserver.model.HttpResponse.response;
+
+public class CircuitBreakerTest extends BaseMockTest {
+
+    private static final String RUN_STEPS = "/qcbin/rest/domains/theDomain/projects/theProject/runs/1/run-steps";
+
+    private QcRunSteps runSteps() {
+        QcRunSteps steps = new QcRunSteps();
+        steps.setDomain("theDomain");
+        steps.setProject("theProject");
+        steps.add(new QcRunStep().setField(QcRunStepField.DESCRIPTION, "a step"));
+        steps.setRunId("1");
+        return steps;
+    }
+
+    private QcDefect defect() {
+        QcDefect d = new QcDefect();
+        d.setProject("theProject");
+        d.setDomain("theDomain");
+        d.setField(QcDefectField.DESCRIPTION, "the description");
+        return d;
+    }
+
+    @Test
+    public void aFailingEndpointFailsFastAndRecoversAfterTheOpenTime() throws Exception {
+        mockServer
+                .when(request(RUN_STEPS), Times.exactly(2))
+                .respond(response().withStatusCode(503));
+        mockServer
+                .when(request(RUN_STEPS))
+                .respond(response().withStatusCode(201));
+        mockServer
+                .when(request("/qcbin/rest/domains/theDomain/projects/theProject/defects"))
+                .respond(response().withStatusCode(201));
+
+        try(QCRestClient qcc = new QCRestClient("http://127.0.0.1:1080", "abc", "def",
+                new QcClientConfig()
+                        .setRetryPolicy(RetryPolicy.noRetries())
+                        .setBreakerEnabled(true)
+                        .setBreakerFailures(2)
+                        .setBreakerOpenTime(1))) {
+            Assertions.assertEquals(503, (int) qcc.postEntities(runSteps()));
+            Assertions.assertEquals(503, (int) qcc.postEntities(runSteps()));
+            QcCircuitOpenException e = Assertions.assertThrows(
+                    QcCircuitOpenException.class, () -> qcc.postEntities(runSteps()));
+            Assertions.assertEquals("run-steps", e.getRestUrlType());
+            Assertions.assertEquals(CircuitState.OPEN, qcc.getMetrics().getCircuitState(QcType.RUN_STEP));
+            mockServer.verify(request(RUN_STEPS), VerificationTimes.exactly(2));
+
+            //Other endpoints are not affected.
+            Assertions.assertEquals(201, (int) qcc.postEntity(defect()));
+            Assertions.assertEquals(CircuitState.CLOSED, qcc.getMetrics().getCircuitState(QcType.DEFECT));
+
+            Thread.sleep(1100);
+            Assertions.assertEquals(201, (int) qcc.postEntities(runSteps()));
+
+            Assertions.assertEquals(CircuitState.CLOSED, qcc.getMetrics().getCircuitState(QcType.RUN_STEP));
+            Assertions.assertEquals(1, qcc.getMetrics().getCircuitOpens());
+            Assertions.assertEquals(1, qcc.getMetrics().getCircuitHalfOpens());
+            Assertions.assertEquals(1, qcc.getMetrics().getCircuitCloses());
+            Assertions.assertEquals(1, qcc.getMetrics().getCircuitRejections());
+        }
+    }
+
+    @Test
+    public void aFailedTrialCallOpensTheCircuitAgain() throws Exception {
+        mockServer
+                .when(request(RUN_STEPS))
+                .respond(response().withStatusCode(504));
+
+        try(QCRestClient qcc = new QCRestClient("http://127.0.0.1:1080", "abc", "def",
+                new QcClientConfig()
+                        .setRetryPolicy(RetryPolicy.noRetries())
+                        .setBreakerEnabled(true)
+                        .setBreakerFailures(1)
+                        .setBreakerOpenTime(1))) {
+            Assertions.assertEquals(504, (int) qcc.postEntities(runSteps()));
+            Thread.sleep(1100);
+            Assertions.assertEquals(504, (int) qcc.postEntities(runSteps()));
+            Assertions.assertThrows(QcCircuitOpenException.class, () -> qcc.postEntities(runSteps()));
+
+            Assertions.assertEquals(2, qcc.getMetrics().getCircuitOpens());
+            Assertions.assertEquals(CircuitState.OPEN, qcc.getMetrics().getCircuitState(QcType.RUN_STEP));
+        }
+    }
+
+    @Test
+    public void theBreakerIsOffByDefault() {
+        Assertions.assertFalse(new QcClientConfig().isBreakerEnabled());
+    }
+}
@@ -0,0 +1,142 @@
+/*
+ * QC REST API client
+ *
+ * Copyright (C) 2019  matthias.dirickx@outlook.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+import be.mdi.testing.qc.client.QCRestClient;
+import be.mdi.testing.qc.client.QcClientConfig;
+import be.mdi.testing.qc.client.RetryPolicy;
+import be.mdi.testing.qc.model.entities.QcDefect;
+import be.mdi.testing.qc.model.fields.QcDefectField;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockserver.model.HttpRequest.request;
+import static org.mockserver.model.HttpResponse.response;
+
+public class ConcurrencyLimiterTest extends BaseMockTest {
+
+    private QcDefect defect() {
+        QcDefect d = new QcDefect();
+        d.setProject("theProject");
+        d.setDomain("theDomain");
+        d.setField(QcDefectField.DESCRIPTION, "the description");
+        return d;
+    }
+
+    private List<Integer> postConcurrently(QCRestClient qcc, int calls) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(calls);
+        List<Future<Integer>> futures = new ArrayList<>();
+        for(int i = 0; i < calls; i++) {
+            futures.add(executor.submit(() -> qcc.postEntity(defect())));
+        }
+        List<Integer> statuses = new ArrayList<>();
+        for(Future<Integer> future : futures) {
+            statuses.add(future.get());
+        }
+        executor.shutdown();
+        return statuses;
+    }
+
+    @Test
+    public void callsAboveTheLimitWaitForAFreeSlot() throws Exception {
+        mockServer
+                .when(request("/qcbin/rest/domains/theDomain/projects/theProject/defects"))
+                .respond(response().withStatusCode(201).withDelay(TimeUnit.MILLISECONDS, 200));
+
+        try(QCRestClient qcc = new QCRestClient("http://127.0.0.1:1080", "abc", "def",
+                new QcClientConfig().setLimiterEnabled(true).setLimiterInitial(2).setLimiterMax(2))) {
+            qcc.login();
+
+            long start = System.currentTimeMillis();
+            for(int status : postConcurrently(qcc, 6)) {
+                Assertions.assertEquals(201, status);
+            }
+
+            //Six calls of 200ms, two at a time.
+            Assertions.assertTrue(System.currentTimeMillis() - start >= 600);
+            Assertions.assertTrue(qcc.getMetrics().getLimiterWaits() > 0);
+        }
+    }
+
+    @Test
+    public void theLimitIsLoweredWhenTheServerIsOverloaded() throws Exception {
+        mockServer
+                .when(request("/qcbin/rest/domains/theDomain/projects/theProject/defects"))
+                .respond(response().withStatusCode(503).withDelay(TimeUnit.MILLISECONDS, 20));
+
+        try(QCRestClient qcc = new QCRestClient("http://127.0.0.1:1080", "abc", "def",
+                new QcClientConfig()
+                        .setRetryPolicy(RetryPolicy.noRetries())
+                        .setLimiterEnabled(true)
+                        .setLimiterInitial(10)
+                        .setLimiterMax(10)
+                        .setLimiterBackoffRatio(0.5))) {
+            for(int i = 0; i < 3; i++) {
+                Assertions.assertEquals(503, (int) qcc.postEntity(defect()));
+                Thread.sleep(30);
+            }
+
+            Assertions.assertEquals(1, qcc.getMetrics().getConcurrencyLimit());
+        }
+    }
+
+    @Test
+    public void theLimitGrowsUpToTheConnectionsPerRoute() throws Exception {
+        mockServer
+                .when(request("/qcbin/rest/domains/theDomain/projects/theProject/defects"))
+                .respond(response().withStatusCode(201));
+
+        //A slow round trip on a busy build machine must not count as overload here.
+        try(QCRestClient qcc = new QCRestClient("http://127.0.0.1:1080", "abc", "def",
+                new QcClientConfig().setMaxConnectionsPerRoute(8).setLimiterEnabled(true).setLimiterInitial(2)
+                        .setLimiterLatencyTolerance(1000))) {
+            qcc.login();
+            Assertions.assertEquals(2, qcc.getMetrics().getConcurrencyLimit());
+
+            for(int round = 0; round < 10; round++) {
+                postConcurrently(qcc, 8);
+            }
+
+            Assertions.assertTrue(qcc.getMetrics().getConcurrencyLimit() > 2);
+            Assertions.assertTrue(qcc.getMetrics().getConcurrencyLimit() <= 8);
+        }
+    }
+
+    @Test
+    public void theLimiterCanBeDisabled() throws Exception {
+        mockServer
+                .when(request("/qcbin/rest/domains/theDomain/projects/theProject/defects"))
+                .respond(response().withStatusCode(201));
+
+        try(QCRestClient qcc = new QCRestClient("http://127.0.0.1:1080", "abc", "def",
+                new QcClientConfig().setLimiterEnabled(false))) {
+            Assertions.assertEquals(201, (int) qcc.postEntity(defect()));
+            Assertions.assertEquals(0, qcc.getMetrics().getConcurrencyLimit());
+        }
+    }
+    @Test
+    public void theLimiterIsOffByDefault() {
+        Assertions.assertFalse(new QcClientConfig().isLimiterEnabled());
+    }
+}
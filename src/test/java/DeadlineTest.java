@@ -0,0 +1,115 @@
+/*
+ * QC REST API client
+ *
+ * Copyright (C) 2019  matthias.dirickx@outlook.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+import be.mdi.testing.qc.client.QCRestClient;
+import be.mdi.testing.qc.client.QcClientConfig;
+import be.mdi.testing.qc.client.QcDeadline;
+import be.mdi.testing.qc.client.RetryPolicy;
+import be.mdi.testing.qc.exception.QcDeadlineExceededException;
+import be.mdi.testing.qc.model.entities.QcDefect;
+import be.mdi.testing.qc.model.fields.QcDefectField;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockserver.verify.VerificationTimes;
+
+import javax.ws.rs.ProcessingException;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockserver.model.HttpRequest.request;
+import static org.mockserver.model.HttpResponse.response;
+
+public class DeadlineTest extends BaseMockTest {
+
+    private static final String DEFECTS = "/qcbin/rest/domains/theDomain/projects/theProject/defects";
+    private static final String DEFECT_XML =
+            "<Entity Type=\"defect\"><Fields><Field Name=\"id\"><Value>1</Value></Field></Fields></Entity>";
+
+    private QcDefect defect() {
+        QcDefect d = new QcDefect();
+        d.setProject("theProject");
+        d.setDomain("theDomain");
+        d.setField(QcDefectField.DESCRIPTION, "the description");
+        return d;
+    }
+
+    @Test
+    public void aHungCallEndsAtTheReadTimeout() {
+        mockServer
+                .when(request(DEFECTS + "/1"))
+                .respond(response()
+                        .withHeader("Content-Type", "application/xml")
+                        .withDelay(TimeUnit.MILLISECONDS, 3000)
+                        .withBody(DEFECT_XML));
+
+        try(QCRestClient qcc = new QCRestClient("http://127.0.0.1:1080", "abc", "def",
+                new QcClientConfig().setReadTimeout(300).setRetryPolicy(RetryPolicy.noRetries()))) {
+            qcc.login();
+
+            long start = System.currentTimeMillis();
+            Assertions.assertThrows(ProcessingException.class, () -> qcc.getDefect("theDomain", "theProject", 1));
+            Assertions.assertTrue(System.currentTimeMillis() - start < 2000);
+        }
+    }
+
+    @Test
+    public void callsWithinOneDeadlineShareIt() {
+        mockServer
+                .when(request(DEFECTS).withMethod("POST"))
+                .respond(response().withStatusCode(201).withDelay(TimeUnit.MILLISECONDS, 400));
+        mockServer
+                .when(request(DEFECTS + "/1"))
+                .respond(response()
+                        .withHeader("Content-Type", "application/xml")
+                        .withDelay(TimeUnit.MILLISECONDS, 3000)
+                        .withBody(DEFECT_XML));
+
+        try(QCRestClient qcc = new QCRestClient("http://127.0.0.1:1080", "abc", "def")) {
+            qcc.login();
+
+            long start = System.currentTimeMillis();
+            try(QcDeadline deadline = QcDeadline.start(1000)) {
+                Assertions.assertSame(deadline, QcDeadline.current());
+                Assertions.assertEquals(201, (int) qcc.postEntity(defect()));
+                //The GET gets what is left of the second, not its own (longer) default deadline.
+                Assertions.assertThrows(QcDeadlineExceededException.class,
+                        () -> qcc.getDefect("theDomain", "theProject", 1));
+            }
+            long elapsed = System.currentTimeMillis() - start;
+            Assertions.assertTrue(elapsed >= 1000 && elapsed < 2500, "elapsed " + elapsed);
+            Assertions.assertNull(QcDeadline.current());
+        }
+    }
+
+    @Test
+    public void noCallIsSentAfterTheDeadline() throws Exception {
+        mockServer
+                .when(request(DEFECTS))
+                .respond(response().withStatusCode(201));
+
+        try(QCRestClient qcc = new QCRestClient("http://127.0.0.1:1080", "abc", "def")) {
+            qcc.login();
+
+            try(QcDeadline deadline = QcDeadline.start(1)) {
+                Thread.sleep(10);
+                Assertions.assertTrue(deadline.isExpired());
+                Assertions.assertThrows(QcDeadlineExceededException.class, () -> qcc.postEntity(defect()));
+            }
+            mockServer.verify(request(DEFECTS), VerificationTimes.exactly(0));
+        }
+    }
+}
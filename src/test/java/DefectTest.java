@@ -56,12 +56,12 @@ public class DefectTest  extends BaseMockTest {
         Assertions.assertEquals(sw.toString(), "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n" +
                 "<Entity Type=\"defect\">\n" +
                 "    <Fields>\n" +
-                "        <Field Name=\"description\">\n" +
-                "            <Value>the description</Value>\n" +
-                "        </Field>\n" +
                 "        <Field Name=\"closing-date\">\n" +
                 "            <Value>2019-07-20</Value>\n" +
                 "        </Field>\n" +
+                "        <Field Name=\"description\">\n" +
+                "            <Value>the description</Value>\n" +
+                "        </Field>\n" +
                 "    </Fields>\n" +
                 "</Entity>\n");
     }
@@ -0,0 +1,96 @@
+/*
+ * QC REST API client
+ *
+ * Copyright (C) 2019  matthias.dirickx@outlook.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+import be.mdi.testing.qc.client.Benchmark;
+import be.mdi.testing.qc.client.QCRestClient;
+import be.mdi.testing.qc.client.QcClientConfig;
+import be.mdi.testing.qc.model.entities.QcRuns;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.mockserver.model.HttpRequest.request;
+import static org.mockserver.model.HttpResponse.response;
+
+/**
+ * Live heap while reading a large runs collection: getRuns (all runs in a list) versus forEachRun (one at a time).
+ * The heap is measured after a garbage collection, with the list in hand or half way through the stream,
+ * and compared with the heap before the call.
+ *
+ * A Benchmark, enable with:
+ *     mvn test -Dtest=EntityStreamBenchmarkTest -Dqcclient.benchmark=true [-Dqcclient.benchmark.entities=200000]
+ */
+public class EntityStreamBenchmarkTest extends BaseMockTest {
+
+    private static final int ENTITIES = Integer.getInteger("qcclient.benchmark.entities", 50000);
+
+    private static String runs(int count) {
+        StringBuilder xml = new StringBuilder("<Entities TotalResults=\"").append(count).append("\">");
+        for(int i = 1; i <= count; i++) {
+            xml.append("<Entity Type=\"run\"><Fields>")
+                    .append("<Field Name=\"id\"><Value>").append(i).append("</Value></Field>")
+                    .append("<Field Name=\"run-name\"><Value>the name of run ").append(i).append("</Value></Field>")
+                    .append("<Field Name=\"status\"><Value>Passed</Value></Field>")
+                    .append("</Fields></Entity>");
+        }
+        return xml.append("</Entities>").toString();
+    }
+
+    private static long list(QCRestClient qcc) {
+        long before = Benchmark.liveHeap();
+        QcRuns runs = qcc.getRuns("theDomain", "theProject");
+        long during = Benchmark.liveHeap();
+        Assertions.assertNotNull(runs.get(ENTITIES - 1));
+        return during - before;
+    }
+
+    private static long stream(QCRestClient qcc) {
+        long before = Benchmark.liveHeap();
+        AtomicLong during = new AtomicLong();
+        AtomicInteger count = new AtomicInteger();
+        qcc.forEachRun("theDomain", "theProject", run -> {
+            if(count.incrementAndGet() == ENTITIES / 2) {
+                during.set(Benchmark.liveHeap());
+            }
+        });
+        Assertions.assertEquals(ENTITIES, count.get());
+        return during.get() - before;
+    }
+
+    @Test
+    public void compareListAndStream() {
+        Benchmark.assumeEnabled();
+        mockServer
+                .when(request("/qcbin/rest/domains/theDomain/projects/theProject/runs"))
+                .respond(response()
+                        .withHeader("Content-Type", "application/xml")
+                        .withBody(runs(ENTITIES)));
+        try(QCRestClient qcc = new QCRestClient("http://127.0.0.1:1080", "abc", "def",
+                new QcClientConfig().setGetDeadline(0).setReadTimeout(0))) {
+            qcc.login();
+
+            //Once each to warm up, then measured.
+            list(qcc);
+            stream(qcc);
+            Benchmark.report("getRuns    %7d runs -> %8d KB live", ENTITIES, list(qcc) / 1024);
+            Benchmark.report("forEachRun %7d runs -> %8d KB live", ENTITIES, stream(qcc) / 1024);
+        }
+    }
+}
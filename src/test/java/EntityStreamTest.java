@@ -0,0 +1,99 @@
+/*
+ * QC REST API client
+ *
+ * Copyright (C) 2019  matthias.dirickx@outlook.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+import be.mdi.testing.qc.client.QCRestClient;
+import be.mdi.testing.qc.model.entities.QcRun;
+import be.mdi.testing.qc.model.fields.QcRunField;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.mockserver.model.HttpRequest.request;
+import static org.mockserver.model.HttpResponse.response;
+
+public class EntityStreamTest extends BaseMockTest {
+
+    private static final String RUNS = "/qcbin/rest/domains/theDomain/projects/theProject/runs";
+
+    private static String runs(int count, boolean indented) {
+        String newline = indented ? "\n" : "";
+        StringBuilder xml = new StringBuilder("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>" + newline);
+        xml.append("<Entities TotalResults=\"").append(count).append("\">").append(newline);
+        for(int i = 1; i <= count; i++) {
+            xml.append("<Entity Type=\"run\"><Fields>")
+                    .append("<Field Name=\"id\"><Value>").append(i).append("</Value></Field>")
+                    .append("<Field Name=\"run-name\"><Value>run ").append(i).append("</Value></Field>")
+                    .append("</Fields><RelatedEntities/></Entity>").append(newline);
+        }
+        return xml.append("</Entities>").toString();
+    }
+
+    @Test
+    public void theRunsAreHandedOverOneAtATimeInOrder() {
+        mockServer
+                .when(request(RUNS))
+                .respond(response()
+                        .withHeader("Content-Type", "application/xml")
+                        .withBody(runs(3, true)));
+
+        try(QCRestClient qcc = new QCRestClient("http://127.0.0.1:1080", "abc", "def")) {
+            List<QcRun> read = new ArrayList<>();
+            int count = qcc.forEachRun("theDomain", "theProject", read::add);
+
+            Assertions.assertEquals(3, count);
+            Assertions.assertEquals("run 1", read.get(0).getField(QcRunField.RUN_NAME));
+            Assertions.assertEquals("3", read.get(2).getField(QcRunField.ID));
+            Assertions.assertEquals("theProject", read.get(1).getProject());
+            Assertions.assertEquals("theDomain", read.get(1).getDomain());
+        }
+    }
+
+    @Test
+    public void entitiesWithoutWhitespaceInBetweenAreAllRead() {
+        mockServer
+                .when(request(RUNS))
+                .respond(response()
+                        .withHeader("Content-Type", "application/xml")
+                        .withBody(runs(20000, false)));
+
+        try(QCRestClient qcc = new QCRestClient("http://127.0.0.1:1080", "abc", "def")) {
+            AtomicInteger lastId = new AtomicInteger();
+            int count = qcc.forEachRun("theDomain", "theProject",
+                    run -> Assertions.assertEquals(lastId.incrementAndGet(), Integer.parseInt(run.getField(QcRunField.ID))));
+
+            Assertions.assertEquals(20000, count);
+            Assertions.assertEquals(20000, lastId.get());
+        }
+    }
+
+    @Test
+    public void anEmptyCollectionReadsNothing() {
+        mockServer
+                .when(request(RUNS))
+                .respond(response()
+                        .withHeader("Content-Type", "application/xml")
+                        .withBody("<Entities TotalResults=\"0\"/>"));
+
+        try(QCRestClient qcc = new QCRestClient("http://127.0.0.1:1080", "abc", "def")) {
+            Assertions.assertEquals(0, qcc.forEachRun("theDomain", "theProject", run -> Assertions.fail("no runs")));
+        }
+    }
+}
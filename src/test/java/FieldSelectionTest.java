@@ -0,0 +1,118 @@
+/*
+ * QC REST API client
+ *
+ * Copyright (C) 2019  matthias.dirickx@outlook.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+import be.mdi.testing.qc.client.QCRestClient;
+import be.mdi.testing.qc.exception.QcFieldNotLoadedException;
+import be.mdi.testing.qc.model.entities.QcDefect;
+import be.mdi.testing.qc.model.entities.QcDefects;
+import be.mdi.testing.qc.model.entities.QcRunStep;
+import be.mdi.testing.qc.model.fields.QcDefectField;
+import be.mdi.testing.qc.model.fields.QcRunStepField;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockserver.verify.VerificationTimes;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+
+import static org.mockserver.model.HttpRequest.request;
+import static org.mockserver.model.HttpResponse.response;
+
+public class FieldSelectionTest extends BaseMockTest {
+
+    private static final String PROJECT = "/qcbin/rest/domains/theDomain/projects/theProject";
+
+    private QCRestClient client() {
+        return new QCRestClient("http://127.0.0.1:1080", "abc", "def");
+    }
+
+    @Test
+    public void onlyTheSelectedFieldsAreAskedFor() {
+        mockServer
+                .when(request(PROJECT + "/defects").withQueryStringParameter("fields", "id,name,status"))
+                .respond(response()
+                        .withHeader("Content-Type", "application/xml")
+                        .withBody("<Entities TotalResults=\"1\"><Entity Type=\"defect\"><Fields>" +
+                                "<Field Name=\"id\"><Value>1</Value></Field>" +
+                                "<Field Name=\"status\"><Value>Open</Value></Field>" +
+                                "<Field Name=\"name\"/>" +
+                                "</Fields></Entity></Entities>"));
+
+        QcDefects defects;
+        try(QCRestClient qcc = client()) {
+            defects = qcc.getDefects("theDomain", "theProject", EnumSet.of(QcDefectField.STATUS, QcDefectField.NAME));
+        }
+        QcDefect defect = defects.get(0);
+
+        Assertions.assertEquals("Open", defect.getField(QcDefectField.STATUS));
+        Assertions.assertNull(defect.getField(QcDefectField.NAME));
+        Assertions.assertTrue(defect.isLoaded("name"));
+        Assertions.assertFalse(defect.isLoaded("owner"));
+        QcFieldNotLoadedException e = Assertions.assertThrows(
+                QcFieldNotLoadedException.class, () -> defect.getField(QcDefectField.RESPONSIBLE));
+        Assertions.assertEquals("owner", e.getFieldName());
+
+        defect.setField(QcDefectField.RESPONSIBLE, "me");
+        Assertions.assertEquals("me", defect.getField(QcDefectField.RESPONSIBLE));
+    }
+
+    @Test
+    public void runStepsAreReadWithTheirRunId() {
+        mockServer
+                .when(request(PROJECT + "/run-steps").withQueryStringParameter("fields", "id,parent-id,status"))
+                .respond(response()
+                        .withHeader("Content-Type", "application/xml")
+                        .withBody("<Entities TotalResults=\"1\"><Entity Type=\"run-step\"><Fields>" +
+                                "<Field Name=\"id\"><Value>7</Value></Field>" +
+                                "<Field Name=\"parent-id\"><Value>3</Value></Field>" +
+                                "<Field Name=\"status\"><Value>Passed</Value></Field>" +
+                                "</Fields></Entity></Entities>"));
+
+        List<QcRunStep> steps = new ArrayList<>();
+        int count;
+        try(QCRestClient qcc = client()) {
+            count = qcc.forEachRunStep("theDomain", "theProject", EnumSet.of(QcRunStepField.STATUS), steps::add);
+        }
+
+        Assertions.assertEquals(1, count);
+        Assertions.assertEquals("Passed", steps.get(0).getField(QcRunStepField.STATUS));
+        Assertions.assertEquals("3", steps.get(0).getField(QcRunStepField.PARENT_ID));
+        Assertions.assertThrows(QcFieldNotLoadedException.class, () -> steps.get(0).getField(QcRunStepField.DESCRIPTION));
+    }
+
+    @Test
+    public void withoutASelectionAllFieldsAreRead() {
+        mockServer
+                .when(request(PROJECT + "/defects"))
+                .respond(response()
+                        .withHeader("Content-Type", "application/xml")
+                        .withBody("<Entities TotalResults=\"1\"><Entity Type=\"defect\"><Fields>" +
+                                "<Field Name=\"id\"><Value>1</Value></Field>" +
+                                "</Fields></Entity></Entities>"));
+
+        QcDefect defect;
+        try(QCRestClient qcc = client()) {
+            defect = qcc.getDefects("theDomain", "theProject").get(0);
+        }
+
+        Assertions.assertNull(defect.getLoadedFields());
+        Assertions.assertNull(defect.getField(QcDefectField.RESPONSIBLE));
+        mockServer.verify(request(PROJECT + "/defects").withQueryStringParameter("fields", ".*"), VerificationTimes.exactly(0));
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * QC REST API client
+ *
+ * Copyright (C) 2019  matthias.dirickx@outlook.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+import be.mdi.testing.qc.client.QCRestClient;
+import be.mdi.testing.qc.client.QcClientConfig;
+import be.mdi.testing.qc.model.entities.QcDefect;
+import be.mdi.testing.qc.model.entities.QcRunStep;
+import be.mdi.testing.qc.model.entities.QcRunSteps;
+import be.mdi.testing.qc.model.fields.QcDefectField;
+import be.mdi.testing.qc.model.fields.QcRunStepField;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockserver.model.RegexBody;
+import org.mockserver.verify.VerificationTimes;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPOutputStream;
+
+import static org.mockserver.model.HttpRequest.request;
+import static org.mockserver.model.HttpResponse.response;
+
+public class GzipCompressionTest extends BaseMockTest {
+
+    private static byte[] gzip(String s) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try(GZIPOutputStream gzip = new GZIPOutputStream(bytes)) {
+            gzip.write(s.getBytes(StandardCharsets.UTF_8));
+        }
+        return bytes.toByteArray();
+    }
+
+    @Test
+    public void aGzipEncodedResponseIsDecodedAndCounted() throws IOException {
+        String xml = "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>" +
+                "<Entity Type=\"defect\">" +
+                "<Fields>" +
+                "<Field Name=\"description\"><Value>the description</Value></Field>" +
+                "</Fields>" +
+                "</Entity>";
+        mockServer
+                .when(request("/qcbin/rest/domains/theDomain/projects/theProject/defects/1")
+                        .withHeader("Accept-Encoding", "gzip"))
+                .respond(response()
+                        .withHeader("Content-Type", "application/xml")
+                        .withHeader("Content-Encoding", "gzip")
+                        .withBody(gzip(xml)));
+
+        try(QCRestClient qcc = new QCRestClient("http://127.0.0.1:1080", "abc", "def",
+                new QcClientConfig().setGzipResponses(true))) {
+            QcDefect defect = qcc.getDefect("theDomain", "theProject", 1);
+
+            Assertions.assertEquals("the description", defect.getField(QcDefectField.DESCRIPTION));
+            Assertions.assertEquals(1, qcc.getMetrics().getCompressedResponses());
+            Assertions.assertEquals(xml.length(), qcc.getMetrics().getResponseBytes());
+            Assertions.assertEquals(gzip(xml).length, qcc.getMetrics().getResponseBytesOnWire());
+        }
+    }
+
+    @Test
+    public void onlyRequestBodiesAboveTheThresholdAreCompressed() {
+        mockServer
+                .when(request("/qcbin/rest/domains/theDomain/projects/theProject/runs/1/run-steps"))
+                .respond(response().withStatusCode(201));
+
+        try(QCRestClient qcc = new QCRestClient("http://127.0.0.1:1080", "abc", "def",
+                new QcClientConfig().setGzipRequests(true).setGzipThreshold(1024))) {
+            QcRunSteps small = new QcRunSteps();
+            small.setDomain("theDomain");
+            small.setProject("theProject");
+            small.add(new QcRunStep().setField(QcRunStepField.DESCRIPTION, "one step"));
+            small.setRunId("1");
+            Assertions.assertEquals(201, (int) qcc.postEntities(small));
+            Assertions.assertEquals(0, qcc.getMetrics().getCompressedRequests());
+
+            QcRunSteps large = new QcRunSteps();
+            large.setDomain("theDomain");
+            large.setProject("theProject");
+            for(int i = 0; i < 100; i++) {
+                large.add(new QcRunStep()
+                        .setField(QcRunStepField.DESCRIPTION, "the description of step " + i)
+                        .setField(QcRunStepField.STATUS, "Passed"));
+            }
+            large.setRunId("1");
+            Assertions.assertEquals(201, (int) qcc.postEntities(large));
+
+            Assertions.assertEquals(1, qcc.getMetrics().getCompressedRequests());
+            Assertions.assertTrue(qcc.getMetrics().getRequestBytesOnWire() * 5 < qcc.getMetrics().getRequestBytes());
+            //The mock server decodes the gzip body before matching.
+            mockServer.verify(request("/qcbin/rest/domains/theDomain/projects/theProject/runs/1/run-steps")
+                    .withBody(RegexBody.regex(".*the description of step 99.*")), VerificationTimes.exactly(1));
+        }
+    }
+}
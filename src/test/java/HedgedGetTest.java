@@ -0,0 +1,115 @@
+/*
+ * QC REST API client
+ *
+ * Copyright (C) 2019  matthias.dirickx@outlook.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+import be.mdi.testing.qc.client.QCRestClient;
+import be.mdi.testing.qc.client.QcClientConfig;
+import be.mdi.testing.qc.model.entities.QcRun;
+import be.mdi.testing.qc.model.fields.QcRunField;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockserver.matchers.Times;
+import org.mockserver.verify.VerificationTimes;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.mockserver.model.HttpRequest.request;
+import static org.mockserver.model.HttpResponse.response;
+
+public class HedgedGetTest extends BaseMockTest {
+
+    private static final String RUN = "/qcbin/rest/domains/theDomain/projects/theProject/runs/1";
+    private static final String RUN_XML =
+            "<Entity Type=\"run\"><Fields><Field Name=\"id\"><Value>1</Value></Field></Fields></Entity>";
+
+    private QCRestClient hedgingClient() {
+        QCRestClient qcc = new QCRestClient("http://127.0.0.1:1080", "abc", "def",
+                new QcClientConfig().setHedgeEnabled(true).setHedgeMinDelay(100));
+        qcc.login();
+        return qcc;
+    }
+
+    @Test
+    public void aSlowGetIsHedgedAndTheFastestAnswerWins() {
+        mockServer
+                .when(request(RUN), Times.once())
+                .respond(response()
+                        .withHeader("Content-Type", "application/xml")
+                        .withDelay(TimeUnit.MILLISECONDS, 2000)
+                        .withBody(RUN_XML));
+        mockServer
+                .when(request(RUN))
+                .respond(response()
+                        .withHeader("Content-Type", "application/xml")
+                        .withBody(RUN_XML));
+
+        try(QCRestClient qcc = hedgingClient()) {
+            long start = System.currentTimeMillis();
+            QcRun run = qcc.getRun("theDomain", "theProject", 1);
+
+            Assertions.assertEquals("1", run.getField(QcRunField.ID));
+            Assertions.assertTrue(System.currentTimeMillis() - start < 1500);
+            Assertions.assertEquals(1, qcc.getMetrics().getHedgesFired());
+            Assertions.assertEquals(1, qcc.getMetrics().getHedgesWon());
+            mockServer.verify(request(RUN), VerificationTimes.exactly(2));
+        }
+    }
+
+    @Test
+    public void aFastGetIsNotHedged() {
+        mockServer
+                .when(request(RUN))
+                .respond(response()
+                        .withHeader("Content-Type", "application/xml")
+                        .withBody(RUN_XML));
+
+        try(QCRestClient qcc = hedgingClient()) {
+            Assertions.assertEquals("1", qcc.getRun("theDomain", "theProject", 1).getField(QcRunField.ID));
+            Assertions.assertEquals(0, qcc.getMetrics().getHedgesFired());
+            mockServer.verify(request(RUN), VerificationTimes.exactly(1));
+        }
+    }
+
+    private static long hedgeThreads() {
+        return Thread.getAllStackTraces().keySet().stream()
+                .filter(thread -> thread.getName().startsWith("qcclient-hedge"))
+                .count();
+    }
+
+    @Test
+    public void closeStopsTheHedgeThreadsAndALaterCallStartsThemAgain() throws Exception {
+        mockServer
+                .when(request(RUN))
+                .respond(response()
+                        .withHeader("Content-Type", "application/xml")
+                        .withBody(RUN_XML));
+        long before = hedgeThreads();
+
+        QCRestClient qcc = hedgingClient();
+        Assertions.assertEquals("1", qcc.getRun("theDomain", "theProject", 1).getField(QcRunField.ID));
+        Assertions.assertTrue(hedgeThreads() > before);
+        qcc.close();
+
+        long end = System.currentTimeMillis() + 5000;
+        while(hedgeThreads() > before && System.currentTimeMillis() < end) {
+            Thread.sleep(20);
+        }
+        Assertions.assertTrue(hedgeThreads() <= before);
+        Assertions.assertEquals("1", qcc.getRun("theDomain", "theProject", 1).getField(QcRunField.ID));
+        qcc.close();
+    }
+}
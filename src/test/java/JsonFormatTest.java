@@ -0,0 +1,157 @@
+/*
+ * QC REST API client
+ *
+ * Copyright (C) 2019  matthias.dirickx@outlook.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+import be.mdi.testing.qc.client.QCRestClient;
+import be.mdi.testing.qc.client.QcClientConfig;
+import be.mdi.testing.qc.exception.QcClientException;
+import be.mdi.testing.qc.model.entities.QcDefect;
+import be.mdi.testing.qc.model.entities.QcDefects;
+import be.mdi.testing.qc.model.entities.QcRun;
+import be.mdi.testing.qc.model.entities.QcRunStep;
+import be.mdi.testing.qc.model.entities.QcRunSteps;
+import be.mdi.testing.qc.model.fields.QcDefectField;
+import be.mdi.testing.qc.model.fields.QcRunField;
+import be.mdi.testing.qc.model.fields.QcRunStepField;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockserver.model.RegexBody;
+import org.mockserver.verify.VerificationTimes;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.mockserver.model.HttpRequest.request;
+import static org.mockserver.model.HttpResponse.response;
+
+public class JsonFormatTest extends BaseMockTest {
+
+    private static final String PROJECT = "/qcbin/rest/domains/theDomain/projects/theProject";
+    private static final String DEFECTS_JSON =
+            "{\"entities\":[" +
+            "{\"Fields\":[" +
+                "{\"Name\":\"id\",\"values\":[{\"value\":\"1\"}]}," +
+                "{\"Name\":\"description\",\"values\":[{\"value\":\"the \\\"first\\\" one\"}]}," +
+                "{\"Name\":\"owner\",\"values\":[{}]}," +
+                "{\"Name\":\"status\",\"values\":[]}" +
+            "],\"Type\":\"defect\",\"children-count\":0}," +
+            "{\"Fields\":[{\"Name\":\"id\",\"values\":[{\"value\":2}]}],\"Type\":\"defect\"}" +
+            "],\"TotalResults\":2}";
+
+    private QCRestClient jsonClient() {
+        return new QCRestClient("http://127.0.0.1:1080", "abc", "def", new QcClientConfig().setFormat("json"));
+    }
+
+    @Test
+    public void entitiesAreAskedForAndReadAsJson() {
+        mockServer
+                .when(request(PROJECT + "/defects").withHeader("Accept", "application/json"))
+                .respond(response()
+                        .withHeader("Content-Type", "application/json")
+                        .withBody(DEFECTS_JSON));
+
+        try(QCRestClient qcc = jsonClient()) {
+            QcDefects defects = qcc.getDefects("theDomain", "theProject");
+
+            Assertions.assertEquals(2, defects.getTotalresults());
+            Assertions.assertEquals("the \"first\" one", defects.get(0).getField(QcDefectField.DESCRIPTION));
+            Assertions.assertEquals("", defects.get(0).getField(QcDefectField.RESPONSIBLE));
+            Assertions.assertNull(defects.get(0).getField(QcDefectField.STATUS));
+            Assertions.assertEquals("2", defects.get(1).getField(QcDefectField.BUG_ID));
+            Assertions.assertEquals("defect", defects.get(1).getType());
+        }
+    }
+
+    @Test
+    public void entitiesCanBeReadOneAtATimeFromJson() {
+        mockServer
+                .when(request(PROJECT + "/defects"))
+                .respond(response()
+                        .withHeader("Content-Type", "application/json")
+                        .withBody(DEFECTS_JSON));
+
+        List<QcDefect> defects = new ArrayList<>();
+
+        try(QCRestClient qcc = jsonClient()) {
+            Assertions.assertEquals(2, qcc.forEachDefect("theDomain", "theProject", defects::add));
+        }
+        Assertions.assertEquals("1", defects.get(0).getField(QcDefectField.BUG_ID));
+        Assertions.assertEquals("theProject", defects.get(1).getProject());
+    }
+
+    @Test
+    public void anEntityIsPostedAsJson() {
+        mockServer
+                .when(request(PROJECT + "/runs").withMethod("POST")
+                        .withHeader("Content-Type", "application/json")
+                        .withBody("{\"Fields\":[{\"Name\":\"run-name\",\"values\":[{\"value\":\"the run name\"}]}],\"Type\":\"run\"}"))
+                .respond(response()
+                        .withStatusCode(201)
+                        .withHeader("Content-Type", "application/json")
+                        .withBody("{\"Fields\":[{\"Name\":\"id\",\"values\":[{\"value\":\"5\"}]}],\"Type\":\"run\"}"));
+
+        QcRun run = new QcRun().setField(QcRunField.RUN_NAME, "the run name");
+        run.setDomain("theDomain");
+        run.setProject("theProject");
+
+        try(QCRestClient qcc = jsonClient()) {
+            Assertions.assertEquals("5", qcc.postEntity(QcRun.class, run).getField(QcRunField.ID));
+        }
+    }
+
+    @Test
+    public void aCollectionIsPostedAsJson() {
+        mockServer
+                .when(request(PROJECT + "/runs/3/run-steps").withMethod("POST"))
+                .respond(response().withStatusCode(201));
+
+        QcRunSteps steps = new QcRunSteps();
+        steps.setDomain("theDomain");
+        steps.setProject("theProject");
+        for(int i = 0; i < 3; i++) {
+            steps.add(new QcRunStep().setField(QcRunStepField.DESCRIPTION, "step " + i));
+        }
+        steps.setRunId("3");
+
+        try(QCRestClient qcc = jsonClient()) {
+            Assertions.assertEquals(201, (int) qcc.postEntities(steps));
+        }
+        mockServer.verify(request(PROJECT + "/runs/3/run-steps")
+                .withHeader("Content-Type", "application/json")
+                .withBody(RegexBody.regex("\\{\"entities\":\\[\\{\"Fields\":.*\"step 2\".*\\],\"TotalResults\":0\\}")),
+                VerificationTimes.once());
+    }
+
+    @Test
+    public void anXmlAnswerIsStillReadInJsonMode() {
+        mockServer
+                .when(request(PROJECT + "/runs/1"))
+                .respond(response()
+                        .withHeader("Content-Type", "application/xml")
+                        .withBody("<Entity Type=\"run\"><Fields><Field Name=\"id\"><Value>1</Value></Field></Fields></Entity>"));
+
+        try(QCRestClient qcc = jsonClient()) {
+            Assertions.assertEquals("1", qcc.getRun("theDomain", "theProject", 1).getField(QcRunField.ID));
+        }
+    }
+
+    @Test
+    public void anUnknownFormatIsRejected() {
+        Assertions.assertThrows(QcClientException.class, () ->
+                new QCRestClient("http://127.0.0.1:1080", "abc", "def", new QcClientConfig().setFormat("yaml")));
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * QC REST API client
+ *
+ * Copyright (C) 2019  matthias.dirickx@outlook.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+import be.mdi.testing.qc.client.QCRestClient;
+import be.mdi.testing.qc.client.QcClientConfig;
+import be.mdi.testing.qc.model.entities.QcDefect;
+import be.mdi.testing.qc.model.entities.QcDefects;
+import be.mdi.testing.qc.model.fields.QcDefectField;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockserver.model.RegexBody;
+import org.mockserver.verify.VerificationTimes;
+
+import static org.mockserver.model.HttpRequest.request;
+import static org.mockserver.model.HttpResponse.response;
+
+public class LazyFieldsTest extends BaseMockTest {
+
+    private static final String PROJECT = "/qcbin/rest/domains/theDomain/projects/theProject";
+    private static final String DEFECTS =
+            "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n" +
+            "<Entities TotalResults=\"2\">\n" +
+            "    <Entity Type=\"defect\">\n" +
+            "        <Fields>\n" +
+            "            <Field Name=\"id\"><Value>1</Value></Field>\n" +
+            "            <Field Name=\"status\"><Value>Open</Value></Field>\n" +
+            "            <Field Name=\"description\"><Value>&lt;b&gt;bold&lt;/b&gt;</Value></Field>\n" +
+            "            <Field Name=\"owner\"/>\n" +
+            "            <Field Name=\"user-field\"><Value>user value</Value></Field>\n" +
+            "        </Fields>\n" +
+            "    </Entity>\n" +
+            "    <Entity Type=\"defect\"><Fields><Field Name=\"id\"><Value>2</Value></Field></Fields></Entity>\n" +
+            "</Entities>";
+
+    private QCRestClient lazyClient() {
+        return new QCRestClient("http://127.0.0.1:1080", "abc", "def", new QcClientConfig().setLazyFields(true));
+    }
+
+    @Test
+    public void lazilyReadDefectsHaveTheFieldsOfEagerlyReadOnes() {
+        mockServer
+                .when(request(PROJECT + "/defects"))
+                .respond(response()
+                        .withHeader("Content-Type", "application/xml")
+                        .withBody(DEFECTS));
+
+        QcDefects lazy;
+        QcDefects eager;
+        try(QCRestClient lazyClient = lazyClient();
+            QCRestClient eagerClient = new QCRestClient("http://127.0.0.1:1080", "abc", "def")) {
+            lazy = lazyClient.getDefects("theDomain", "theProject");
+            eager = eagerClient.getDefects("theDomain", "theProject");
+        }
+
+        Assertions.assertEquals(2, lazy.getTotalresults());
+        Assertions.assertEquals("Open", lazy.get(0).getField(QcDefectField.STATUS));
+        Assertions.assertEquals("<b>bold</b>", lazy.get(0).getField(QcDefectField.DESCRIPTION));
+        Assertions.assertNull(lazy.get(0).getField(QcDefectField.RESPONSIBLE));
+        Assertions.assertEquals(eager.get(0).getFields(), lazy.get(0).getFields());
+        Assertions.assertEquals(eager.get(1).getFields(), lazy.get(1).getFields());
+    }
+
+    @Test
+    public void aLazilyReadDefectCanBeChangedAndSentBack() {
+        mockServer
+                .when(request(PROJECT + "/defects").withMethod("GET"))
+                .respond(response()
+                        .withHeader("Content-Type", "application/xml")
+                        .withBody(DEFECTS));
+        mockServer
+                .when(request(PROJECT + "/defects/1").withMethod("PUT"))
+                .respond(response().withStatusCode(200));
+
+        try(QCRestClient qcc = lazyClient()) {
+            QcDefect defect = qcc.getDefects("theDomain", "theProject").get(0);
+            defect.setDomain("theDomain");
+            defect.setProject("theProject");
+            defect.setField(QcDefectField.STATUS, "Closed");
+
+            Assertions.assertEquals(200, (int) qcc.putEntity(defect));
+            mockServer.verify(request(PROJECT + "/defects/1")
+                    .withMethod("PUT")
+                    .withBody(RegexBody.regex(".*<Field Name=\"status\"><Value>Closed</Value></Field>.*")),
+                    VerificationTimes.once());
+            mockServer.verify(request(PROJECT + "/defects/1")
+                    .withMethod("PUT")
+                    .withBody(RegexBody.regex(".*<Field Name=\"description\"><Value>&lt;b&gt;bold&lt;/b&gt;</Value></Field>.*")),
+                    VerificationTimes.once());
+        }
+    }
+}
@@ -1767,22 +1767,22 @@ public class QcEntitiesTest extends BaseMockTest {
                                         "<Entities TotalResults=\"2\">" +
                                         "<Entity Type=\"run-step\">" +
                                         "<Fields>" +
-                                        "<Field Name=\"run-id\">" +
-                                        "<Value>1</Value>" +
-                                        "</Field>" +
                                         "<Field Name=\"description\">" +
                                         "<Value>the description</Value>" +
                                         "</Field>" +
+                                        "<Field Name=\"run-id\">" +
+                                        "<Value>1</Value>" +
+                                        "</Field>" +
                                         "</Fields>" +
                                         "</Entity>" +
                                         "<Entity Type=\"run-step\">" +
                                         "<Fields>" +
-                                        "<Field Name=\"run-id\">" +
-                                        "<Value>1</Value>" +
-                                        "</Field>" +
                                         "<Field Name=\"description\">" +
                                         "<Value>the description of the second one</Value>" +
                                         "</Field>" +
+                                        "<Field Name=\"run-id\">" +
+                                        "<Value>1</Value>" +
+                                        "</Field>" +
                                         "</Fields>" +
                                         "</Entity>" +
                                         "</Entities>"))
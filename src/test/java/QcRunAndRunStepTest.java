@@ -36,12 +36,12 @@ public class QcRunAndRunStepTest extends BaseMockTest {
                         .withBody("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>" +
                                 "<Entity Type=\"run\">" +
                                 "<Fields>" +
-                                "<Field Name=\"execution-date\">" +
-                                "<Value>2019-10-27</Value>" +
-                                "</Field>" +
                                 "<Field Name=\"run-name\">" +
                                 "<Value>the run name</Value>" +
                                 "</Field>" +
+                                "<Field Name=\"execution-date\">" +
+                                "<Value>2019-10-27</Value>" +
+                                "</Field>" +
                                 "</Fields>" +
                                 "</Entity>"))
 
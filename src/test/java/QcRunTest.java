@@ -56,12 +56,12 @@ public class QcRunTest extends BaseMockTest {
         Assertions.assertEquals(sw.toString(), "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n" +
                 "<Entity Type=\"run\">\n" +
                 "    <Fields>\n" +
-                "        <Field Name=\"execution-date\">\n" +
-                "            <Value>2019-07-20</Value>\n" +
-                "        </Field>\n" +
                 "        <Field Name=\"run-name\">\n" +
                 "            <Value>the name</Value>\n" +
                 "        </Field>\n" +
+                "        <Field Name=\"execution-date\">\n" +
+                "            <Value>2019-07-20</Value>\n" +
+                "        </Field>\n" +
                 "    </Fields>\n" +
                 "</Entity>\n");
     }
@@ -0,0 +1,86 @@
+/*
+ * QC REST API client
+ *
+ * Copyright (C) 2019  matthias.dirickx@outlook.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+import be.mdi.testing.qc.client.QCRestClient;
+import be.mdi.testing.qc.client.QcClientConfig;
+import be.mdi.testing.qc.client.RateLimit;
+import be.mdi.testing.qc.exception.QcRateLimitException;
+import be.mdi.testing.qc.model.entities.QcDefect;
+import be.mdi.testing.qc.model.fields.QcDefectField;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockserver.verify.VerificationTimes;
+
+import static org.mockserver.model.HttpRequest.request;
+import static org.mockserver.model.HttpResponse.response;
+
+public class RateLimitTest extends BaseMockTest {
+
+    private QcDefect defect(String project) {
+        QcDefect d = new QcDefect();
+        d.setProject(project);
+        d.setDomain("theDomain");
+        d.setField(QcDefectField.DESCRIPTION, "the description");
+        return d;
+    }
+
+    @Test
+    public void callsAboveTheLimitOfTheProjectAreRejected() {
+        mockServer
+                .when(request("/qcbin/rest/domains/theDomain/projects/.*/defects"))
+                .respond(response().withStatusCode(201));
+
+        try(QCRestClient qcc = new QCRestClient("http://127.0.0.1:1080", "abc", "def",
+                new QcClientConfig().setRateLimit("theDomain", "theProject",
+                        new RateLimit(0.1).setBurst(1).setMaxWaitMillis(0)))) {
+            Assertions.assertEquals(201, (int) qcc.postEntity(defect("theProject")));
+            QcRateLimitException e = Assertions.assertThrows(
+                    QcRateLimitException.class, () -> qcc.postEntity(defect("theProject")));
+            Assertions.assertEquals("theProject", e.getProject());
+
+            //Other projects have their own bucket.
+            Assertions.assertEquals(201, (int) qcc.postEntity(defect("otherProject")));
+            Assertions.assertEquals(201, (int) qcc.postEntity(defect("otherProject")));
+
+            Assertions.assertEquals(1, qcc.getMetrics().getRateLimitRejections());
+            mockServer.verify(request("/qcbin/rest/domains/theDomain/projects/theProject/defects"),
+                    VerificationTimes.exactly(1));
+        }
+    }
+
+    @Test
+    public void callsAboveTheLimitWaitForAToken() {
+        mockServer
+                .when(request("/qcbin/rest/domains/theDomain/projects/theProject/defects"))
+                .respond(response().withStatusCode(201));
+
+        try(QCRestClient qcc = new QCRestClient("http://127.0.0.1:1080", "abc", "def",
+                new QcClientConfig().setRateLimit(new RateLimit(10).setBurst(1)))) {
+            qcc.login();
+
+            long start = System.currentTimeMillis();
+            for(int i = 0; i < 4; i++) {
+                Assertions.assertEquals(201, (int) qcc.postEntity(defect("theProject")));
+            }
+
+            //One token right away, three more at 10 per second.
+            Assertions.assertTrue(System.currentTimeMillis() - start >= 290);
+            Assertions.assertEquals(3, qcc.getMetrics().getRateLimitWaits());
+        }
+    }
+}
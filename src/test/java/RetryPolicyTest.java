@@ -0,0 +1,133 @@
+/*
+ * QC REST API client
+ *
+ * Copyright (C) 2019  matthias.dirickx@outlook.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+import be.mdi.testing.qc.client.QCRestClient;
+import be.mdi.testing.qc.client.QcClientConfig;
+import be.mdi.testing.qc.client.RetryPolicy;
+import be.mdi.testing.qc.model.QcType;
+import be.mdi.testing.qc.model.entities.QcDefect;
+import be.mdi.testing.qc.model.fields.QcDefectField;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockserver.matchers.Times;
+import org.mockserver.verify.VerificationTimes;
+
+import static org.mockserver.model.HttpRequest.request;
+import static org.mockserver.model.HttpResponse.response;
+
+public class RetryPolicyTest extends BaseMockTest {
+
+    private static final String DEFECTS = "/qcbin/rest/domains/theDomain/projects/theProject/defects";
+
+    private QcClientConfig config() {
+        return new QcClientConfig().setRetryPolicy(new RetryPolicy().setBackoffMillis(1));
+    }
+
+    private QcDefect defect(String id) {
+        QcDefect d = new QcDefect();
+        d.setProject("theProject");
+        d.setDomain("theDomain");
+        d.setField(QcDefectField.BUG_ID, id);
+        return d;
+    }
+
+    @Test
+    public void aGetIsRetriedAfterAServiceUnavailable() {
+        mockServer
+                .when(request(DEFECTS + "/1"), Times.once())
+                .respond(response().withStatusCode(503).withHeader("Retry-After", "0"));
+        mockServer
+                .when(request(DEFECTS + "/1"))
+                .respond(response()
+                        .withHeader("Content-Type", "application/xml")
+                        .withBody("<Entity Type=\"defect\"><Fields><Field Name=\"id\"><Value>1</Value></Field></Fields></Entity>"));
+
+        try(QCRestClient qcc = new QCRestClient("http://127.0.0.1:1080", "abc", "def", config())) {
+            Assertions.assertEquals("1", qcc.getDefect("theDomain", "theProject", 1).getField(QcDefectField.BUG_ID));
+            Assertions.assertEquals(1, qcc.getMetrics().getRetries());
+            mockServer.verify(request(DEFECTS + "/1"), VerificationTimes.exactly(2));
+        }
+    }
+
+    @Test
+    public void aPutIsRetriedUpToTheMaximumNumberOfAttempts() {
+        mockServer
+                .when(request(DEFECTS + "/2").withMethod("PUT"))
+                .respond(response().withStatusCode(502));
+
+        try(QCRestClient qcc = new QCRestClient("http://127.0.0.1:1080", "abc", "def", config())) {
+            Assertions.assertEquals(502, (int) qcc.putEntity(defect("2")));
+            mockServer.verify(request(DEFECTS + "/2"), VerificationTimes.exactly(3));
+        }
+    }
+
+    @Test
+    public void aPostThatReachedTheServerIsNotRetried() {
+        mockServer
+                .when(request(DEFECTS).withMethod("POST"))
+                .respond(response().withStatusCode(503));
+
+        try(QCRestClient qcc = new QCRestClient("http://127.0.0.1:1080", "abc", "def", config())) {
+            Assertions.assertEquals(503, (int) qcc.postEntity(defect(null)));
+            Assertions.assertEquals(0, qcc.getMetrics().getRetries());
+            mockServer.verify(request(DEFECTS), VerificationTimes.exactly(1));
+        }
+    }
+
+    @Test
+    public void aPolicyCanBeSetPerType() {
+        mockServer
+                .when(request(DEFECTS + "/3").withMethod("PUT"))
+                .respond(response().withStatusCode(503));
+
+        try(QCRestClient qcc = new QCRestClient("http://127.0.0.1:1080", "abc", "def",
+                config().setRetryPolicy(QcType.DEFECT, RetryPolicy.noRetries()))) {
+            Assertions.assertEquals(503, (int) qcc.putEntity(defect("3")));
+            mockServer.verify(request(DEFECTS + "/3"), VerificationTimes.exactly(1));
+        }
+    }
+
+    @Test
+    public void retriesStopWhenTheBudgetIsUsedUp() {
+        mockServer
+                .when(request(DEFECTS + "/4").withMethod("PUT"))
+                .respond(response().withStatusCode(503));
+
+        try(QCRestClient qcc = new QCRestClient("http://127.0.0.1:1080", "abc", "def",
+                config().setRetryBudgetRatio(0).setRetryBudgetMax(2))) {
+            Assertions.assertEquals(503, (int) qcc.putEntity(defect("4")));
+            Assertions.assertEquals(503, (int) qcc.putEntity(defect("4")));
+
+            Assertions.assertEquals(2, qcc.getMetrics().getRetries());
+            Assertions.assertEquals(1, qcc.getMetrics().getRetriesDenied());
+            mockServer.verify(request(DEFECTS + "/4"), VerificationTimes.exactly(4));
+        }
+    }
+
+    @Test
+    public void aLongRetryAfterIsNotWaitedFor() {
+        mockServer
+                .when(request(DEFECTS + "/5").withMethod("PUT"))
+                .respond(response().withStatusCode(429).withHeader("Retry-After", "120"));
+
+        try(QCRestClient qcc = new QCRestClient("http://127.0.0.1:1080", "abc", "def", config())) {
+            Assertions.assertEquals(429, (int) qcc.putEntity(defect("5")));
+            mockServer.verify(request(DEFECTS + "/5"), VerificationTimes.exactly(1));
+        }
+    }
+}
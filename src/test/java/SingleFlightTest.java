@@ -0,0 +1,116 @@
+/*
+ * QC REST API client
+ *
+ * Copyright (C) 2019  matthias.dirickx@outlook.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+import be.mdi.testing.qc.client.QCRestClient;
+import be.mdi.testing.qc.client.QcClientConfig;
+import be.mdi.testing.qc.model.entities.QcDefect;
+import be.mdi.testing.qc.model.fields.QcDefectField;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockserver.verify.VerificationTimes;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockserver.model.HttpRequest.request;
+import static org.mockserver.model.HttpResponse.response;
+
+public class SingleFlightTest extends BaseMockTest {
+
+    private static final String DEFECT = "/qcbin/rest/domains/theDomain/projects/theProject/defects/1";
+
+    private List<QcDefect> getDefectConcurrently(QCRestClient qcc, int calls) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(calls);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<QcDefect>> futures = new ArrayList<>();
+        for(int i = 0; i < calls; i++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                return qcc.getDefect("theDomain", "theProject", 1);
+            }));
+        }
+        start.countDown();
+        List<QcDefect> defects = new ArrayList<>();
+        for(Future<QcDefect> future : futures) {
+            defects.add(future.get());
+        }
+        executor.shutdown();
+        return defects;
+    }
+
+    private void respondSlowly() {
+        mockServer
+                .when(request(DEFECT))
+                .respond(response()
+                        .withHeader("Content-Type", "application/xml")
+                        .withDelay(TimeUnit.MILLISECONDS, 500)
+                        .withBody("<Entity Type=\"defect\"><Fields><Field Name=\"id\"><Value>1</Value></Field></Fields></Entity>"));
+    }
+
+    @Test
+    public void concurrentIdenticalGetsShareOneCall() throws Exception {
+        respondSlowly();
+        try(QCRestClient qcc = new QCRestClient("http://127.0.0.1:1080", "abc", "def")) {
+            qcc.login();
+
+            List<QcDefect> defects = getDefectConcurrently(qcc, 5);
+
+            for(QcDefect defect : defects) {
+                Assertions.assertEquals("1", defect.getField(QcDefectField.BUG_ID));
+            }
+            Assertions.assertEquals(4, qcc.getMetrics().getCoalescedGets());
+            mockServer.verify(request(DEFECT), VerificationTimes.exactly(1));
+        }
+    }
+
+    @Test
+    public void everyCallerOfASharedCallGetsItsOwnObject() throws Exception {
+        respondSlowly();
+        try(QCRestClient qcc = new QCRestClient("http://127.0.0.1:1080", "abc", "def")) {
+            qcc.login();
+
+            List<QcDefect> defects = getDefectConcurrently(qcc, 3);
+            defects.get(0).setField(QcDefectField.STATUS, "Closed");
+
+            Assertions.assertNotSame(defects.get(0), defects.get(1));
+            Assertions.assertNotSame(defects.get(0).getFields(), defects.get(1).getFields());
+            Assertions.assertNull(defects.get(1).getField(QcDefectField.STATUS));
+            Assertions.assertEquals(2, qcc.getMetrics().getCoalescedGets());
+            mockServer.verify(request(DEFECT), VerificationTimes.exactly(1));
+        }
+    }
+
+    @Test
+    public void coalescingCanBeTurnedOff() throws Exception {
+        respondSlowly();
+        try(QCRestClient qcc = new QCRestClient("http://127.0.0.1:1080", "abc", "def",
+                new QcClientConfig().setCoalesceGets(false))) {
+            qcc.login();
+
+            getDefectConcurrently(qcc, 3);
+
+            Assertions.assertEquals(0, qcc.getMetrics().getCoalescedGets());
+            mockServer.verify(request(DEFECT), VerificationTimes.exactly(3));
+        }
+    }
+}
@@ -33,12 +33,12 @@ public class StaticQcRestClientTest extends BaseMockTest {
                         .withBody("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>" +
                                 "<Entity Type=\"defect\">" +
                                 "<Fields>" +
-                                "<Field Name=\"description\">" +
-                                "<Value>the description</Value>" +
-                                "</Field>" +
                                 "<Field Name=\"closing-date\">" +
                                 "<Value>2019-07-20</Value>" +
                                 "</Field>" +
+                                "<Field Name=\"description\">" +
+                                "<Value>the description</Value>" +
+                                "</Field>" +
                                 "</Fields>" +
                                 "</Entity>"))
 
@@ -0,0 +1,114 @@
+/*
+ * QC REST API client
+ *
+ * Copyright (C) 2019  matthias.dirickx@outlook.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+import be.mdi.testing.qc.client.AsyncQCRestClient;
+import be.mdi.testing.qc.client.Benchmark;
+import be.mdi.testing.qc.client.QCRestClient;
+import be.mdi.testing.qc.client.QcClientConfig;
+import be.mdi.testing.qc.client.QcThreads;
+import be.mdi.testing.qc.model.entities.QcRun;
+import be.mdi.testing.qc.model.fields.QcRunField;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+
+import static org.mockserver.model.HttpRequest.request;
+import static org.mockserver.model.HttpResponse.response;
+
+/**
+ * Throughput of the jersey and the jdk transport.
+ * Both run the same mix of GETs and POSTs against the mockserver of BaseMockTest, which stands in for the server.
+ *
+ * A Benchmark, enable with:
+ *     mvn test -Dtest=TransportBenchmarkTest -Dqcclient.benchmark=true [-Dqcclient.benchmark.calls=5000]
+ */
+public class TransportBenchmarkTest extends BaseMockTest {
+
+    private static final int CALLS = Integer.getInteger("qcclient.benchmark.calls", 2000);
+    private static final int THREADS = 16;
+    private static final String RUN_XML = "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>" +
+            "<Entity Type=\"run\"><Fields><Field Name=\"id\"><Value>1</Value></Field></Fields></Entity>";
+
+    private void mockRunEndpoints() {
+        mockServer
+                .when(request("/qcbin/rest/domains/theDomain/projects/theProject/runs").withMethod("POST"))
+                .respond(response()
+                        .withHeader("Content-Type", "application/xml")
+                        .withStatusCode(201)
+                        .withBody(RUN_XML));
+        mockServer
+                .when(request("/qcbin/rest/domains/theDomain/projects/theProject/runs/1"))
+                .respond(response()
+                        .withHeader("Content-Type", "application/xml")
+                        .withBody(RUN_XML));
+    }
+
+    private long runWorkload(String transport) {
+        QcClientConfig config = new QcClientConfig()
+                .setTransport(transport)
+                .setCoalesceGets(false)
+                .setMaxConnectionsTotal(THREADS)
+                .setMaxConnectionsPerRoute(THREADS);
+        QCRestClient qcc = new QCRestClient("http://127.0.0.1:1080", "abc", "def", config);
+        ExecutorService executor = QcThreads.newPlatformThreadPool("benchmark", THREADS);
+        AsyncQCRestClient async = new AsyncQCRestClient(qcc, executor);
+
+        //warm up the session, the connections and the marshallers
+        for(int i = 0; i < THREADS; i++) {
+            async.getRun("theDomain", "theProject", 1).join();
+        }
+
+        long start = System.nanoTime();
+        List<CompletableFuture<QcRun>> results = new ArrayList<>();
+        for(int i = 0; i < CALLS; i++) {
+            results.add(i % 2 == 0
+                    ? async.getRun("theDomain", "theProject", 1)
+                    : async.postEntity(QcRun.class, run()));
+        }
+        CompletableFuture.allOf(results.toArray(new CompletableFuture[0])).join();
+        long elapsed = System.nanoTime() - start;
+
+        Assertions.assertEquals("1", results.get(CALLS - 1).join().getField(QcRunField.ID));
+        executor.shutdown();
+        qcc.close();
+        return elapsed;
+    }
+
+    private QcRun run() {
+        QcRun run = new QcRun().setField(QcRunField.RUN_NAME, "the run name");
+        run.setDomain("theDomain");
+        run.setProject("theProject");
+        return run;
+    }
+
+    @Test
+    public void compareTheTransports() {
+        Benchmark.assumeEnabled();
+        mockRunEndpoints();
+
+        //Each transport once to warm up the JIT, then measured.
+        runWorkload("jersey");
+        runWorkload("jdk");
+        Benchmark.reportThroughput("jersey", CALLS, runWorkload("jersey"));
+        Benchmark.reportThroughput("jdk", CALLS, runWorkload("jdk"));
+    }
+}
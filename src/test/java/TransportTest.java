@@ -0,0 +1,210 @@
+/*
+ * QC REST API client
+ *
+ * Copyright (C) 2019  matthias.dirickx@outlook.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+import be.mdi.testing.qc.client.QCRestClient;
+import be.mdi.testing.qc.client.QcClientConfig;
+import be.mdi.testing.qc.client.QcTransport;
+import be.mdi.testing.qc.client.QcTransportBody;
+import be.mdi.testing.qc.client.QcTransportRequest;
+import be.mdi.testing.qc.client.QcTransportResponse;
+import be.mdi.testing.qc.client.RetryPolicy;
+import be.mdi.testing.qc.model.QcType;
+import be.mdi.testing.qc.model.entities.QcAttachment;
+import be.mdi.testing.qc.model.entities.QcRun;
+import be.mdi.testing.qc.model.entities.QcRunStep;
+import be.mdi.testing.qc.model.entities.QcRunSteps;
+import be.mdi.testing.qc.model.fields.QcAttachmentField;
+import be.mdi.testing.qc.model.fields.QcRunField;
+import be.mdi.testing.qc.model.fields.QcRunStepField;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockserver.model.RegexBody;
+import org.mockserver.verify.VerificationTimes;
+
+import javax.ws.rs.ProcessingException;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.mockserver.model.HttpRequest.request;
+import static org.mockserver.model.HttpResponse.response;
+
+public class TransportTest extends BaseMockTest {
+
+    private static final String RUNS = "/qcbin/rest/domains/theDomain/projects/theProject/runs";
+    private static final String RUN_XML =
+            "<Entity Type=\"run\"><Fields><Field Name=\"id\"><Value>1</Value></Field></Fields></Entity>";
+
+    private QCRestClient jdkClient(QcClientConfig config) {
+        return new QCRestClient("http://127.0.0.1:1080", "abc", "def", config.setTransport("jdk"));
+    }
+
+    private QcRun run() {
+        QcRun run = new QcRun().setField(QcRunField.RUN_NAME, "the run name");
+        run.setDomain("theDomain");
+        run.setProject("theProject");
+        return run;
+    }
+
+    @Test
+    public void theJdkTransportSendsTheSameXmlAndReadsTheResponse() {
+        mockServer
+                .when(request(RUNS).withMethod("POST")
+                        .withHeader("Content-Type", "application/xml")
+                        .withBody("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>" +
+                                "<Entity Type=\"run\"><Fields>" +
+                                "<Field Name=\"run-name\"><Value>the run name</Value></Field>" +
+                                "</Fields></Entity>"))
+                .respond(response()
+                        .withStatusCode(201)
+                        .withHeader("Content-Type", "application/xml")
+                        .withBody(RUN_XML));
+        mockServer
+                .when(request(RUNS + "/1"))
+                .respond(response()
+                        .withHeader("Content-Type", "application/xml")
+                        .withBody(RUN_XML));
+
+        try(QCRestClient qcc = jdkClient(new QcClientConfig())) {
+            Assertions.assertEquals("1", qcc.postEntity(QcRun.class, run()).getField(QcRunField.ID));
+            Assertions.assertEquals("1", qcc.getRun("theDomain", "theProject", 1).getField(QcRunField.ID));
+            mockServer.verify(request("/qcbin/authentication-point/authenticate"), VerificationTimes.once());
+        }
+    }
+
+    @Test
+    public void theJdkTransportStreamsAttachments() {
+        mockServer
+                .when(request(RUNS + "/3/attachments").withMethod("POST").withHeader("Slug", "the file.txt"))
+                .respond(response()
+                        .withStatusCode(201)
+                        .withHeader("Content-Type", "application/xml")
+                        .withBody("<Entity Type=\"attachment\"><Fields>" +
+                                "<Field Name=\"id\"><Value>5</Value></Field></Fields></Entity>"));
+        mockServer
+                .when(request(RUNS + "/3/attachments/5").withMethod("PUT"))
+                .respond(response().withStatusCode(200));
+
+        QcAttachment attachment = new QcAttachment().setField(QcAttachmentField.DESCRIPTION, "the description");
+        attachment.setDomain("theDomain");
+        attachment.setProject("theProject");
+        attachment.setParent(QcType.RUN, "3");
+        attachment.setAttachmentInputStream(new ByteArrayInputStream("the content".getBytes()), "the file.txt");
+
+        try(QCRestClient qcc = jdkClient(new QcClientConfig())) {
+            qcc.postAttachment(attachment);
+        }
+
+        Assertions.assertEquals("5", attachment.getField(QcAttachmentField.ID));
+        mockServer.verify(request(RUNS + "/3/attachments").withBody("the content"), VerificationTimes.once());
+    }
+
+    @Test
+    public void theJdkTransportWritesACollectionOfEntitiesWhileSendingIt() {
+        mockServer
+                .when(request(RUNS + "/3/run-steps").withMethod("POST"))
+                .respond(response().withStatusCode(201));
+
+        QcRunSteps steps = new QcRunSteps();
+        steps.setDomain("theDomain");
+        steps.setProject("theProject");
+        for(int i = 0; i < 2000; i++) {
+            steps.add(new QcRunStep().setField(QcRunStepField.DESCRIPTION, "the description of step " + i));
+        }
+        steps.setRunId("3");
+
+        try(QCRestClient qcc = jdkClient(new QcClientConfig())) {
+            Assertions.assertEquals(201, (int) qcc.postEntities(steps));
+        }
+        mockServer.verify(request(RUNS + "/3/run-steps")
+                .withBody(RegexBody.regex("<\\?xml.*step 0<.*step 1999</Value></Field>.*</Entities>")),
+                VerificationTimes.once());
+    }
+
+    @Test
+    public void theJdkTransportFailsACallWhoseBodyCannotBeWritten() {
+        mockServer
+                .when(request(RUNS + "/3/run-steps").withMethod("POST"))
+                .respond(response().withStatusCode(201));
+
+        QcClientConfig config = new QcClientConfig().setTransport("jdk");
+        QcTransportBody body = QcTransportBody.ofContent("application/xml", out -> {
+            //More than the pipe holds, so the request is on its way when the content fails.
+            for(int i = 0; i < 2000; i++) {
+                out.write("<Entity Type=\"run-step\"><Fields></Fields></Entity>".getBytes(StandardCharsets.UTF_8));
+            }
+            throw new IOException("the content failed halfway");
+        });
+        try(QcTransport jdk = config.getTransportFactory().create(config)) {
+            Assertions.assertThrows(ProcessingException.class, () -> jdk.send(new QcTransportRequest(
+                    "POST", "http://127.0.0.1:1080" + RUNS + "/3/run-steps", new HashMap<>(), body, 0)));
+        }
+        mockServer.verify(request(RUNS + "/3/run-steps"), VerificationTimes.exactly(0));
+    }
+
+    @Test
+    public void theJdkTransportEndsAHungCallAtTheReadTimeout() {
+        mockServer
+                .when(request(RUNS + "/1"))
+                .respond(response()
+                        .withHeader("Content-Type", "application/xml")
+                        .withDelay(TimeUnit.MILLISECONDS, 3000)
+                        .withBody(RUN_XML));
+
+        try(QCRestClient qcc = jdkClient(new QcClientConfig().setReadTimeout(300).setRetryPolicy(RetryPolicy.noRetries()))) {
+            qcc.login();
+
+            long start = System.currentTimeMillis();
+            Assertions.assertThrows(ProcessingException.class, () -> qcc.getRun("theDomain", "theProject", 1));
+            Assertions.assertTrue(System.currentTimeMillis() - start < 2000);
+        }
+    }
+
+    @Test
+    public void anotherTransportCanBePluggedIn() {
+        mockServer
+                .when(request(RUNS + "/1"))
+                .respond(response()
+                        .withHeader("Content-Type", "application/xml")
+                        .withBody(RUN_XML));
+
+        AtomicInteger sent = new AtomicInteger();
+        QcClientConfig config = new QcClientConfig().setTransportFactory(c -> new QcTransport() {
+            private final QcTransport jdk = new QcClientConfig().setTransport("jdk").getTransportFactory().create(c);
+
+            @Override
+            public QcTransportResponse send(QcTransportRequest request) {
+                sent.incrementAndGet();
+                return jdk.send(request);
+            }
+
+            @Override
+            public void close() {
+                jdk.close();
+            }
+        });
+        try(QCRestClient qcc = new QCRestClient("http://127.0.0.1:1080", "abc", "def", config)) {
+            Assertions.assertEquals("1", qcc.getRun("theDomain", "theProject", 1).getField(QcRunField.ID));
+            //The authentication and the GET.
+            Assertions.assertEquals(2, sent.get());
+        }
+    }
+}
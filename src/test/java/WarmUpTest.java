@@ -0,0 +1,90 @@
+/*
+ * QC REST API client
+ *
+ * Copyright (C) 2019  matthias.dirickx@outlook.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+import be.mdi.testing.qc.client.QCRestClient;
+import be.mdi.testing.qc.client.QcClientConfig;
+import be.mdi.testing.qc.model.entities.QcRun;
+import be.mdi.testing.qc.model.fields.QcRunField;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockserver.verify.VerificationTimes;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockserver.model.HttpRequest.request;
+import static org.mockserver.model.HttpResponse.response;
+
+public class WarmUpTest extends BaseMockTest {
+
+    private static final String AUTHENTICATE = "/qcbin/authentication-point/authenticate";
+
+    @Test
+    public void theWarmUpLogsInAndOpensConnectionsInTheBackground() throws Exception {
+        mockServer
+                .when(request("/qcbin/rest/domains/theDomain/projects/theProject/runs/1"))
+                .respond(response()
+                        .withHeader("Content-Type", "application/xml")
+                        .withBody("<Entity Type=\"run\"><Fields><Field Name=\"id\"><Value>1</Value></Field></Fields></Entity>"));
+
+        try(QCRestClient qcc = new QCRestClient("http://127.0.0.1:1080", "abc", "def",
+                new QcClientConfig().setWarmUpEnabled(true).setWarmUpConnections(3))) {
+            qcc.getReadiness().get(10, TimeUnit.SECONDS);
+
+            mockServer.verify(request(AUTHENTICATE), VerificationTimes.once());
+            mockServer.verify(request("/qcbin/rest/is-authenticated"), VerificationTimes.exactly(3));
+
+            QcRun run = qcc.getRun("theDomain", "theProject", 1);
+            Assertions.assertEquals("1", run.getField(QcRunField.ID));
+            //The session of the warm-up is used.
+            mockServer.verify(request(AUTHENTICATE), VerificationTimes.once());
+        }
+    }
+
+    @Test
+    public void aFailedWarmUpFailsTheReadinessButNotTheClient() {
+        try(QCRestClient qcc = new QCRestClient("http://127.0.0.1:1080", "abc", "wrong",
+                new QcClientConfig().setWarmUpEnabled(true))) {
+            Assertions.assertThrows(ExecutionException.class, () -> qcc.getReadiness().get(10, TimeUnit.SECONDS));
+
+            //The server now takes the password; the next call logs in again and works.
+            mockServer
+                    .when(request(AUTHENTICATE).withHeader("Authorization", "Basic YWJjOndyb25n"))
+                    .respond(response()
+                            .withHeader("Content-Type", "application/xml")
+                            .withCookie("LWSSO_COOKIE_KEY", "akeyvalue"));
+            mockServer
+                    .when(request("/qcbin/rest/domains/theDomain/projects/theProject/runs/1"))
+                    .respond(response()
+                            .withHeader("Content-Type", "application/xml")
+                            .withBody("<Entity Type=\"run\"><Fields><Field Name=\"id\"><Value>1</Value></Field></Fields></Entity>"));
+
+            QcRun run = qcc.getRun("theDomain", "theProject", 1);
+            Assertions.assertEquals("1", run.getField(QcRunField.ID));
+            mockServer.verify(request(AUTHENTICATE), VerificationTimes.exactly(2));
+        }
+    }
+
+    @Test
+    public void withoutWarmUpTheClientIsReadyRightAway() {
+        try(QCRestClient qcc = new QCRestClient("http://127.0.0.1:1080", "abc", "def", new QcClientConfig())) {
+            Assertions.assertTrue(qcc.getReadiness().isDone());
+            mockServer.verify(request(AUTHENTICATE), VerificationTimes.exactly(0));
+        }
+    }
+}
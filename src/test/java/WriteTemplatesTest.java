@@ -0,0 +1,74 @@
+/*
+ * QC REST API client
+ *
+ * Copyright (C) 2019  matthias.dirickx@outlook.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+import be.mdi.testing.qc.client.QCRestClient;
+import be.mdi.testing.qc.client.QcClientConfig;
+import be.mdi.testing.qc.model.entities.QcRunStep;
+import be.mdi.testing.qc.model.entities.QcRunSteps;
+import be.mdi.testing.qc.model.fields.QcRunStepField;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockserver.model.HttpRequest;
+import org.mockserver.verify.VerificationTimes;
+
+import static org.mockserver.model.HttpRequest.request;
+import static org.mockserver.model.HttpResponse.response;
+
+public class WriteTemplatesTest extends BaseMockTest {
+
+    private static final String RUN_STEPS = "/qcbin/rest/domains/theDomain/projects/theProject/runs/1/run-steps";
+
+    private QcRunSteps runSteps() {
+        QcRunSteps steps = new QcRunSteps();
+        steps.setDomain("theDomain");
+        steps.setProject("theProject");
+        for(int i = 1; i <= 2; i++) {
+            steps.add(new QcRunStep()
+                    .setField(QcRunStepField.STEP_NAME, "step " + i)
+                    .setField(QcRunStepField.STATUS, "Passed")
+                    .setField(QcRunStepField.DESCRIPTION, "a & b <" + i + ">"));
+        }
+        steps.setTotalresults(2);
+        steps.setRunId("1");
+        return steps;
+    }
+
+    @Test
+    public void runStepsWrittenFromTemplatesAreTheSame() {
+        mockServer
+                .when(request(RUN_STEPS).withMethod("POST"))
+                .respond(response().withStatusCode(201));
+
+        try(QCRestClient qcc = new QCRestClient("http://127.0.0.1:1080", "abc", "def",
+                new QcClientConfig().setWriteTemplates(true));
+            QCRestClient plain = new QCRestClient("http://127.0.0.1:1080", "abc", "def")) {
+            Assertions.assertEquals(201, (int) qcc.postEntities(runSteps()));
+            Assertions.assertEquals(201, (int) plain.postEntities(runSteps()));
+
+            String[] bodies = new String[2];
+            int i = 0;
+            for(HttpRequest posted : mockServer.retrieveRecordedRequests(request(RUN_STEPS).withMethod("POST"))) {
+                bodies[i++] = posted.getBodyAsString();
+            }
+            Assertions.assertEquals(2, i);
+            Assertions.assertEquals(bodies[1], bodies[0]);
+            Assertions.assertTrue(bodies[0].contains("<Field Name=\"description\"><Value>a &amp; b &lt;1&gt;</Value></Field>"));
+            mockServer.verify(request(RUN_STEPS).withMethod("POST"), VerificationTimes.exactly(2));
+        }
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ * QC REST API client
+ *
+ * Copyright (C) 2019  matthias.dirickx@outlook.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package be.mdi.testing.qc.client;
+
+import org.junit.jupiter.api.Assumptions;
+
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+
+/**
+ * What the benchmark tests share: the switch that enables them, the measurements and the report.
+ *
+ * Benchmarks are not part of the regular test run. Enable them with -Dqcclient.benchmark=true, for example:
+ *     mvn test -Dtest=EntityWriteBenchmarkTest -Dqcclient.benchmark=true
+ */
+public final class Benchmark {
+
+    /**
+     * Drops what is written, so only the cost of writing is measured.
+     */
+    public static final OutputStream DROP = new OutputStream() {
+        @Override
+        public void write(int b) {}
+
+        @Override
+        public void write(byte[] b, int off, int len) {}
+    };
+
+    public interface Operation {
+        void run() throws Exception;
+    }
+
+    private Benchmark() {}
+
+    /**
+     * Skips the calling test unless qcclient.benchmark is set.
+     */
+    public static void assumeEnabled() {
+        Assumptions.assumeTrue(Boolean.getBoolean("qcclient.benchmark"), "benchmark not enabled");
+    }
+
+    /**
+     * @return long (heap used after a garbage collection)
+     */
+    public static long liveHeap() {
+        System.gc();
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    /**
+     * Run the operation the given number of rounds to warm up, then as many rounds measured,
+     * and report the time and the memory allocated per unit (a defect, a run step...).
+     * Allocation is read from the com.sun.management.ThreadMXBean of the JVM.
+     * @param mode String (name of the measured variant)
+     * @param unit String (what one round handles a number of, singular: step, defect...)
+     * @param unitsPerRound long
+     * @param rounds int
+     * @param operation Operation (one round)
+     * @throws Exception when the operation fails
+     */
+    public static void measure(String mode, String unit, long unitsPerRound, int rounds, Operation operation) throws Exception {
+        for(int i = 0; i < rounds; i++) {
+            operation.run();
+        }
+        long allocated = allocatedBytes();
+        long start = System.nanoTime();
+        for(int i = 0; i < rounds; i++) {
+            operation.run();
+        }
+        long elapsed = System.nanoTime() - start;
+        allocated = allocatedBytes() - allocated;
+        long units = rounds * unitsPerRound;
+        report("%-10s %7d %ss -> %8.2f us/%s %8d bytes/%s allocated",
+                mode, unitsPerRound, unit, elapsed / 1e3 / units, unit, allocated / units, unit);
+    }
+
+    /**
+     * @param mode String (name of the measured variant)
+     * @param calls int
+     * @param elapsedNanos long (for all calls)
+     */
+    public static void reportThroughput(String mode, int calls, long elapsedNanos) {
+        report("%-16s %6d calls in %6d ms -> %8.1f calls/s",
+                mode, calls, elapsedNanos / 1_000_000, calls / (elapsedNanos / 1e9));
+    }
+
+    /**
+     * One line of results, on the console of the test run.
+     * @param format String (see String.format)
+     * @param args Object...
+     */
+    public static void report(String format, Object... args) {
+        System.out.println(String.format(format, args));
+    }
+
+    private static long allocatedBytes() {
+        return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean())
+                .getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+}
@@ -0,0 +1,62 @@
+/*
+ * QC REST API client
+ *
+ * Copyright (C) 2019  matthias.dirickx@outlook.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package be.mdi.testing.qc.client;
+
+import be.mdi.testing.qc.model.entities.QcRunStep;
+import be.mdi.testing.qc.model.entities.QcRunSteps;
+import be.mdi.testing.qc.model.fields.QcRunStepField;
+import org.junit.jupiter.api.Test;
+
+import static be.mdi.testing.qc.client.Benchmark.DROP;
+
+/**
+ * Time and memory allocated per run step when writing a QcRunSteps body of many steps:
+ *     - streamed : the EntityXmlWriter used for postEntities
+ *     - template : the EntityXmlTemplates (qcclient.write.templates)
+ *
+ * A Benchmark, enable with:
+ *     mvn test -Dtest=EntityWriteBenchmarkTest -Dqcclient.benchmark=true [-Dqcclient.benchmark.entities=5000]
+ */
+public class EntityWriteBenchmarkTest {
+
+    private static final int ENTITIES = Integer.getInteger("qcclient.benchmark.entities", 5000);
+    private static final int ROUNDS = 20;
+
+    private static QcRunSteps steps() {
+        QcRunSteps steps = new QcRunSteps();
+        for(int i = 0; i < ENTITIES; i++) {
+            steps.add(new QcRunStep()
+                    .setField(QcRunStepField.DESCRIPTION, "the description of step " + i)
+                    .setField(QcRunStepField.EXPECTED, "the expected result of step " + i)
+                    .setField(QcRunStepField.STATUS, "Passed"));
+        }
+        steps.setRunId("1");
+        return steps;
+    }
+
+    @Test
+    public void compareStreamedAndTemplateWrites() throws Exception {
+        Benchmark.assumeEnabled();
+        QcRunSteps steps = steps();
+        EntityXmlTemplates templates = new EntityXmlTemplates();
+
+        Benchmark.measure("streamed", "step", ENTITIES, ROUNDS, () -> EntityXmlWriter.write(steps, DROP));
+        Benchmark.measure("template", "step", ENTITIES, ROUNDS, () -> templates.write(steps, DROP));
+    }
+}
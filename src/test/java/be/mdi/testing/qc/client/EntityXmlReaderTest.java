@@ -0,0 +1,121 @@
+/*
+ * QC REST API client
+ *
+ * Copyright (C) 2019  matthias.dirickx@outlook.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package be.mdi.testing.qc.client;
+
+import be.mdi.testing.qc.model.entities.QcDefect;
+import be.mdi.testing.qc.model.entities.QcDefects;
+import be.mdi.testing.qc.model.entities.QcRun;
+import be.mdi.testing.qc.model.fields.QcDefectField;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+public class EntityXmlReaderTest {
+
+    private static final String DEFECTS =
+            "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n" +
+            "<Entities TotalResults=\"3\">\n" +
+            "    <Entity Type=\"defect\">\n" +
+            "        <ChildrenCount><Value>0</Value></ChildrenCount>\n" +
+            "        <Fields>\n" +
+            "            <Field Name=\"id\">\n" +
+            "                <Value>1</Value>\n" +
+            "            </Field>\n" +
+            "            <Field Name=\"description\"><Value>&lt;b&gt;a &amp; b&lt;/b&gt; é</Value></Field>\n" +
+            "            <Field Name=\"dev-comments\"><Value><![CDATA[<html> & more]]></Value></Field>\n" +
+            "            <Field Name=\"status\"><Value/></Field>\n" +
+            "            <Field Name=\"owner\"/>\n" +
+            "            <Field Name=\"severity\"><Value>   </Value></Field>\n" +
+            "        </Fields>\n" +
+            "        <RelatedEntities/>\n" +
+            "    </Entity>\n" +
+            "    <Entity Type=\"defect\"><Fields/></Entity>\n" +
+            "    <Entity><Fields><Field Name=\"id\"><Value>3</Value></Field></Fields></Entity>\n" +
+            "</Entities>";
+
+    private static String key(QcDefect defect, String name) {
+        for(String key : defect.getFields().keySet()) {
+            if(key.equals(name)) {
+                return key;
+            }
+        }
+        throw new AssertionError("No field " + name);
+    }
+
+    private static ByteArrayInputStream in(String xml) {
+        return new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void aCollectionIsReadAsJaxbReadsIt() throws Exception {
+        QcDefects jaxb = JaxbContexts.unmarshal(QcDefects.class, in(DEFECTS));
+        QcDefects read = EntityXmlReader.read(QcDefects.class, in(DEFECTS));
+
+        Assertions.assertEquals(jaxb.getTotalresults(), read.getTotalresults());
+        Assertions.assertEquals(jaxb.getEntityList().size(), read.getEntityList().size());
+        for(int i = 0; i < jaxb.getEntityList().size(); i++) {
+            Assertions.assertEquals(jaxb.get(i).getType(), read.get(i).getType());
+            Assertions.assertEquals(jaxb.get(i).getFields(), read.get(i).getFields());
+        }
+        Assertions.assertEquals("<b>a & b</b> é", read.get(0).getField(QcDefectField.DESCRIPTION));
+        Assertions.assertNull(read.get(0).getField(QcDefectField.RESPONSIBLE));
+        Assertions.assertTrue(read.get(0).getFields().containsKey("owner"));
+    }
+
+    @Test
+    public void anEntityIsReadAsJaxbReadsIt() throws Exception {
+        String xml = "<Entity Type=\"run\"><Fields>" +
+                "<Field Name=\"id\"><Value>7</Value></Field>" +
+                "<Field Name=\"run-name\"><Value>the run name</Value></Field>" +
+                "</Fields></Entity>";
+
+        Assertions.assertEquals(
+                JaxbContexts.unmarshal(QcRun.class, in(xml)).getFields(),
+                EntityXmlReader.read(QcRun.class, in(xml)).getFields());
+    }
+
+    @Test
+    public void entitiesCanBeReadOneAtATime() throws Exception {
+        List<QcDefect> defects = new ArrayList<>();
+
+        Assertions.assertEquals(3, EntityXmlReader.readEach(QcDefect.class, in(DEFECTS), defects::add));
+        Assertions.assertEquals("1", defects.get(0).getField(QcDefectField.BUG_ID));
+        Assertions.assertEquals("3", defects.get(2).getField(QcDefectField.BUG_ID));
+    }
+
+    @Test
+    public void fieldNamesAreSharedByAllEntities() throws Exception {
+        String xml = "<Entities TotalResults=\"2\">" +
+                "<Entity Type=\"defect\"><Fields><Field Name=\"id\"><Value>1</Value></Field>" +
+                "<Field Name=\"bg-user-template-01\"><Value>a</Value></Field></Fields></Entity>" +
+                "<Entity Type=\"defect\"><Fields><Field Name=\"id\"><Value>2</Value></Field>" +
+                "<Field Name=\"bg-user-template-01\"><Value>b</Value></Field></Fields></Entity>" +
+                "</Entities>";
+        QcDefects defects = EntityXmlReader.read(QcDefects.class, in(xml));
+
+        Assertions.assertSame(QcDefectField.BUG_ID.getName(), key(defects.get(0), "id"));
+        Assertions.assertSame(QcDefectField.BUG_ID.getName(), key(defects.get(1), "id"));
+        Assertions.assertSame(key(defects.get(0), "bg-user-template-01"), key(defects.get(1), "bg-user-template-01"));
+        Assertions.assertSame(defects.get(0).getType(), defects.get(1).getType());
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ * QC REST API client
+ *
+ * Copyright (C) 2019  matthias.dirickx@outlook.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package be.mdi.testing.qc.client;
+
+import be.mdi.testing.qc.model.entities.QcAttachments;
+import be.mdi.testing.qc.model.entities.QcDefect;
+import be.mdi.testing.qc.model.entities.QcDefects;
+import be.mdi.testing.qc.model.entities.QcRun;
+import be.mdi.testing.qc.model.fields.QcDefectField;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+public class EntityXmlScannerTest {
+
+    private static final String DEFECTS =
+            "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\r\n" +
+            "<!-- a comment before the root -->\n" +
+            "<Entities TotalResults=' 3 '>\n" +
+            "    <Entity Type=\"defect\">\n" +
+            "        <ChildrenCount><Value>0</Value></ChildrenCount>\n" +
+            "        <Fields>\n" +
+            "            <Field Name=\"id\">\n" +
+            "                <Value>1</Value>\n" +
+            "            </Field>\n" +
+            "            <Field Name=\"description\"><Value>&lt;b&gt;a &amp; b&lt;/b&gt; é &#233;&#x20AC;</Value></Field>\n" +
+            "            <Field Name=\"dev-comments\"><Value><![CDATA[<html></Value> & more]]> after</Value></Field>\n" +
+            "            <Field Name=\"status\"><Value/></Field>\n" +
+            "            <Field Name=\"owner\"/>\n" +
+            "            <Field Name=\"severity\"><Value>   </Value></Field>\n" +
+            "            <Field Name=\"name\"><Value>line 1\r\nline 2\rline 3<!-- not text --></Value></Field>\n" +
+            "            <Field Name=\"priority\"><Value>first</Value><Value>second <b>skipped <i>too</i></b>kept</Value></Field>\n" +
+            "            <Field Name='user-&quot;quoted&quot;'><Value>user field</Value></Field>\n" +
+            "            <Field Name=\"detected-by\"><Other a=\"&gt;\"/><Value>someone</Value></Field>\n" +
+            "        </Fields>\n" +
+            "        <RelatedEntities/>\n" +
+            "    </Entity>\n" +
+            "    <Entity Type=\"defect\"><Fields/></Entity>\n" +
+            "    <Entity><Fields><Field Name=\"id\"><Value>3</Value></Field></Fields><Fields><Field Name=\"id\"><Value>4</Value></Field></Fields></Entity>\n" +
+            "</Entities>";
+
+    private static <T> T read(Class<T> type, byte[] xml) throws Exception {
+        return EntityXmlReader.read(type, new ByteArrayInputStream(xml));
+    }
+
+    private static void assertSameDefects(QcDefects expected, QcDefects actual) {
+        Assertions.assertEquals(expected.getTotalresults(), actual.getTotalresults());
+        Assertions.assertEquals(expected.getEntityList().size(), actual.getEntityList().size());
+        for(int i = 0; i < expected.getEntityList().size(); i++) {
+            Assertions.assertEquals(expected.get(i).getType(), actual.get(i).getType());
+            Assertions.assertEquals(expected.get(i).getFields(), actual.get(i).getFields());
+        }
+    }
+
+    @Test
+    public void aCollectionIsScannedAsTheReaderReadsIt() throws Exception {
+        byte[] xml = DEFECTS.getBytes(StandardCharsets.UTF_8);
+        QcDefects scanned = EntityXmlScanner.read(QcDefects.class, xml);
+
+        assertSameDefects(read(QcDefects.class, xml), scanned);
+        QcDefect defect = scanned.get(0);
+        Assertions.assertEquals("<b>a & b</b> é é€", defect.getField(QcDefectField.DESCRIPTION));
+        Assertions.assertEquals("<html></Value> & more after", defect.getField(QcDefectField.DEV_COMMENTS));
+        Assertions.assertEquals("line 1\nline 2\nline 3", defect.getField(QcDefectField.NAME));
+        Assertions.assertEquals("second kept", defect.getField(QcDefectField.PRIORITY));
+        Assertions.assertEquals("", defect.getField(QcDefectField.STATUS));
+        Assertions.assertNull(defect.getField(QcDefectField.RESPONSIBLE));
+        Assertions.assertEquals("user field", defect.getFields().get("user-\"quoted\""));
+        Assertions.assertEquals("4", scanned.get(2).getField(QcDefectField.BUG_ID));
+    }
+
+    @Test
+    public void entitiesWithoutFieldEnumAndSingleEntitiesAreScannedAsWell() throws Exception {
+        byte[] attachments = ("<Entities TotalResults=\"1\"><Entity Type=\"attachment\"><Fields>" +
+                "<Field Name=\"name\"><Value>file.txt</Value></Field>" +
+                "<Field Name=\"file-size\"><Value>12</Value></Field>" +
+                "</Fields></Entity></Entities>").getBytes(StandardCharsets.UTF_8);
+        Assertions.assertEquals(
+                read(QcAttachments.class, attachments).get(0).getFields(),
+                EntityXmlScanner.read(QcAttachments.class, attachments).get(0).getFields());
+
+        byte[] run = "<Entity Type=\"run\"><Fields><Field Name=\"id\"><Value>7</Value></Field></Fields></Entity>"
+                .getBytes(StandardCharsets.UTF_8);
+        Assertions.assertEquals(read(QcRun.class, run).getFields(), EntityXmlScanner.read(QcRun.class, run).getFields());
+    }
+
+    @Test
+    public void documentsTheScannerDoesNotHandleAreReadByTheReader() throws Exception {
+        String latin = "<?xml version=\"1.0\" encoding=\"ISO-8859-1\"?>" +
+                "<Entities><Entity Type=\"defect\"><Fields><Field Name=\"name\"><Value>café</Value></Field>" +
+                "</Fields></Entity></Entities>";
+        byte[] xml = latin.getBytes(Charset.forName("ISO-8859-1"));
+        Assertions.assertEquals("café", EntityXmlScanner.read(QcDefects.class, xml).get(0).getField(QcDefectField.NAME));
+
+        byte[] doctype = ("<!DOCTYPE Entities><Entities><Entity Type=\"defect\"><Fields>" +
+                "<Field Name=\"name\"><Value>a</Value></Field></Fields></Entity></Entities>").getBytes(StandardCharsets.UTF_8);
+        assertSameDefects(read(QcDefects.class, doctype), EntityXmlScanner.read(QcDefects.class, doctype));
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * QC REST API client
+ *
+ * Copyright (C) 2019  matthias.dirickx@outlook.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package be.mdi.testing.qc.client;
+
+import be.mdi.testing.qc.model.entities.QcDefect;
+import be.mdi.testing.qc.model.entities.QcEntities;
+import be.mdi.testing.qc.model.entities.QcRunStep;
+import be.mdi.testing.qc.model.entities.QcRunSteps;
+import be.mdi.testing.qc.model.fields.QcDefectField;
+import be.mdi.testing.qc.model.fields.QcRunStepField;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+import java.util.Random;
+
+public class EntityXmlTemplatesTest {
+
+    private static void assertSameAsWriter(EntityXmlTemplates templates, QcEntities entities) throws Exception {
+        ByteArrayOutputStream writer = new ByteArrayOutputStream();
+        EntityXmlWriter.write(entities, writer);
+        ByteArrayOutputStream written = new ByteArrayOutputStream();
+        templates.write(entities, written);
+        Assertions.assertEquals(writer.toString("UTF-8"), written.toString("UTF-8"));
+        Assertions.assertTrue(Arrays.equals(writer.toByteArray(), written.toByteArray()));
+    }
+
+    @Test
+    public void stepsOfOneShapeShareOneTemplate() throws Exception {
+        EntityXmlTemplates templates = new EntityXmlTemplates();
+        QcRunSteps steps = new QcRunSteps();
+        for(int i = 0; i < 10; i++) {
+            steps.add(new QcRunStep()
+                    .setField(QcRunStepField.STEP_NAME, "step " + i)
+                    .setField(QcRunStepField.STATUS, "Passed")
+                    .setField(QcRunStepField.DESCRIPTION, "the description of step " + i)
+                    .setField(QcRunStepField.EXPECTED, "the expected result")
+                    .setField(QcRunStepField.ACTUAL, i % 2 == 0 ? null : "the actual result"));
+        }
+        steps.setTotalresults(10);
+        steps.setRunId("3");
+
+        assertSameAsWriter(templates, steps);
+        assertSameAsWriter(templates, steps);
+        Assertions.assertEquals(1, templates.size());
+    }
+
+    @Test
+    public void markupAndOtherCharactersAreWrittenAsTheWriterDoes() throws Exception {
+        EntityXmlTemplates templates = new EntityXmlTemplates();
+        QcRunSteps steps = new QcRunSteps();
+        steps.add(new QcRunStep()
+                .setField(QcRunStepField.DESCRIPTION, "<b>a & b</b> \"quoted\" 'single'\ttab\nnew line é € 😀 \ud800 lone")
+                .setField(QcRunStepField.EXPECTED, ""));
+        steps.get(0).getFields().put("a \"name\" & <more>", "value");
+        steps.add(new QcRunStep());
+        QcRunStep withoutValue = new QcRunStep();
+        withoutValue.getFields().put("status", null);
+        steps.add(withoutValue);
+        assertSameAsWriter(templates, steps);
+        assertSameAsWriter(templates, new QcRunSteps());
+
+        ByteArrayOutputStream writer = new ByteArrayOutputStream();
+        ByteArrayOutputStream written = new ByteArrayOutputStream();
+        QcDefect defect = new QcDefect().setField(QcDefectField.STATUS, "Open");
+        EntityXmlWriter.write(defect, writer);
+        templates.write(defect, written);
+        Assertions.assertEquals(writer.toString("UTF-8"), written.toString("UTF-8"));
+    }
+
+    @Test
+    public void randomShapesAndValuesAreWrittenAsTheWriterDoes() throws Exception {
+        EntityXmlTemplates templates = new EntityXmlTemplates();
+        Random random = new Random(25);
+        QcRunStepField[] fields = QcRunStepField.values();
+        String characters = "ab <>&\"'é€\n😀";
+        for(int round = 0; round < 50; round++) {
+            QcRunSteps steps = new QcRunSteps();
+            for(int i = 0; i < 100; i++) {
+                QcRunStep step = new QcRunStep();
+                for(int f = random.nextInt(4); f >= 0; f--) {
+                    StringBuilder value = new StringBuilder();
+                    for(int c = random.nextInt(3000); c > 0; c--) {
+                        value.append(characters.charAt(random.nextInt(characters.length())));
+                    }
+                    step.setField(fields[random.nextInt(fields.length)], random.nextInt(5) == 0 ? null : value.toString());
+                }
+                steps.add(step);
+            }
+            steps.setTotalresults(100);
+            assertSameAsWriter(templates, steps);
+        }
+        Assertions.assertEquals(EntityXmlTemplates.MAX_TEMPLATES, templates.size());
+    }
+}
@@ -0,0 +1,74 @@
+/*
+ * QC REST API client
+ *
+ * Copyright (C) 2019  matthias.dirickx@outlook.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package be.mdi.testing.qc.client;
+
+import be.mdi.testing.qc.model.entities.QcEntities;
+import be.mdi.testing.qc.model.entities.QcRunStep;
+import be.mdi.testing.qc.model.entities.QcRunSteps;
+import be.mdi.testing.qc.model.fields.QcRunStepField;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+
+public class EntityXmlWriterTest {
+
+    private static void assertSameAsJaxb(QcEntities entities) throws Exception {
+        ByteArrayOutputStream jaxb = new ByteArrayOutputStream();
+        JaxbWriter.marshal(entities, jaxb);
+        ByteArrayOutputStream written = new ByteArrayOutputStream();
+        EntityXmlWriter.write(entities, written);
+        Assertions.assertEquals(jaxb.toString("UTF-8"), written.toString("UTF-8"));
+    }
+
+    @Test
+    public void theXmlIsTheSameAsWhatJaxbWrites() throws Exception {
+        QcRunSteps steps = new QcRunSteps();
+        for(int i = 0; i < 10; i++) {
+            steps.add(new QcRunStep()
+                    .setField(QcRunStepField.DESCRIPTION, "step " + i)
+                    .setField(QcRunStepField.STATUS, "Passed"));
+        }
+        steps.setTotalresults(10);
+        steps.setRunId("3");
+        assertSameAsJaxb(steps);
+    }
+
+    @Test
+    public void markupAndOtherCharactersAreWrittenAsJaxbDoes() throws Exception {
+        QcRunSteps steps = new QcRunSteps();
+        steps.add(new QcRunStep()
+                .setField(QcRunStepField.DESCRIPTION, "<b>a & b</b> \"quoted\" 'single'\ttab\nnew line é € 😀")
+                .setField(QcRunStepField.EXPECTED, ""));
+        steps.get(0).getFields().put("a \"name\" & <more>", "value");
+        assertSameAsJaxb(steps);
+    }
+
+    @Test
+    public void emptyCollectionsFieldsAndValuesAreWrittenAsJaxbDoes() throws Exception {
+        assertSameAsJaxb(new QcRunSteps());
+
+        QcRunSteps steps = new QcRunSteps();
+        steps.add(new QcRunStep());
+        QcRunStep withoutValue = new QcRunStep();
+        withoutValue.getFields().put("status", null);
+        steps.add(withoutValue);
+        assertSameAsJaxb(steps);
+    }
+}
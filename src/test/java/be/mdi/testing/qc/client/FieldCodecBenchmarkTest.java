@@ -0,0 +1,73 @@
+/*
+ * QC REST API client
+ *
+ * Copyright (C) 2019  matthias.dirickx@outlook.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package be.mdi.testing.qc.client;
+
+import be.mdi.testing.qc.model.entities.QcDefect;
+import be.mdi.testing.qc.model.entities.QcDefects;
+import be.mdi.testing.qc.model.fields.QcDefectField;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+
+import static be.mdi.testing.qc.client.Benchmark.DROP;
+
+/**
+ * Time and memory allocated per defect, with every field of QcDefectField filled in,
+ * when reading and writing a QcDefects body:
+ *     - jaxb  : JAXB through the MapFieldsAdapter
+ *     - codec : the EntityXmlReader and EntityXmlWriter the client uses
+ *
+ * A Benchmark, enable with:
+ *     mvn test -Dtest=FieldCodecBenchmarkTest -Dqcclient.benchmark=true [-Dqcclient.benchmark.entities=1000]
+ */
+public class FieldCodecBenchmarkTest {
+
+    private static final int ENTITIES = Integer.getInteger("qcclient.benchmark.entities", 1000);
+    private static final int ROUNDS = 20;
+
+    private static QcDefects defects() {
+        QcDefects defects = new QcDefects();
+        for(int i = 0; i < ENTITIES; i++) {
+            QcDefect defect = new QcDefect();
+            for(QcDefectField field : QcDefectField.values()) {
+                defect.setField(field, field.getName() + " of defect " + i);
+            }
+            defects.add(defect);
+        }
+        defects.setTotalresults(ENTITIES);
+        return defects;
+    }
+
+    @Test
+    public void compareJaxbAndCodec() throws Exception {
+        Benchmark.assumeEnabled();
+        QcDefects defects = defects();
+        ByteArrayOutputStream xml = new ByteArrayOutputStream();
+        EntityXmlWriter.write(defects, xml);
+        byte[] body = xml.toByteArray();
+
+        Benchmark.measure("jaxb read", "defect", ENTITIES, ROUNDS,
+                () -> JaxbContexts.unmarshal(QcDefects.class, new ByteArrayInputStream(body)));
+        Benchmark.measure("codec read", "defect", ENTITIES, ROUNDS,
+                () -> EntityXmlReader.read(QcDefects.class, new ByteArrayInputStream(body)));
+        Benchmark.measure("jaxb write", "defect", ENTITIES, ROUNDS, () -> JaxbWriter.marshal(defects, DROP));
+        Benchmark.measure("codec write", "defect", ENTITIES, ROUNDS, () -> EntityXmlWriter.write(defects, DROP));
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * QC REST API client
+ *
+ * Copyright (C) 2019  matthias.dirickx@outlook.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package be.mdi.testing.qc.client;
+
+import be.mdi.testing.qc.model.entities.QcDefect;
+import be.mdi.testing.qc.model.entities.QcDefects;
+import be.mdi.testing.qc.model.fields.QcDefectField;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Heap retained by a QcDefects load with every field of QcDefectField filled in, after a full GC:
+ *     - entities  : the defects as read by the EntityXmlReader, the fields in the enum slots of the defects
+ *     - canonical : the same fields in a HashMap per defect, the field names shared (see FieldNames)
+ *     - copied    : the same fields in a HashMap per defect, with a string of their own per field name
+ *
+ * A Benchmark, enable with:
+ *     mvn test -Dtest=FieldNameMemoryBenchmarkTest -Dqcclient.benchmark=true [-Dqcclient.benchmark.entities=100000 -DargLine=-Xmx3g]
+ */
+public class FieldNameMemoryBenchmarkTest {
+
+    private static final int ENTITIES = Integer.getInteger("qcclient.benchmark.entities", 20000);
+
+    private static byte[] body() throws Exception {
+        QcDefects defects = new QcDefects();
+        for(int i = 0; i < ENTITIES; i++) {
+            QcDefect defect = new QcDefect();
+            for(QcDefectField field : QcDefectField.values()) {
+                defect.setField(field, Integer.toString(i));
+            }
+            defects.add(defect);
+        }
+        defects.setTotalresults(ENTITIES);
+        ByteArrayOutputStream xml = new ByteArrayOutputStream();
+        EntityXmlWriter.write(defects, xml);
+        return xml.toByteArray();
+    }
+
+    private static QcDefects read(byte[] body) throws Exception {
+        return EntityXmlReader.read(QcDefects.class, new ByteArrayInputStream(body));
+    }
+
+    private static List<Map<String, String>> hashMaps(byte[] body, boolean copyNames) throws Exception {
+        QcDefects defects = read(body);
+        List<Map<String, String>> maps = new ArrayList<>();
+        for(int i = 0; i < ENTITIES; i++) {
+            Map<String, String> map = new HashMap<>();
+            for(Map.Entry<String, String> field : defects.get(i).getFields().entrySet()) {
+                map.put(copyNames ? new String(field.getKey().toCharArray()) : field.getKey(), field.getValue());
+            }
+            maps.add(map);
+        }
+        return maps;
+    }
+
+    private static void report(String mode, long retained) {
+        Benchmark.report("%-10s %7d defects -> %8.1f MB retained, %6d bytes/defect",
+                mode, ENTITIES, retained / 1e6, retained / ENTITIES);
+    }
+
+    @Test
+    public void retainedHeapOfALargeLoad() throws Exception {
+        Benchmark.assumeEnabled();
+        byte[] body = body();
+
+        long before = Benchmark.liveHeap();
+        QcDefects entities = read(body);
+        report("entities", Benchmark.liveHeap() - before);
+        Assertions.assertEquals(ENTITIES, entities.getTotalresults());
+        entities = null;
+
+        before = Benchmark.liveHeap();
+        List<Map<String, String>> canonical = hashMaps(body, false);
+        report("canonical", Benchmark.liveHeap() - before);
+        Assertions.assertEquals(ENTITIES, canonical.size());
+        canonical = null;
+
+        before = Benchmark.liveHeap();
+        List<Map<String, String>> copied = hashMaps(body, true);
+        report("copied", Benchmark.liveHeap() - before);
+        Assertions.assertEquals(ENTITIES, copied.size());
+    }
+}
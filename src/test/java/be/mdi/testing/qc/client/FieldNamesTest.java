@@ -0,0 +1,117 @@
+/*
+ * QC REST API client
+ *
+ * Copyright (C) 2019  matthias.dirickx@outlook.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package be.mdi.testing.qc.client;
+
+import be.mdi.testing.qc.model.entities.QcDefect;
+import be.mdi.testing.qc.model.entities.QcDefects;
+import be.mdi.testing.qc.model.fields.QcDefectField;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+
+public class FieldNamesTest {
+
+    private static final String USER_FIELD = "bg-user-template-01";
+
+    private static final String DEFECTS_XML = "<Entities TotalResults=\"2\">" +
+            "<Entity Type=\"defect\"><Fields><Field Name=\"id\"><Value>1</Value></Field>" +
+            "<Field Name=\"" + USER_FIELD + "\"><Value>a</Value></Field></Fields></Entity>" +
+            "<Entity Type=\"defect\"><Fields><Field Name=\"id\"><Value>2</Value></Field>" +
+            "<Field Name=\"" + USER_FIELD + "\"><Value>b</Value></Field></Fields></Entity>" +
+            "</Entities>";
+
+    private static final String DEFECTS_JSON = "{\"entities\":[" +
+            "{\"Fields\":[{\"Name\":\"id\",\"values\":[{\"value\":\"1\"}]}," +
+            "{\"Name\":\"" + USER_FIELD + "\",\"values\":[{\"value\":\"a\"}]}],\"Type\":\"defect\"}," +
+            "{\"Fields\":[{\"Name\":\"id\",\"values\":[{\"value\":\"2\"}]}," +
+            "{\"Name\":\"" + USER_FIELD + "\",\"values\":[{\"value\":\"b\"}]}],\"Type\":\"defect\"}" +
+            "],\"TotalResults\":2}";
+
+    private static byte[] bytes(String s) {
+        return s.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * A string equal to the name, but not the same instance, as a parser creates it.
+     */
+    private static String copy(String name) {
+        return new String(name.toCharArray());
+    }
+
+    private static String key(QcDefect defect, String name) {
+        for(String key : defect.getFields().keySet()) {
+            if(key.equals(name)) {
+                return key;
+            }
+        }
+        throw new AssertionError("No field " + name);
+    }
+
+    private static void assertNamesShared(QcDefects defects) {
+        Assertions.assertSame(QcDefectField.BUG_ID.getName(), key(defects.get(0), "id"));
+        Assertions.assertSame(QcDefectField.BUG_ID.getName(), key(defects.get(1), "id"));
+        Assertions.assertSame(key(defects.get(0), USER_FIELD), key(defects.get(1), USER_FIELD));
+    }
+
+    @Test
+    public void theNamesOfTheEnumsAreTheCanonicalInstances() {
+        FieldNames names = new FieldNames();
+        byte[] status = bytes("<status>");
+
+        Assertions.assertSame(QcDefectField.STATUS.getName(), names.canonical(copy("status")));
+        Assertions.assertSame(QcDefectField.STATUS.getName(), names.canonical(status, 1, status.length - 1));
+        Assertions.assertSame(QcDefectField.STATUS.getName(), new FieldNames().canonical(copy("status")));
+        Assertions.assertNull(names.canonical(null));
+    }
+
+    @Test
+    public void otherNamesAreSharedWithinOneDocument() {
+        FieldNames names = new FieldNames();
+        byte[] userField = bytes(USER_FIELD);
+
+        String first = names.canonical(copy(USER_FIELD));
+        Assertions.assertSame(first, names.canonical(copy(USER_FIELD)));
+        Assertions.assertSame(first, names.canonical(userField, 0, userField.length));
+        //The next document has a table of its own.
+        Assertions.assertNotSame(first, new FieldNames().canonical(copy(USER_FIELD)));
+    }
+
+    @Test
+    public void aDocumentSharesAtMost1024OtherNames() {
+        FieldNames names = new FieldNames();
+        String early = names.canonical(copy("user-field-0"));
+        for(int i = 1; i < 1024; i++) {
+            names.canonical(copy("user-field-" + i));
+        }
+
+        String late = names.canonical(copy("user-field-1024"));
+        Assertions.assertNotSame(late, names.canonical(copy("user-field-1024")));
+        Assertions.assertSame(early, names.canonical(copy("user-field-0")));
+        Assertions.assertSame(QcDefectField.STATUS.getName(), names.canonical(copy("status")));
+    }
+
+    @Test
+    public void everyReaderSharesTheNames() throws Exception {
+        assertNamesShared(EntityXmlReader.read(QcDefects.class, new ByteArrayInputStream(bytes(DEFECTS_XML))));
+        assertNamesShared(EntityXmlScanner.read(QcDefects.class, bytes(DEFECTS_XML)));
+        assertNamesShared(EntityJsonReader.read(QcDefects.class, new ByteArrayInputStream(bytes(DEFECTS_JSON))));
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ * QC REST API client
+ *
+ * Copyright (C) 2019  matthias.dirickx@outlook.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package be.mdi.testing.qc.client;
+
+import be.mdi.testing.qc.model.entities.QcRunStep;
+import be.mdi.testing.qc.model.entities.QcRunSteps;
+import be.mdi.testing.qc.model.fields.QcRunStepField;
+import org.junit.jupiter.api.Test;
+
+import javax.xml.bind.JAXBContext;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+
+/**
+ * Time and memory allocated per call of reading a QcRunSteps body of 20 steps:
+ *     - new context      : a JAXBContext and unmarshaller created for every call
+ *     - new unmarshaller : the JAXBContext is cached, the unmarshaller is created for every call
+ *                          (what the Jersey XML provider does)
+ *     - pooled           : JaxbContexts, with pooled unmarshallers (the client reads domains and projects this way)
+ *     - reader           : the EntityXmlReader the client reads entities with
+ *
+ * A Benchmark, enable with:
+ *     mvn test -Dtest=JaxbBenchmarkTest -Dqcclient.benchmark=true [-Dqcclient.benchmark.calls=20000]
+ */
+public class JaxbBenchmarkTest {
+
+    private static final int CALLS = Integer.getInteger("qcclient.benchmark.calls", 20000);
+
+    private static byte[] body() throws Exception {
+        QcRunSteps steps = new QcRunSteps();
+        for(int i = 0; i < 20; i++) {
+            steps.add(new QcRunStep()
+                    .setField(QcRunStepField.DESCRIPTION, "the description of step " + i)
+                    .setField(QcRunStepField.STATUS, "Passed"));
+        }
+        ByteArrayOutputStream xml = new ByteArrayOutputStream();
+        EntityXmlWriter.write(steps, xml);
+        return xml.toByteArray();
+    }
+
+    @Test
+    public void compareUnmarshallerReuse() throws Exception {
+        Benchmark.assumeEnabled();
+        byte[] body = body();
+        JAXBContext context = JAXBContext.newInstance(QcRunSteps.class);
+
+        //Creating a context is so slow that fewer calls tell enough.
+        Benchmark.measure("new context", "call", 1, Math.max(1, CALLS / 100), () -> JAXBContext.newInstance(QcRunSteps.class)
+                .createUnmarshaller().unmarshal(new ByteArrayInputStream(body)));
+        Benchmark.measure("new unmarshaller", "call", 1, CALLS,
+                () -> context.createUnmarshaller().unmarshal(new ByteArrayInputStream(body)));
+        Benchmark.measure("pooled", "call", 1, CALLS,
+                () -> JaxbContexts.unmarshal(QcRunSteps.class, new ByteArrayInputStream(body)));
+        Benchmark.measure("reader", "call", 1, CALLS,
+                () -> EntityXmlReader.read(QcRunSteps.class, new ByteArrayInputStream(body)));
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ * QC REST API client
+ *
+ * Copyright (C) 2019  matthias.dirickx@outlook.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package be.mdi.testing.qc.client;
+
+import be.mdi.testing.qc.model.entities.QcRun;
+import be.mdi.testing.qc.model.fields.QcRunField;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+public class JaxbContextsTest {
+
+    private static QcRun roundTrip(QcRun run) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        JaxbWriter.marshal(run, out);
+        return JaxbContexts.unmarshal(QcRun.class, new ByteArrayInputStream(out.toByteArray()));
+    }
+
+    @Test
+    public void pooledUnmarshallersCanBeUsedFromManyThreads() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<Boolean>> results = new ArrayList<>();
+        for(int i = 0; i < 400; i++) {
+            final String name = "run " + i;
+            results.add(executor.submit(() ->
+                    name.equals(roundTrip(new QcRun().setField(QcRunField.RUN_NAME, name)).getField(QcRunField.RUN_NAME))));
+        }
+        for(Future<Boolean> result : results) {
+            Assertions.assertTrue(result.get());
+        }
+        executor.shutdown();
+    }
+
+    @Test
+    public void theClientReadsAgainAfterAFailedRead() throws Exception {
+        Assertions.assertThrows(Exception.class,
+                () -> JaxbContexts.unmarshal(QcRun.class, new ByteArrayInputStream("<Entity><Fields>".getBytes())));
+
+        QcRun run = roundTrip(new QcRun().setField(QcRunField.RUN_NAME, "the run name"));
+        Assertions.assertEquals("the run name", run.getField(QcRunField.RUN_NAME));
+    }
+
+    @Test
+    public void anIdleUnmarshallerDoesNotHoldTheLastResult() throws Exception {
+        WeakReference<QcRun> last = new WeakReference<>(roundTrip(new QcRun().setField(QcRunField.RUN_NAME, "the run name")));
+        for(int i = 0; i < 10 && last.get() != null; i++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+        Assertions.assertNull(last.get());
+    }
+}
@@ -0,0 +1,36 @@
+/*
+ * QC REST API client
+ *
+ * Copyright (C) 2019  matthias.dirickx@outlook.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package be.mdi.testing.qc.client;
+
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.JAXBException;
+import java.io.OutputStream;
+
+/**
+ * Writes an object with JAXB, as the reference the EntityXmlWriter is compared with.
+ * The client itself does not write with JAXB.
+ */
+final class JaxbWriter {
+
+    private JaxbWriter() {}
+
+    static void marshal(Object value, OutputStream out) throws JAXBException {
+        JAXBContext.newInstance(value.getClass()).createMarshaller().marshal(value, out);
+    }
+}
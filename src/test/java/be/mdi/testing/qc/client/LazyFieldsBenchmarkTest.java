@@ -0,0 +1,85 @@
+/*
+ * QC REST API client
+ *
+ * Copyright (C) 2019  matthias.dirickx@outlook.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package be.mdi.testing.qc.client;
+
+import be.mdi.testing.qc.model.entities.QcDefect;
+import be.mdi.testing.qc.model.entities.QcDefects;
+import be.mdi.testing.qc.model.fields.QcDefectField;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+
+/**
+ * Time and memory allocated per defect to read a QcDefects body, with every field of QcDefectField filled in,
+ * and use four fields of each defect (a status dashboard):
+ *     - eager : the EntityXmlReader, all values decoded while reading
+ *     - lazy  : the EntityXmlScanner (qcclient.fields.lazy), values decoded when they are used
+ *
+ * A Benchmark, enable with:
+ *     mvn test -Dtest=LazyFieldsBenchmarkTest -Dqcclient.benchmark=true [-Dqcclient.benchmark.entities=50000]
+ */
+public class LazyFieldsBenchmarkTest {
+
+    private static final int ENTITIES = Integer.getInteger("qcclient.benchmark.entities", 50000);
+    private static final int ROUNDS = 5;
+    private static final QcDefectField[] USED = {
+            QcDefectField.BUG_ID, QcDefectField.STATUS, QcDefectField.NAME, QcDefectField.DETECTED_BY
+    };
+
+    private static byte[] body() throws Exception {
+        QcDefects defects = new QcDefects();
+        for(int i = 0; i < ENTITIES; i++) {
+            QcDefect defect = new QcDefect();
+            for(QcDefectField field : QcDefectField.values()) {
+                defect.setField(field, field.getName() + " of defect " + i);
+            }
+            defects.add(defect);
+        }
+        defects.setTotalresults(ENTITIES);
+        ByteArrayOutputStream xml = new ByteArrayOutputStream();
+        EntityXmlWriter.write(defects, xml);
+        return xml.toByteArray();
+    }
+
+    private static long use(QcDefects defects) {
+        long length = 0;
+        for(int i = 0; i < ENTITIES; i++) {
+            for(QcDefectField field : USED) {
+                length += defects.get(i).getField(field).length();
+            }
+        }
+        return length;
+    }
+
+    @Test
+    public void compareEagerAndLazyFields() throws Exception {
+        Benchmark.assumeEnabled();
+        byte[] body = body();
+        Assertions.assertEquals(
+                use(EntityXmlReader.read(QcDefects.class, new ByteArrayInputStream(body))),
+                use(EntityXmlScanner.read(QcDefects.class, body)));
+
+        Benchmark.measure("eager", "defect", ENTITIES, ROUNDS,
+                () -> use(EntityXmlReader.read(QcDefects.class, new ByteArrayInputStream(body))));
+        Benchmark.measure("lazy", "defect", ENTITIES, ROUNDS,
+                () -> use(EntityXmlScanner.read(QcDefects.class, body)));
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ * QC REST API client
+ *
+ * Copyright (C) 2019  matthias.dirickx@outlook.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package be.mdi.testing.qc.client;
+
+import be.mdi.testing.qc.model.entities.QcDefect;
+import be.mdi.testing.qc.model.entities.QcDefects;
+import be.mdi.testing.qc.model.fields.QcDefectField;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+
+import static be.mdi.testing.qc.client.Benchmark.DROP;
+
+/**
+ * Reading and writing a QcDefects body in XML and in JSON (qcclient.format), for 10, 100 and 1000 defects
+ * with every field of QcDefectField filled in. Reports the body size, the time and the memory allocated per defect.
+ *
+ * A Benchmark, enable with:
+ *     mvn test -Dtest=WireFormatBenchmarkTest -Dqcclient.benchmark=true
+ */
+public class WireFormatBenchmarkTest {
+
+    private static final int DEFECTS_PER_ROUND = 20000;
+
+    private static QcDefects defects(int count) {
+        QcDefects defects = new QcDefects();
+        for(int i = 0; i < count; i++) {
+            QcDefect defect = new QcDefect();
+            for(QcDefectField field : QcDefectField.values()) {
+                defect.setField(field, field.getName() + " of defect " + i);
+            }
+            defects.add(defect);
+        }
+        defects.setTotalresults(count);
+        return defects;
+    }
+
+    @Test
+    public void compareXmlAndJson() throws Exception {
+        Benchmark.assumeEnabled();
+        for(int count : new int[] {10, 100, 1000}) {
+            QcDefects defects = defects(count);
+            int rounds = Math.max(1, DEFECTS_PER_ROUND / count);
+            for(EntityFormat format : EntityFormat.values()) {
+                ByteArrayOutputStream body = new ByteArrayOutputStream();
+                format.write(defects, body);
+                byte[] bytes = body.toByteArray();
+
+                Benchmark.report("%-10s %7d defects -> %8d bytes body", format, count, bytes.length);
+                Benchmark.measure(format + " read", "defect", count, rounds,
+                        () -> format.read(QcDefects.class, new ByteArrayInputStream(bytes)));
+                Benchmark.measure(format + " write", "defect", count, rounds, () -> format.write(defects, DROP));
+            }
+        }
+    }
+}
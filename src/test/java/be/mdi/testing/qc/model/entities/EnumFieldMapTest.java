@@ -0,0 +1,223 @@
+/*
+ * QC REST API client
+ *
+ * Copyright (C) 2019  matthias.dirickx@outlook.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package be.mdi.testing.qc.model.entities;
+
+import be.mdi.testing.qc.model.fields.QcDefectField;
+import be.mdi.testing.qc.model.fields.QcRunField;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+public class EnumFieldMapTest {
+
+    private static final EnumFieldMap.Schema<QcDefectField> DEFECT_FIELDS =
+            new EnumFieldMap.Schema<>(QcDefectField.values(), QcDefectField::getName);
+
+    private static List<String> keys(Map<String, String> map) {
+        return new ArrayList<>(map.keySet());
+    }
+
+    private static List<String> entryKeys(Map<String, String> map) {
+        List<String> keys = new ArrayList<>();
+        for(Map.Entry<String, String> entry : map.entrySet()) {
+            keys.add(entry.getKey());
+        }
+        return keys;
+    }
+
+    private static List<String> enumOrder(List<String> enumNames, Map<String, String> inserted) {
+        List<String> keys = new ArrayList<>();
+        for(String name : enumNames) {
+            if(inserted.containsKey(name)) {
+                keys.add(name);
+            }
+        }
+        for(String name : inserted.keySet()) {
+            if(!enumNames.contains(name)) {
+                keys.add(name);
+            }
+        }
+        return keys;
+    }
+
+    @Test
+    public void theMapIteratesTheEnumFieldsFirstAndThenTheOthersAsAdded() {
+        List<String> enumNames = new ArrayList<>();
+        for(QcDefectField field : QcDefectField.values()) {
+            enumNames.add(field.getName());
+        }
+        List<String> allNames = new ArrayList<>(enumNames);
+        for(int i = 0; i < 20; i++) {
+            allNames.add("user-field-" + i);
+        }
+        allNames.add(null);
+
+        Random random = new Random(42);
+        for(int round = 0; round < 200; round++) {
+            //Half of the rounds with the enum fields only, the others with overflow fields as well.
+            List<String> names = round % 2 == 0 ? enumNames : allNames;
+            Map<String, String> expected = new LinkedHashMap<>();
+            EnumFieldMap<QcDefectField> fields = new EnumFieldMap<>(DEFECT_FIELDS);
+            for(int op = 0; op < 300; op++) {
+                String name = names.get(random.nextInt(names.size()));
+                int action = random.nextInt(20);
+                if(action < 14) {
+                    String value = random.nextInt(5) == 0 ? null : "v" + op;
+                    Assertions.assertEquals(expected.put(name, value), fields.put(name, value));
+                } else if(action < 19) {
+                    Assertions.assertEquals(expected.remove(name), fields.remove(name));
+                } else if(random.nextInt(10) == 0) {
+                    expected.clear();
+                    fields.clear();
+                }
+                Assertions.assertEquals(expected.size(), fields.size());
+                Assertions.assertEquals(expected.containsKey(name), fields.containsKey(name));
+                Assertions.assertEquals(expected.get(name), fields.get(name));
+            }
+            Assertions.assertEquals(expected, fields);
+            Assertions.assertEquals(enumOrder(enumNames, expected), keys(fields));
+            Assertions.assertEquals(enumOrder(enumNames, expected), entryKeys(fields));
+        }
+    }
+
+    @Test
+    public void enumFieldsAndNamesShareTheirStorage() {
+        QcRun run = new QcRun();
+        run.setField(QcRunField.STATUS, "Passed");
+        run.getFields().put("user-01-custom", "x");
+
+        Assertions.assertEquals("Passed", run.getFields().get("status"));
+        run.getFields().put("status", "Failed");
+        Assertions.assertEquals("Failed", run.getField(QcRunField.STATUS));
+        Assertions.assertEquals(2, run.getFields().size());
+
+        for(Map.Entry<String, String> field : run.getFields().entrySet()) {
+            field.setValue(field.getValue() + "!");
+        }
+        Assertions.assertEquals("Failed!", run.getField(QcRunField.STATUS));
+
+        Iterator<String> names = run.getFields().keySet().iterator();
+        while(names.hasNext()) {
+            if("status".equals(names.next())) {
+                names.remove();
+            }
+        }
+        Assertions.assertNull(run.getField(QcRunField.STATUS));
+        Assertions.assertFalse(run.getFields().containsKey("status"));
+        Assertions.assertEquals("x!", run.getFields().get("user-01-custom"));
+    }
+
+    @Test
+    public void rawFieldsAreDecodedWhenTheyAreRead() {
+        String[] names = {"id", "status", "user-field", "status"};
+        String[] values = {"1", "Open", "user value", "Closed"};
+        int[] decoded = new int[names.length];
+        QcRawFields raw = new QcRawFields() {
+            @Override
+            public int size() {
+                return names.length;
+            }
+
+            @Override
+            public String getName(int index) {
+                return names[index];
+            }
+
+            @Override
+            public String getValue(int index) {
+                decoded[index]++;
+                return values[index];
+            }
+        };
+        QcDefect defect = new QcDefect();
+        defect.setRawFields(raw);
+
+        //Only the field outside the enum is decoded right away.
+        Assertions.assertEquals("[0, 0, 1, 0]", Arrays.toString(decoded));
+        Assertions.assertEquals(3, defect.getFields().size());
+        Assertions.assertEquals("Closed", defect.getField(QcDefectField.STATUS));
+        Assertions.assertEquals("[0, 0, 1, 1]", Arrays.toString(decoded));
+
+        defect.setField(QcDefectField.BUG_ID, "2");
+        Assertions.assertEquals("2", defect.getFields().get("id"));
+        Assertions.assertEquals(0, decoded[0]);
+        Assertions.assertEquals(new HashSet<>(Arrays.asList("id", "status", "user-field")), defect.getFields().keySet());
+    }
+
+    private static QcRawFields rawFields(String[] names, String[] values, boolean[] released) {
+        return new QcRawFields() {
+            @Override
+            public int size() {
+                return names.length;
+            }
+
+            @Override
+            public String getName(int index) {
+                return names[index];
+            }
+
+            @Override
+            public String getValue(int index) {
+                if(released[0]) {
+                    throw new IllegalStateException("the response was let go");
+                }
+                return values[index];
+            }
+        };
+    }
+
+    @Test
+    public void aMaterializedEntityNoLongerReadsItsRawFields() {
+        boolean[] released = {false};
+        QcDefect defect = new QcDefect();
+        defect.setRawFields(rawFields(new String[] {"id", "status", "description"}, new String[] {"1", "Open", null}, released));
+        Assertions.assertEquals("1", defect.getField(QcDefectField.BUG_ID));
+
+        defect.materialize();
+        released[0] = true;
+
+        Assertions.assertEquals("1", defect.getField(QcDefectField.BUG_ID));
+        Assertions.assertEquals("Open", defect.getField(QcDefectField.STATUS));
+        Assertions.assertNull(defect.getField(QcDefectField.DESCRIPTION));
+        Assertions.assertEquals(3, defect.getFields().size());
+    }
+
+    @Test
+    public void anEntityLetsGoOfItsRawFieldsWhenNoFieldRefersToThem() {
+        boolean[] released = {false};
+        QcDefect defect = new QcDefect();
+        defect.setRawFields(rawFields(new String[] {"id", "status"}, new String[] {"1", "Open"}, released));
+
+        defect.setField(QcDefectField.BUG_ID, "2");
+        defect.getFields().remove("status");
+        released[0] = true;
+
+        Assertions.assertEquals("2", defect.getField(QcDefectField.BUG_ID));
+        Assertions.assertEquals(Collections.singleton("id"), defect.getFields().keySet());
+    }
+}